@@ -0,0 +1,68 @@
+package blackjackOS;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/* This class measures the dealer's probabilities for an up card, found by the full walk of the dealer's
+ * draw tree without the cache. Each invocation takes a different card out of the shoe along with the up
+ * card, so no two invocations in a row are for the same cards left, and the full-shoe tables never answer
+ * them. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DealerProbsBenchmark {
+
+	@Param({ "1", "2", "6", "8" })
+	public int decks;
+
+	// The dealer's up card, with 11 for an ace
+	@Param({ "2", "6", "10", "11" })
+	public int up;
+
+	@Param({ "RECURSIVE", "ITERATIVE" })
+	public BlackjackOptimization.Engine engine;
+
+	private Shoe full;
+	private Shoe shoe;
+	private int removed;
+	private final double[] probs = new double[6];
+
+	@Setup(Level.Trial)
+	public void setUpTrial() {
+		BlackjackOptimization.setEngine(engine);
+		full = Shoe.full(decks);
+		full.remove(Shoe.indexOf(up));
+		shoe = full.copy();
+	}
+
+	@Setup(Level.Invocation)
+	public void setUpInvocation() {
+		shoe.copyFrom(full);
+		removed = (removed + 1) % Shoe.CARD_TYPES;
+		shoe.remove(removed);
+	}
+
+	@Benchmark
+	public double getDealerProbs() {
+		Arrays.fill(probs, 0.0);
+		BlackjackOptimization.getDealerProbs(up, shoe, 1, up == 11, probs);
+		return probs[5];
+	}
+
+}
@@ -0,0 +1,66 @@
+package blackjackOS;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/* This class measures the player's full first decisions against the dealer's up card, hitting or standing,
+ * doubling, and surrendering, for a few common hands. This thread's caches are emptied before each
+ * invocation, so each decision is worked out from scratch rather than found from the one before it. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecisionBenchmark {
+
+	@Param({ "1", "2", "6", "8" })
+	public int decks;
+
+	// The hand decided by shouldHit, as "hard" or "soft", its total, and the dealer's up card
+	@Param({ "hard 16 10", "hard 11 5", "soft 18 8", "soft 13 4" })
+	public String hand;
+
+	private int total;
+	private boolean soft;
+	private int up;
+	private Shoe shoe;
+	private double[] dealerProbs;
+
+	private final Decision decision = new Decision();
+
+	@Setup(Level.Trial)
+	public void setUpTrial() {
+		String[] parts = hand.split(" ");
+		soft = parts[0].equals("soft");
+		total = Integer.parseInt(parts[1]);
+		up = Integer.parseInt(parts[2]);
+		shoe = Shoe.full(decks);
+		shoe.remove(Shoe.indexOf(up));
+		dealerProbs = BlackjackOptimization.getDealerProbs(up, shoe, 1, false, new double[6]);
+	}
+
+	@Setup(Level.Invocation)
+	public void setUpInvocation() {
+		BlackjackOptimization.clearThreadCaches();
+	}
+
+	@Benchmark
+	public double shouldHit() {
+		BlackjackOptimization.shouldHit(total, up, dealerProbs, soft, shoe, decision);
+		return decision.winIfHitOnce;
+	}
+
+}
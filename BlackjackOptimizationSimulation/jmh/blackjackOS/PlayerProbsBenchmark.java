@@ -0,0 +1,70 @@
+package blackjackOS;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/* This class measures the player's probabilities of finishing with each total after hitting a hand against
+ * a dealer showing 10, which is the walk of the player's draw tree with every nested decision of whether
+ * to hit. The transposition table would answer every invocation after the first from the same cards left,
+ * so it is emptied before each one, and the whole walk is timed. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayerProbsBenchmark {
+
+	@Param({ "1", "2", "6", "8" })
+	public int decks;
+
+	// The player's hand, as "hard" or "soft" followed by its total
+	@Param({ "hard 8", "hard 12", "hard 16", "soft 13", "soft 18" })
+	public String hand;
+
+	@Param({ "RECURSIVE", "ITERATIVE" })
+	public BlackjackOptimization.Engine engine;
+
+	private int total;
+	private boolean soft;
+	private Shoe shoe;
+	private double[] dealerProbs;
+	private final double[] probs = new double[11];
+
+	@Setup(Level.Trial)
+	public void setUpTrial() {
+		BlackjackOptimization.setEngine(engine);
+		String[] parts = hand.split(" ");
+		soft = parts[0].equals("soft");
+		total = Integer.parseInt(parts[1]);
+		shoe = Shoe.full(decks);
+		shoe.remove(0);
+		dealerProbs = BlackjackOptimization.getDealerProbs(10, shoe, 1, false, new double[6]);
+	}
+
+	@Setup(Level.Invocation)
+	public void setUpInvocation() {
+		BlackjackOptimization.clearThreadCaches();
+	}
+
+	@Benchmark
+	public double getPlayerProbs() {
+		Arrays.fill(probs, 0.0);
+		BlackjackOptimization.getPlayerProbs(total, shoe, 1.0, soft, probs, dealerProbs);
+		return probs[10];
+	}
+
+}
@@ -0,0 +1,69 @@
+package blackjackOS;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/* This class measures drawing a card, and playing a batch of 100 complete games on one thread. The games
+ * start each invocation with this thread's caches emptied, so every batch pays for working out its own
+ * decisions, as the first games of a run do, rather than finding them left over from the batch before. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimulationBenchmark {
+
+	@Param({ "1", "2", "6", "8" })
+	public int decks;
+
+	private Shoe full;
+	private Shoe shoe;
+	private final CardRandom random = new SplittableCardRandom(1);
+
+	@Setup(Level.Trial)
+	public void setUpTrial() {
+		full = Shoe.full(decks);
+		shoe = full.copy();
+	}
+
+	/* Empties this thread's caches before each invocation of the benchmarks that take it, which drawing a
+	 * card does not, as a reset before every few nanoseconds of work would swamp it */
+	@State(Scope.Thread)
+	public static class ColdCaches {
+
+		@Setup(Level.Invocation)
+		public void setUpInvocation() {
+			BlackjackOptimization.clearThreadCaches();
+		}
+
+	}
+
+	/* Draws a card, with the shoe put back together whenever it gets down to a quarter of its cards */
+	@Benchmark
+	public int hit() {
+		if (shoe.total() < full.total() / 4) {
+			shoe.copyFrom(full);
+		}
+		return BlackjackSimulation.hit(shoe, random);
+	}
+
+	/* The time shown is for all 100 games */
+	@Benchmark
+	public double simulateGames(ColdCaches caches) {
+		return BlackjackSimulation.simulateGames(100, decks, 0.25, 1, random.split()).winRate;
+	}
+
+}
@@ -0,0 +1,77 @@
+package blackjackOS;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/* This class measures splitting a pair of 8s against a 10, with every hand the split can lead to valued on
+ * this thread and across the fork-join pool. The split values of the last pair are kept, and so is
+ * everything else in this thread's caches, so they are emptied before each invocation. The pool's threads
+ * have caches of their own, which can't be reached from here, so each invocation also takes a different
+ * card out of the shoe and finds the dealer's probabilities for it again; the transposition tables start a
+ * new generation whenever those change, and every split is valued from scratch. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SplitBenchmark {
+
+	@Param({ "1", "2", "6", "8" })
+	public int decks;
+
+	// The cards left once a pair of 8s has been dealt against a 10, and those cards with one more taken out
+	// along with the dealer's probabilities for them, for each invocation
+	private Shoe dealt;
+	private Shoe shoe;
+	private int removed;
+	private final double[] dealerProbs = new double[6];
+
+	private final Decision decision = new Decision();
+
+	@Setup(Level.Trial)
+	public void setUpTrial() {
+		dealt = Shoe.full(decks);
+		dealt.remove(0);
+		dealt.remove(8);
+		dealt.remove(8);
+		shoe = dealt.copy();
+	}
+
+	@Setup(Level.Invocation)
+	public void setUpInvocation() {
+		BlackjackOptimization.clearThreadCaches();
+		shoe.copyFrom(dealt);
+		removed = (removed + 1) % Shoe.CARD_TYPES;
+		shoe.remove(removed);
+		Arrays.fill(dealerProbs, 0.0);
+		BlackjackOptimization.getDealerProbs(10, shoe, 1, false, dealerProbs);
+	}
+
+	/* shouldSplit compares against the decision for the pair's total as a hand, which is found first */
+	@Benchmark
+	public boolean shouldSplit() {
+		BlackjackOptimization.shouldHit(16, 10, dealerProbs, false, shoe, decision);
+		return BlackjackOptimization.shouldSplit(8, 10, dealerProbs, shoe, decision);
+	}
+
+	@Benchmark
+	public boolean shouldSplitParallel() {
+		BlackjackOptimization.shouldHit(16, 10, dealerProbs, false, shoe, decision);
+		return BlackjackOptimization.shouldSplitParallel(8, 10, dealerProbs, shoe, decision);
+	}
+
+}
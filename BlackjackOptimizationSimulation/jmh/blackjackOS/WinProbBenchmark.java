@@ -0,0 +1,72 @@
+package blackjackOS;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/* This class measures scoring the player's distributions of final totals against the dealer's
+ * probabilities, one at a time with playerWinProb and a batch of BATCH at a time with WinProbBatch, both
+ * with the Vector API and with the plain loop. The forks add the Vector API's module so that the batch can
+ * use it. None of these keeps anything from one call to the next, so nothing needs to be reset between
+ * invocations. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+public class WinProbBenchmark {
+
+	// The number of distributions scored at once by the batch benchmark
+	private static final int BATCH = 1024;
+
+	@Param({ "1", "2", "6", "8" })
+	public int decks;
+
+	private double[] dealerProbs;
+	private double[] playerProbs;
+	private WinProbBatch batch;
+	private final double[] winProbs = new double[BATCH];
+
+	@Setup(Level.Trial)
+	public void setUpTrial() {
+		Shoe shoe = Shoe.full(decks);
+		shoe.remove(7);
+		dealerProbs = BlackjackOptimization.getDealerProbs(7, shoe, 1, false, new double[6]);
+		playerProbs = BlackjackOptimization.getPlayerProbs(12, shoe, 1.0, false, new double[11], dealerProbs);
+		batch = new WinProbBatch(BATCH);
+		for (int i = 0; i < BATCH; i++) {
+			batch.add(playerProbs);
+		}
+	}
+
+	@Benchmark
+	public double playerWinProb() {
+		return BlackjackOptimization.playerWinProb(playerProbs, dealerProbs);
+	}
+
+	/* The time shown for this and the next benchmark is for all BATCH distributions */
+	@Benchmark
+	public double winProbBatchVector() {
+		batch.winProbs(dealerProbs, winProbs, true);
+		return winProbs[BATCH - 1];
+	}
+
+	@Benchmark
+	public double winProbBatchScalar() {
+		batch.winProbs(dealerProbs, winProbs, false);
+		return winProbs[BATCH - 1];
+	}
+
+}
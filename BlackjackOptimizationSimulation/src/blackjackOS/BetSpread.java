@@ -0,0 +1,51 @@
+package blackjackOS;
+
+import java.util.Arrays;
+
+/* This class decides how many units the player bets at the start of a game, from the true count of the
+ * shoe. The spread is a list of bets, where the first is bet at a true count of 1 or less, the second at a
+ * true count of 2, and so on, with the last one bet at its count and every count above it. A spread of a
+ * single bet is flat betting, which is what the player does when they are not counting. */
+public final class BetSpread {
+
+	public static final BetSpread FLAT = new BetSpread(new double[] { 1 });
+
+	// The true count that the first bet is made at and below
+	static final int FIRST_COUNT = 1;
+
+	private final double[] bets;
+
+	private BetSpread(double[] bets) {
+		if (bets.length == 0 || bets.length > CardCounter.MAX_COUNT) {
+			throw new IllegalArgumentException("A spread has 1 to " + CardCounter.MAX_COUNT + " bets");
+		}
+		for (double bet : bets) {
+			if (!(bet > 0)) {
+				throw new IllegalArgumentException("Every bet of a spread must be positive");
+			}
+		}
+		this.bets = bets;
+	}
+
+	/* Reads a spread from a list of bets separated by commas, such as "1,2,4,8" */
+	public static BetSpread parse(String list) {
+		return new BetSpread(Arrays.stream(list.split(",")).mapToDouble(bet -> Double.parseDouble(bet.trim()))
+				.toArray());
+	}
+
+	/* Returns the number of units bet at the given true count */
+	public double bet(int trueCount) {
+		return bets[Math.max(0, Math.min(bets.length - 1, trueCount - FIRST_COUNT))];
+	}
+
+	/* Returns the spread in the form that parse reads */
+	@Override
+	public String toString() {
+		StringBuilder list = new StringBuilder();
+		for (double bet : bets) {
+			list.append(list.length() == 0 ? "" : ",").append(bet);
+		}
+		return list.toString();
+	}
+
+}
@@ -1,13 +1,327 @@
 package blackjackOS;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
 /* This class consists of methods that will assist in making decisions during a Blackjack
  * in order to optimize a player's chances of winning. 
- * It has 8 methods and 114 logical lines of code (LOC). */
+ * It finds the dealer's probabilities of finishing with each total, the player's probabilities after
+ * hitting, and from those whether the player should hit, double, surrender, or split, along with the
+ * expected value of each. The draw trees can be walked recursively or iteratively, and a single decision
+ * can be spread across the fork-join pool. The tables, caches, and scratch arrays that keep the decisions
+ * fast are kept here too, with a separate set for each thread. */
 
 public class BlackjackOptimization {
 	  
 	public static int[] idxToVal = { 10, 1, 2, 3, 4, 5, 6, 7, 8, 9 };
-	
+
+	// Stores the dealer's probabilities for situations that have already been computed. Each thread has its
+	// own cache so that simulations running on multiple threads never have to wait on each other.
+	public static final ThreadLocal<DealerProbsCache> dealerCache = 
+			ThreadLocal.withInitial(DealerProbsCache::new);
+
+	// The deepest that the evaluations of whether the player should hit can be nested inside of each other.
+	// Each level of nesting has the player holding at least one more card, so this is never reached.
+	private static final int MAX_DEPTH = 22;
+
+	// Arrays which store the player's probabilities while they are being found, so that no new arrays need
+	// to be created during a decision. The array at each index is used by the evaluation nested at that
+	// depth, and the last one is used for the probabilities after doubling. Each thread has its own.
+	private static final ThreadLocal<double[][]> playerScratch = 
+			ThreadLocal.withInitial(() -> new double[MAX_DEPTH + 1][11]);
+
+	// Stores the results of the player's evaluations of whether to hit inside of getPlayerProbs, so that
+	// those reached again by drawing the same cards in a different order are not run again. Each thread has
+	// its own.
+	public static final ThreadLocal<PlayerTranspositionTable> playerTable = 
+			ThreadLocal.withInitial(PlayerTranspositionTable::new);
+
+	// Finds the values of splitting pairs, keeping the values of the last pair it was used for. Each thread
+	// has its own.
+	private static final ThreadLocal<SplitEvaluator> splitEvaluator = 
+			ThreadLocal.withInitial(SplitEvaluator::new);
+
+	// The two ways that the dealer's and the player's draw trees can be walked: by the recursive methods,
+	// where each level of the tree is a call, or by the iterative ones, where each level is a frame in an
+	// EvaluatorStack. Both find exactly the same probabilities, adding them up in the same order.
+	public enum Engine { RECURSIVE, ITERATIVE }
+
+	// The engine that every walk uses. This is set for the whole program, and can be changed to compare
+	// the two in the benchmarks.
+	private static volatile Engine engine = Engine.RECURSIVE;
+
+	// The frames of the iterative walks. Each thread has its own.
+	private static final ThreadLocal<EvaluatorStack> evaluatorStack = 
+			ThreadLocal.withInitial(() -> new EvaluatorStack(MAX_DEPTH));
+
+	// The largest number of decks that the dealer's probabilities for a full shoe are found for up front
+	private static final int PRECOMPUTED_DECKS = 8;
+
+	// The dealer's probabilities for each up card dealt from a full shoe of each number of decks up to
+	// PRECOMPUTED_DECKS, stored as [decks][up card index], along with the packed key of each of those
+	// shoes once the up card has been taken out of it, which is how a shoe is recognized as one of them
+	private static final double[][][] fullShoeDealerProbs = 
+			new double[PRECOMPUTED_DECKS + 1][Shoe.CARD_TYPES][];
+	private static final long[][] fullShoeKeys = new long[PRECOMPUTED_DECKS + 1][Shoe.CARD_TYPES];
+
+	// The dealer's probabilities for each up card dealt from a full shoe of each number of decks up to
+	// PRECOMPUTED_DECKS along with the player's two starting cards, which is the shoe that the first
+	// decision after every reshuffle is made from. Each is stored as [up card index][first card index * 10 +
+	// second card index], with both orders of the player's cards sharing one array, so there are 55
+	// different arrays for each up card. The table for a number of decks is only filled in the first time a
+	// shoe of that many decks is looked up, as most programs only ever use one or two.
+	private static final AtomicReferenceArray<double[][][]> openingDealerProbs =
+			new AtomicReferenceArray<>(PRECOMPUTED_DECKS + 1);
+
+	// The dealer's probabilities for each up card if they drew from an infinite number of decks, where
+	// every card has the same chance of being drawn no matter which cards have already been drawn
+	private static final double[][] infiniteDeckDealerProbs = new double[Shoe.CARD_TYPES][];
+
+	// Whether the dealer's probabilities are approximated with an infinite number of decks rather than
+	// found exactly from the cards left. This is set for the whole program, before any games are played.
+	private static volatile boolean infiniteDeckDealer = false;
+
+	// The rules of the table, which are set for the whole program, before any games are played
+	private static volatile Rules rules = Rules.STANDARD;
+
+	// Whether the dealer hits a soft 17, which is the only rule that the dealer's draw trees depend on. It
+	// is copied out of the rules into a plain flag so that the trees do not read the rules at every card,
+	// and it is only checked once the dealer has reached 17.
+	private static boolean dealerHitsSoft17 = false;
+
+	// Both tables are filled in once, when the class is loaded, which takes well under a second
+	static {
+		precomputeDealerProbs();
+	}
+
+	/* Fills in the tables of the dealer's probabilities for a full shoe and for an infinite number of
+	 * decks under the current rules */
+	private static void precomputeDealerProbs() {
+		for (int upIdx = 0; upIdx < Shoe.CARD_TYPES; upIdx++) {
+			int up = upIdx == 1 ? 11 : idxToVal[upIdx];
+			for (int decks = 1; decks <= PRECOMPUTED_DECKS; decks++) {
+				Shoe shoe = Shoe.full(decks);
+				shoe.remove(upIdx);
+				fullShoeKeys[decks][upIdx] = shoe.key();
+				fullShoeDealerProbs[decks][upIdx] = getDealerProbs(up, shoe, 1, up == 11, new double[6]);
+			}
+			infiniteDeckDealerProbs[upIdx] = getInfiniteDeckDealerProbs(up, 1, up == 11, new double[6]);
+		}
+	}
+
+	/* Sets the rules of the table for the whole program. This must be called before any games are played
+	 * or decisions are found, as the dealer's probabilities for a full shoe are found again if the dealer's
+	 * rule on a soft 17 changed, and every thread's dealer cache empties itself the next time it is used. */
+	public static synchronized void setRules(Rules newRules) {
+		boolean redraw = newRules.dealerHitsSoft17() != dealerHitsSoft17;
+		dealerHitsSoft17 = newRules.dealerHitsSoft17();
+		rules = newRules;
+		if (redraw) {
+			precomputeDealerProbs();
+			for (int decks = 0; decks <= PRECOMPUTED_DECKS; decks++) {
+				openingDealerProbs.set(decks, null);
+			}
+		}
+	}
+
+	public static Rules getRules() {
+		return rules;
+	}
+
+	/* Returns the probability that the dealer has Blackjack given their up card and the cards left, which
+	 * is the chance of their down card being an ace if they show a 10, or a 10 if they show an ace */
+	public static double dealerBlackjackProb(int dealer, Shoe cardsLeft) {
+		if (dealer < 10) {
+			return 0.0;
+		}
+		return (double) cardsLeft.count(dealer == 10 ? 1 : 0) / cardsLeft.total();
+	}
+
+	/* Returns the probabilities of the dealer finishing with 17, 18, 19, 20, 21, and over 21 given their up
+	 * card, which is equivalent to calling getDealerProbs(dealer, cardsLeft, 1, acePresent, new double[6]),
+	 * but the result is looked up first: in the infinite deck table if the dealer is being approximated,
+	 * then in the full shoe tables if the cards left are a full shoe missing only the up card, or only the
+	 * up card and the player's two starting cards, and then in the dealer cache. The returned array must
+	 * not be altered, as it may be returned again for a later call. */
+	public static double[] getDealerProbs(int dealer, Shoe cardsLeft, boolean acePresent) {
+		
+		// The tables only hold the probabilities for a dealer who is showing just their up card
+		if (dealer <= 11 && acePresent == (dealer == 11)) {
+			if (infiniteDeckDealer) {
+				return infiniteDeckDealerProbs[Shoe.indexOf(dealer)];
+			}
+			double[] probs = findFullShoeDealerProbs(dealer, cardsLeft);
+			if (probs == null) {
+				probs = findOpeningDealerProbs(dealer, cardsLeft);
+			}
+			if (probs != null) {
+				return probs;
+			}
+		}
+		
+		return dealerCache.get().get(dealer, cardsLeft, acePresent);
+	}
+
+	/* Returns the dealer's probabilities for the given up card from the full shoe table if the cards left
+	 * are a full shoe of up to PRECOMPUTED_DECKS decks missing only that up card, or null otherwise. The
+	 * returned array must not be altered. */
+	static double[] findFullShoeDealerProbs(int dealerUp, Shoe cardsLeft) {
+		// A full shoe missing one card has one card fewer than a multiple of 52
+		int total = cardsLeft.total() + 1;
+		int decks = total / 52;
+		int upIdx = Shoe.indexOf(dealerUp);
+		if (total % 52 == 0 && decks <= PRECOMPUTED_DECKS && cardsLeft.isPackable()
+				&& cardsLeft.key() == fullShoeKeys[decks][upIdx]) {
+			return fullShoeDealerProbs[decks][upIdx];
+		}
+		return null;
+	}
+
+	/* Returns the dealer's probabilities for the given up card from the opening table if the cards left are
+	 * a full shoe of up to PRECOMPUTED_DECKS decks missing only that up card and two more cards, which are
+	 * the player's, or null otherwise. The returned array must not be altered. */
+	static double[] findOpeningDealerProbs(int dealerUp, Shoe cardsLeft) {
+
+		// A full shoe missing three cards has three cards fewer than a multiple of 52
+		int total = cardsLeft.total() + 3;
+		int decks = total / 52;
+		if (total % 52 != 0 || decks > PRECOMPUTED_DECKS) {
+			return null;
+		}
+
+		// Finds the two cards missing other than the up card. As the shoe has exactly three cards fewer
+		// than a full one, if no index has more cards than a full shoe, exactly two are found.
+		int upIdx = Shoe.indexOf(dealerUp);
+		int first = -1;
+		int second = -1;
+		for (int idx = 0; idx < Shoe.CARD_TYPES; idx++) {
+			int missing = (idx == 0 ? 16 : 4) * decks - cardsLeft.count(idx) - (idx == upIdx ? 1 : 0);
+			if (missing < 0) {
+				return null;
+			}
+			for (; missing > 0; missing--) {
+				if (first < 0) {
+					first = idx;
+				} else {
+					second = idx;
+				}
+			}
+		}
+
+		double[][][] table = openingDealerProbs.get(decks);
+		if (table == null) {
+			table = precomputeOpeningDealerProbs(decks);
+		}
+		return table[upIdx][first * Shoe.CARD_TYPES + second];
+
+	}
+
+	/* Fills in the opening table for the given number of decks under the current rules, unless another
+	 * thread already has. This holds the same lock as setRules, so the rules can't change partway through. */
+	private static synchronized double[][][] precomputeOpeningDealerProbs(int decks) {
+		double[][][] table = openingDealerProbs.get(decks);
+		if (table != null) {
+			return table;
+		}
+		table = new double[Shoe.CARD_TYPES][Shoe.CARD_TYPES * Shoe.CARD_TYPES][];
+		for (int upIdx = 0; upIdx < Shoe.CARD_TYPES; upIdx++) {
+			int up = upIdx == 1 ? 11 : idxToVal[upIdx];
+			for (int first = 0; first < Shoe.CARD_TYPES; first++) {
+				for (int second = first; second < Shoe.CARD_TYPES; second++) {
+					Shoe shoe = Shoe.full(decks);
+					shoe.remove(upIdx);
+					shoe.remove(first);
+					shoe.remove(second);
+					double[] probs = getDealerProbs(up, shoe, 1, up == 11, new double[6]);
+					table[upIdx][first * Shoe.CARD_TYPES + second] = probs;
+					table[upIdx][second * Shoe.CARD_TYPES + first] = probs;
+				}
+			}
+		}
+		openingDealerProbs.set(decks, table);
+		return table;
+	}
+
+	/* Sets whether the dealer's probabilities are approximated by the infinite deck table for every shoe,
+	 * which makes them take no time at all, at the cost of ignoring which cards are left. This changes
+	 * the decisions made, so it should be set before a simulation starts and left alone while it runs. */
+	public static void setInfiniteDeckDealer(boolean infiniteDeck) {
+		infiniteDeckDealer = infiniteDeck;
+	}
+
+	public static boolean isInfiniteDeckDealer() {
+		return infiniteDeckDealer;
+	}
+
+	/* Sets whether the draw trees are walked recursively or iteratively */
+	public static void setEngine(Engine newEngine) {
+		engine = newEngine;
+	}
+
+	public static Engine getEngine() {
+		return engine;
+	}
+
+	/* Empties this thread's dealer cache, transposition table, and split values, so that the next
+	 * evaluation on this thread works everything out again. The benchmarks use this to time the
+	 * evaluations themselves rather than lookups of their earlier results. */
+	static void clearThreadCaches() {
+		dealerCache.get().clear();
+		playerTable.get().clear();
+		splitEvaluator.get().clear();
+	}
+
+	/* Returns the probabilities of the dealer finishing with 17, 18, 19, 20, 21, and over 21 for an
+	 * infinite number of decks, in the same way as getDealerProbs does for the cards left in a shoe. Every
+	 * value other than 10 is drawn with a probability of 1/13, and 10 with a probability of 4/13, except
+	 * for the dealer's down card after they have peeked, which cannot be the card that would give them
+	 * Blackjack. */
+	private static double[] getInfiniteDeckDealerProbs(int dealer, double prob, boolean acePresent,
+			double[] probs) {
+		
+		// The probability of each card is its share of the 13 cards in a suit, or of the 12 or 9 that are
+		// left once the peek has ruled out an ace or a 10
+		double cardsPossible = 13;
+		int ruledOutIdx = 2;
+		if (prob == 1.0 && dealer > 9) {
+			ruledOutIdx = 11 % dealer;
+			cardsPossible -= ruledOutIdx == 0 ? 4 : 1;
+		}
+		
+		for (int idx = 0; idx < Shoe.CARD_TYPES; idx++) {
+			if (ruledOutIdx < 2 && ruledOutIdx == idx) {
+				continue;
+			}
+			
+			// The value of the card, and the dealer's total and ace after drawing it, in the same way as
+			// getDealerProbs
+			boolean hasAce = acePresent;
+			int currVal = (idx == 1 && !hasAce && dealer + 11 < 22) ? 11 : idxToVal[idx];
+			if (currVal == 11) { hasAce = true; }
+			int dealerTotal = dealer + currVal;
+			if (dealerTotal > 21 && hasAce) {
+				hasAce = false;
+				dealerTotal -= 10;
+			}
+			
+			double currProb = prob * (idx == 0 ? 4 : 1) / cardsPossible;
+			
+			if (dealerTotal < 17 || (dealerTotal == 17 && hasAce && dealerHitsSoft17)) {
+				getInfiniteDeckDealerProbs(dealerTotal, currProb, hasAce, probs);
+			} else if (dealerTotal < 22) {
+				probs[dealerTotal - 17] += currProb;
+			} else {
+				probs[5] += currProb;
+			}
+		}
+		
+		return probs;
+		
+	}
+
 	/* This method returns an array of the probabilities the dealer could finish with, in order by index,
 	 * 17, 18, 19, 20, 21, and over 21 (busted). It takes in as parameters the dealer's current total, the
 	 * array of cards left to draw from, the probability that this current call of the method occurs,
@@ -20,14 +334,24 @@ public class BlackjackOptimization {
 	 * If it is less than 17, the method will be called again with that sub-17 number as the argument for
 	 * the "total" parameter, while arguing the probability that the previous card was pulled for the
 	 * "prob" parameter, made effective by the "totalProb" local variable always being multiplied by the
-	 * argument for "prob". (30 logical LOC) */
-	public static double[] getDealerProbs(int dealer, int[] cardsLeft, 
+	 * argument for "prob". (30 logical LOC) 
+	 * The draw tree is walked by whichever engine is set. */
+	public static double[] getDealerProbs(int dealer, Shoe cardsLeft, 
+			double prob, boolean acePresent, double[] probs) {
+		if (engine == Engine.ITERATIVE) {
+			return getDealerProbsIterative(dealer, cardsLeft, prob, acePresent, probs, evaluatorStack.get());
+		}
+		return getDealerProbsRecursive(dealer, cardsLeft, prob, acePresent, probs);
+	}
+	
+	/* The recursive walk of the dealer's draw tree behind getDealerProbs */
+	private static double[] getDealerProbsRecursive(int dealer, Shoe cardsLeft, 
 			double prob, boolean acePresent, double[] probs) {
 		
 		/* This will store the number of possible cards that the dealer could have as the next card that
 		 * they could have. For now, and in most cases, it will equal the number of cards left in the
 		 * shoe, but that may change as seen right below. */
-		int cardsPossible = BlackjackSimulation.getSum(cardsLeft);
+		int cardsPossible = cardsLeft.total();
 		
 		
 		int ruledOutIdx = 2;
@@ -42,18 +366,18 @@ public class BlackjackOptimization {
 		 * as it will be used inside the loop. */
 		if (prob == 1.0 && dealer > 9) {
 			ruledOutIdx = 11 % dealer; // Index of value we rule out; only effective if 0 or 1
-			cardsPossible -= cardsLeft[ruledOutIdx];
+			cardsPossible -= cardsLeft.count(ruledOutIdx);
 		}
 		
 		// When we calculate the precise probability of a point in the game being reached throughout the
-	    // for loop found below, we need cardsLeft[idx] * prob / cardsPossible, but since only 
-		// cardsLeft[idx] is dependent on each index, we calculate this ahead of the loop in order to
+	    // for loop found below, we need cardsLeft.count(idx) * prob / cardsPossible, but since only 
+		// cardsLeft.count(idx) is dependent on each index, we calculate this ahead of the loop in order to
 		// reduce the number of computations made.
 		double totalProb = prob / cardsPossible;
 		
 		// Loops through all of the differently valued cards for the sake of seeing the result if that card
 		// is the next card dealt to the dealer.
-		for (int idx = 0; idx < cardsLeft.length; idx++) {
+		for (int idx = 0; idx < Shoe.CARD_TYPES; idx++) {
 			     
 			// If the dealer's first number was 10, we can assure that their down card is not ace because 
 			// they peeked for Blackjack, and if it was an ace, they would have gotten Blackjack and this
@@ -74,7 +398,7 @@ public class BlackjackOptimization {
 			int newDealer = dealer;
 		
 			// If there are no cards left at this index, we don't even look at it
-			if (cardsLeft[idx] == 0) {
+			if (cardsLeft.count(idx) == 0) {
 				continue;
 			}
 			
@@ -100,23 +424,24 @@ public class BlackjackOptimization {
 			// divided by the cards the dealer could show, and multiplies this by the probability that 
 			// the current call of the method took place, or the probability that the card drawn before
 			// the current one was drawn.
-			double currProb = (double) cardsLeft[idx] * totalProb;
+			double currProb = (double) cardsLeft.count(idx) * totalProb;
 			
-			// If the total will not reach 17, the method is called recursively for the new total
-			if (dealerTotal < 17) {
+			// If the total will not reach 17, the method is called recursively for the new total. If the
+			// dealer hits a soft 17, that total is drawn on as well.
+			if (dealerTotal < 17 || (dealerTotal == 17 && hasAce && dealerHitsSoft17)) {
 				
 				// Temporarily decrement the number of cards left of the current value, for the purpose of 
-				// it being the array of cards left in the recursive call
-				cardsLeft[idx]--;
+				// it being the cards left in the recursive call
+				cardsLeft.take(idx);
 				
 				// Finds the probabilities of the dealer ending with different totals after showing the
 				// card corresponding to the current index. Also argues the new, copied array, which had
 				// removed from it the card the dealer showed and also argues the above mentioned 
 				// probability.
-				getDealerProbs(dealerTotal, cardsLeft, currProb, hasAce, probs);
+				getDealerProbsRecursive(dealerTotal, cardsLeft, currProb, hasAce, probs);
 				
 				// Increment it back for the next iteration of the loop
-				cardsLeft[idx]++;
+				cardsLeft.putBack(idx);
 				
 			} else if (dealerTotal < 22) {
 				
@@ -156,18 +481,42 @@ public class BlackjackOptimization {
 	 * 12 and whichever upper threshold is used, we check if the player should hit again, recursively 
 	 * calling this method if so. But if not, we add to the player's "probs" array the probability of
 	 * them ending with whatever total it is. (25 logical LOC) */
-	public static double[] getPlayerProbs(int total, int[] cardsLeft, double prob, 
+	public static double[] getPlayerProbs(int total, Shoe cardsLeft, double prob, 
 			boolean acePresent, double[] probs, double[] dealerProbs) {
+		PlayerTranspositionTable table = playerTable.get();
+		table.begin(dealerProbs);
+		return evaluatePlayerProbs(total, cardsLeft, prob, acePresent, probs, dealerProbs, playerScratch.get(),
+				0, table);
+	}
+	
+	/* Walks the player's draw tree for getPlayerProbs with whichever engine is set */
+	private static double[] evaluatePlayerProbs(int total, Shoe cardsLeft, double prob, boolean acePresent, 
+			double[] probs, double[] dealerProbs, double[][] rows, int depth, PlayerTranspositionTable table) {
+		if (engine == Engine.ITERATIVE) {
+			return getPlayerProbsIterative(total, cardsLeft, prob, acePresent, probs, dealerProbs, rows, depth,
+					table, evaluatorStack.get());
+		}
+		return getPlayerProbs(total, cardsLeft, prob, acePresent, probs, dealerProbs, rows, depth, table);
+	}
+	
+	/* The recursion behind getPlayerProbs. The rows are the scratch arrays of the current thread, and the
+	 * depth is the index of the one that the next nested evaluation of whether to hit will use. The table
+	 * is the current thread's transposition table, which has already been set up for these dealer's
+	 * probabilities. */
+	private static double[] getPlayerProbs(int total, Shoe cardsLeft, double prob, boolean acePresent, 
+			double[] probs, double[] dealerProbs, double[][] rows, int depth, PlayerTranspositionTable table) {
+		
+		table.countNode();
 		
 		// When we calculate the precise probability of a point in the game being reached throughout the
-	    // for loop found below, we need cardsLeft[idx] * prob / cardsPossible, but since only 
-		// cardsLeft[idx] is dependent on each index, we calculate this ahead of the loop in order to
+	    // for loop found below, we need cardsLeft.count(idx) * prob / cardsPossible, but since only 
+		// cardsLeft.count(idx) is dependent on each index, we calculate this ahead of the loop in order to
 		// reduce the number of computations made.
-		double totalProb = prob / BlackjackSimulation.getSum(cardsLeft);
+		double totalProb = prob / cardsLeft.total();
 		
 		// Loops through all of the differently valued cards for the sake of seeing the result if that card
 		// is the next card dealt to the player.
-		for (int idx = 0; idx < cardsLeft.length; idx++) {
+		for (int idx = 0; idx < Shoe.CARD_TYPES; idx++) {
 			
 			// Sets whether an ace is present back to the initial value for the argument, as it can and
 			// will be changed during the iterations
@@ -178,7 +527,7 @@ public class BlackjackOptimization {
 			int newTotal = total;
 			
 			// If there are no cards left at this index, we don't even look at it
-			if (cardsLeft[idx] == 0) {
+			if (cardsLeft.count(idx) == 0) {
 				continue;
 			}
 			
@@ -204,17 +553,17 @@ public class BlackjackOptimization {
 			// divided by the cards the dealer could show, and multiplies this by the probability that 
 			// the current call of the method took place, AKA the probability that the previous card was
 			// pulled at the time that it was.
-			double newProb = (double) cardsLeft[idx] * totalProb;
+			double newProb = (double) cardsLeft.count(idx) * totalProb;
 			
 			// Temporarily decrement the number of cards left of the current value, for the purpose of 
-			// it being the array of cards left in the recursive call and the shouldHitAux method
-			cardsLeft[idx]--;
+			// it being the cards left in the recursive call and the shouldHitAux method
+			cardsLeft.take(idx);
 			
 			// If the player's total will not reach 12, the method is called recursively for the updated
 			// total
 			if (playerTotal < 12) {
 				
-				getPlayerProbs(playerTotal, cardsLeft, newProb, hasAce, probs, dealerProbs);
+				getPlayerProbs(playerTotal, cardsLeft, newProb, hasAce, probs, dealerProbs, rows, depth, table);
 				
 			} else if (playerTotal < 22) {
 				
@@ -224,14 +573,14 @@ public class BlackjackOptimization {
 				// of this sequence to the player's array of probabilities. We also do this if we end up
 				// checking to see if the player should hit but they shouldn't.
 				if (playerTotal > 18 || (playerTotal > 16 && !hasAce) || 
-						! (boolean) shouldHitAux(playerTotal, dealerProbs, hasAce, cardsLeft)[0]) {
+						!hitBeatsStand(playerTotal, dealerProbs, hasAce, cardsLeft, rows, depth, table)) {
 					
 					probs[playerTotal - 12] += newProb;
 					
 				} else {
 					// If the player should hit again, this adds the probabilities of them ending with
 			    	// different totals after hitting, to the probabilities-storing array
-					getPlayerProbs(playerTotal, cardsLeft, newProb, hasAce, probs, dealerProbs);
+					getPlayerProbs(playerTotal, cardsLeft, newProb, hasAce, probs, dealerProbs, rows, depth, table);
 
 				}
 			} else {
@@ -244,7 +593,7 @@ public class BlackjackOptimization {
 			}
 			
 			// Increment back for the next iteration of the loop
-			cardsLeft[idx]++;
+			cardsLeft.putBack(idx);
 		
 		}
 		
@@ -253,84 +602,350 @@ public class BlackjackOptimization {
 	}
 
 	
+	/* Finds the same probabilities as getPlayerProbs, starting from a probability of 1, but splits the top
+	 * level of the draw tree, the player's next card, into up to 10 fork-join tasks, one for each card value
+	 * left in the shoe. Each task works on its own copy of the cards left and adds into its own array, using
+	 * the scratch arrays and transposition table of whichever thread runs it, and the arrays are added
+	 * together in the order of the card values once every task is done. The answer is the same every time,
+	 * although adding the branches up separately can make it differ from getPlayerProbs in its last
+	 * digits. This must not be called from inside another evaluation on the same thread. */
+	public static double[] getPlayerProbsParallel(int total, Shoe cardsLeft, boolean acePresent, 
+			double[] probs, double[] dealerProbs) {
+		
+		double totalProb = 1.0 / cardsLeft.total();
+		List<ForkJoinTask<double[]>> branches = new ArrayList<>();
+		for (int idx = 0; idx < Shoe.CARD_TYPES; idx++) {
+			if (cardsLeft.count(idx) == 0) {
+				continue;
+			}
+			int branchIdx = idx;
+			double branchProb = (double) cardsLeft.count(idx) * totalProb;
+			Shoe branchCards = cardsLeft.copy();
+			branches.add(ForkJoinTask.adapt(() -> getPlayerBranchProbs(total, acePresent, branchIdx, branchProb,
+					branchCards, dealerProbs)));
+		}
+		
+		// Runs the first branch on this thread and the rest on the pool, waiting for all of them
+		ForkJoinTask.invokeAll(branches);
+		
+		for (ForkJoinTask<double[]> branch : branches) {
+			double[] branchProbs = branch.join();
+			for (int i = 0; i < probs.length; i++) {
+				probs[i] += branchProbs[i];
+			}
+		}
+		return probs;
+		
+	}
+	
+	/* Finds the player's probabilities for one branch of getPlayerProbsParallel, which is the player
+	 * drawing a card of the given index, reached with the given probability, in the same way as one
+	 * iteration of the loop in getPlayerProbs. The cards left are the branch's own copy. */
+	private static double[] getPlayerBranchProbs(int total, boolean acePresent, int idx, double prob, 
+			Shoe cardsLeft, double[] dealerProbs) {
+		
+		double[] probs = new double[11];
+		
+		boolean hasAce = acePresent;
+		int currVal = (idx == 1 && !hasAce && total + 11 < 22) ? 11 : idxToVal[idx];
+		if (currVal == 11) { hasAce = true; }
+		int playerTotal = total + currVal;
+		if (playerTotal > 21 && hasAce) {
+			hasAce = false;
+			playerTotal -= 10;
+		}
+		cardsLeft.take(idx);
+		
+		if (playerTotal < 12) {
+			getPlayerProbs(playerTotal, cardsLeft, prob, hasAce, probs, dealerProbs);
+		} else if (playerTotal < 22) {
+			PlayerTranspositionTable table = playerTable.get();
+			table.begin(dealerProbs);
+			if (playerTotal > 18 || (playerTotal > 16 && !hasAce) 
+					|| !hitBeatsStand(playerTotal, dealerProbs, hasAce, cardsLeft, playerScratch.get(), 0, table)) {
+				probs[playerTotal - 12] += prob;
+			} else {
+				getPlayerProbs(playerTotal, cardsLeft, prob, hasAce, probs, dealerProbs);
+			}
+		} else {
+			probs[10] += prob;
+		}
+		
+		return probs;
+		
+	}
+	
+	/* Walks the same draw tree as getDealerProbsRecursive, adding to the same elements of probs in the
+	 * same order, but with each level of the tree kept as a frame in the given stack rather than as a
+	 * call. Drawing a card pushes a frame for the dealer's new total, and once a frame has looked at every
+	 * card value it is popped and the card that led to it is put back in the shoe. */
+	private static double[] getDealerProbsIterative(int dealer, Shoe cardsLeft, double prob, 
+			boolean acePresent, double[] probs, EvaluatorStack stack) {
+		
+		int[] totals = stack.dealerTotals;
+		boolean[] aces = stack.dealerAces;
+		double[] totalProbs = stack.dealerTotalProbs;
+		int[] idxs = stack.dealerIdxs;
+		int[] ruledOut = stack.dealerRuledOut;
+		
+		int top = 0;
+		pushDealerFrame(stack, top, dealer, cardsLeft, prob, acePresent);
+		
+		while (top >= 0) {
+			int idx = idxs[top];
+			
+			// Every card value has been looked at, so this level is finished
+			if (idx == Shoe.CARD_TYPES) {
+				top--;
+				if (top >= 0) {
+					cardsLeft.putBack(idxs[top]);
+					idxs[top]++;
+				}
+				continue;
+			}
+			
+			// Skips the card ruled out by the peek and any card value that has run out
+			if ((ruledOut[top] < 2 && ruledOut[top] == idx) || cardsLeft.count(idx) == 0) {
+				idxs[top]++;
+				continue;
+			}
+			
+			// The dealer's total and ace after drawing this card, in the same way as the recursion
+			boolean hasAce = aces[top];
+			int currVal = (idx == 1 && !hasAce && totals[top] + 11 < 22) ? 11 : idxToVal[idx];
+			if (currVal == 11) { hasAce = true; }
+			int dealerTotal = totals[top] + currVal;
+			if (dealerTotal > 21 && hasAce) {
+				hasAce = false;
+				dealerTotal -= 10;
+			}
+			
+			double currProb = (double) cardsLeft.count(idx) * totalProbs[top];
+			
+			if (dealerTotal < 17 || (dealerTotal == 17 && hasAce && dealerHitsSoft17)) {
+				// The dealer draws again, so a frame is pushed for their new total. This frame moves on to
+				// its next card once that one is popped.
+				cardsLeft.take(idx);
+				top++;
+				pushDealerFrame(stack, top, dealerTotal, cardsLeft, currProb, hasAce);
+				continue;
+			} else if (dealerTotal < 22) {
+				probs[dealerTotal - 17] += currProb;
+			} else {
+				probs[5] += currProb;
+			}
+			idxs[top]++;
+		}
+		
+		return probs;
+		
+	}
+	
+	/* Fills in the dealer's frame at the given position, which works out the cards that the dealer could
+	 * draw next in the same way as the start of getDealerProbsRecursive */
+	private static void pushDealerFrame(EvaluatorStack stack, int frame, int dealer, Shoe cardsLeft, 
+			double prob, boolean acePresent) {
+		int cardsPossible = cardsLeft.total();
+		int ruledOutIdx = 2;
+		if (prob == 1.0 && dealer > 9) {
+			ruledOutIdx = 11 % dealer;
+			cardsPossible -= cardsLeft.count(ruledOutIdx);
+		}
+		stack.dealerTotals[frame] = dealer;
+		stack.dealerAces[frame] = acePresent;
+		stack.dealerTotalProbs[frame] = prob / cardsPossible;
+		stack.dealerIdxs[frame] = 0;
+		stack.dealerRuledOut[frame] = ruledOutIdx;
+	}
+	
+	/* Walks the same draw tree as the recursive getPlayerProbs, adding to the same elements of probs in
+	 * the same order, but with each level of the tree kept as a frame in the given stack. The frames of
+	 * this walk are kept in the region of the stack for its depth, so the evaluations of whether to hit
+	 * nested inside of it, which use the next depth, have frames of their own. */
+	private static double[] getPlayerProbsIterative(int total, Shoe cardsLeft, double prob, 
+			boolean acePresent, double[] probs, double[] dealerProbs, double[][] rows, int depth, 
+			PlayerTranspositionTable table, EvaluatorStack stack) {
+		
+		int[] totals = stack.playerTotals;
+		boolean[] aces = stack.playerAces;
+		double[] totalProbs = stack.playerTotalProbs;
+		int[] idxs = stack.playerIdxs;
+		
+		int base = depth * EvaluatorStack.MAX_FRAMES;
+		int top = base;
+		pushPlayerFrame(stack, top, total, cardsLeft, prob, acePresent, table);
+		
+		while (top >= base) {
+			int idx = idxs[top];
+			
+			// Every card value has been looked at, so this level is finished
+			if (idx == Shoe.CARD_TYPES) {
+				top--;
+				if (top >= base) {
+					cardsLeft.putBack(idxs[top]);
+					idxs[top]++;
+				}
+				continue;
+			}
+			
+			if (cardsLeft.count(idx) == 0) {
+				idxs[top]++;
+				continue;
+			}
+			
+			// The player's total and ace after drawing this card, in the same way as the recursion
+			boolean hasAce = aces[top];
+			int currVal = (idx == 1 && !hasAce && totals[top] + 11 < 22) ? 11 : idxToVal[idx];
+			if (currVal == 11) { hasAce = true; }
+			int playerTotal = totals[top] + currVal;
+			if (playerTotal > 21 && hasAce) {
+				hasAce = false;
+				playerTotal -= 10;
+			}
+			
+			double newProb = (double) cardsLeft.count(idx) * totalProbs[top];
+			cardsLeft.take(idx);
+			
+			// The player draws again below 12, and from 12 up if hitting beats standing, in which case a
+			// frame is pushed for their new total and this frame moves on once that one is popped
+			if (playerTotal < 12 || (playerTotal < 22 && !(playerTotal > 18 || (playerTotal > 16 && !hasAce))
+					&& hitBeatsStand(playerTotal, dealerProbs, hasAce, cardsLeft, rows, depth, table))) {
+				top++;
+				pushPlayerFrame(stack, top, playerTotal, cardsLeft, newProb, hasAce, table);
+				continue;
+			} else if (playerTotal < 22) {
+				probs[playerTotal - 12] += newProb;
+			} else {
+				probs[10] += newProb;
+			}
+			
+			cardsLeft.putBack(idx);
+			idxs[top]++;
+		}
+		
+		return probs;
+		
+	}
+	
+	/* Fills in the player's frame at the given position, in the same way as the start of getPlayerProbs */
+	private static void pushPlayerFrame(EvaluatorStack stack, int frame, int total, Shoe cardsLeft, 
+			double prob, boolean acePresent, PlayerTranspositionTable table) {
+		table.countNode();
+		stack.playerTotals[frame] = total;
+		stack.playerAces[frame] = acePresent;
+		stack.playerTotalProbs[frame] = prob / cardsLeft.total();
+		stack.playerIdxs[frame] = 0;
+	}
+	
 	/* Determines whether the player should hit or stand in a current situation, as well as whether they 
 	 * should double, their probability of winning while drawing another card, their probability of
-	 * winning while not drawing another card, and whether they should surrender the hand.
-     * Takes in parameters of the player's current total, the probabilities of the dealer ending with 
-     * different values, whether the player has an ace, and the array of cards remaining. (17 logical LOC) */
-	public static Object[] shouldHit(int total, double[] dealerProbs, boolean acePresent, 
-			int[] cardsLeft) {
+	 * winning while not drawing another card, their probability of winning if they draw exactly one more
+	 * card, and whether they should surrender the hand. All of these are stored in the given decision,
+	 * which is also returned.
+     * Takes in parameters of the player's current total, the dealer's up card, the probabilities of the
+     * dealer ending with different values, whether the player has an ace, the cards remaining, and the
+     * decision to fill in. (17 logical LOC) */
+	public static Decision shouldHit(int total, int dealer, double[] dealerProbs, boolean acePresent, 
+			Shoe cardsLeft, Decision decision) {
 		
 		// Finds just whether the player should hit as well as their probabilities of winning if hitting
 		// and winning if standing
-		Object[] shouldHitAux = shouldHitAux(total, dealerProbs, acePresent, cardsLeft);
+		shouldHitAux(total, dealerProbs, acePresent, cardsLeft, decision);
 		
-		// Stores the information from the call of shouldHitAux
-		boolean shouldHit = (boolean) shouldHitAux[0];
-		double winIfHit = (double) shouldHitAux[1];
-		double winIfStand = (double) shouldHitAux[2];
-
-		// Stores whether the player should double the stakes of the game
-		boolean shouldDouble = false;
+		return considerDoubling(total, dealer, dealerProbs, acePresent, cardsLeft, decision);
+		
+	}
+	
+	/* Finds the same decision as shouldHit, but with the player's probabilities after hitting found by
+	 * getPlayerProbsParallel, so the evaluation is spread across the common fork-join pool. This is for a
+	 * single decision that someone is waiting on, rather than for the simulation, which already keeps
+	 * every core busy with games of its own. */
+	public static Decision shouldHitParallel(int total, int dealer, double[] dealerProbs, boolean acePresent, 
+			Shoe cardsLeft, Decision decision) {
+		
+		decision.winIfStand = winIfStand(total, dealerProbs);
+		double[] playerProbs = getPlayerProbsParallel(total, cardsLeft, acePresent, new double[11], dealerProbs);
+		decision.winIfHit = playerWinProb(playerProbs, dealerProbs);
+		decision.hit = decision.winIfHit > decision.winIfStand;
+		decision.doubleDown = false;
+		decision.surrender = false;
+		
+		return considerDoubling(total, dealer, dealerProbs, acePresent, cardsLeft, decision);
+		
+	}
+	
+	/* Fills in whether the player should double and whether they should surrender, given the decision
+	 * already found by shouldHitAux or in the same way, and returns it */
+	private static Decision considerDoubling(int total, int dealer, double[] dealerProbs, boolean acePresent, 
+			Shoe cardsLeft, Decision decision) {
 
 		// If the player chooses to double their bet, they cannot draw more than the one card given to
 		// them after they make this decision. The getDoubledPlayerProbs method accounts for this and
 		// this variable will store the probabilities of finishing with different values after doubling
-		double[] doubledPlayerProbs = getDoubledPlayerProbs(total, acePresent, cardsLeft);
+		double[] doubledPlayerProbs = getDoubledPlayerProbs(total, acePresent, cardsLeft, 
+				playerScratch.get()[MAX_DEPTH]);
 		
 		// Stores the probability of the player winning if they choose to double
-		double winIfHitOnce = playerWinProb(doubledPlayerProbs, dealerProbs);
+		decision.winIfHitOnce = playerWinProb(doubledPlayerProbs, dealerProbs);
 
 		// These store the effective hypothetical amount of games won for different decisions
-		double doubleEV = 2 * getExpectedValue(winIfHitOnce);
-		double nonDoubleEV = getExpectedValue(shouldHit ? winIfHit : winIfStand);
+		double doubleEV = 2 * getExpectedValue(decision.winIfHitOnce);
+		double nonDoubleEV = getExpectedValue(decision.hit ? decision.winIfHit : decision.winIfStand);
+		
+		// The dealer's probabilities assume that they do not have Blackjack, which is only certain if they
+		// have peeked for it before the player decides. If they have not, or the player can surrender
+		// before they do, the chance of a Blackjack is taken into account: it wins the player's whole bet,
+		// including the doubled half unless the dealer peeked.
+		Rules rules = BlackjackOptimization.rules;
+		double blackjackProb = rules.dealerPeeks() && rules.surrender() != Rules.Surrender.EARLY ? 0.0
+				: dealerBlackjackProb(dealer, cardsLeft);
+		if (blackjackProb > 0) {
+			doubleEV = (1 - blackjackProb) * doubleEV - blackjackProb * (rules.dealerPeeks() ? 1 : 2);
+			nonDoubleEV = (1 - blackjackProb) * nonDoubleEV - blackjackProb;
+		}
 		
 		// If doubling is the best option
 		if (doubleEV > nonDoubleEV) {
 			// To align with the logic of the program playing the game, if the player should double, 
 			// that also means that they should hit
-			shouldHit = true;
-			shouldDouble = true;
+			decision.hit = true;
+			decision.doubleDown = true;
 		}
-
-		// Stores if the player should make the decision to surrender the current game, electing to
-		// effectively lose half of the game rather than risking losing the whole game. Initialized as
-		// false because thus far, no reason has been given for the player to surrender
-		boolean shouldSurrender = false;
 		
 		// If the player us expected to lose more than half of the value of the game based on the current
-		// circumstances, then giving up half of the game and surrendering is the choice that is made
-		if (nonDoubleEV < -.5) {
-			shouldSurrender = true;
-		}
+		// circumstances, then giving up half of the game and surrendering is the choice that is made, as
+		// long as the rules allow it
+		decision.surrender = nonDoubleEV < rules.surrenderValue(blackjackProb);
 		
-		// Stores the objects which will be returned
-		Object[] returnArray = { shouldHit, shouldDouble, winIfHit, winIfStand, shouldSurrender, winIfHitOnce };
-		
-		return returnArray;
+		return decision;
 		
 	}
 	
 	
 	/* This method determines whether the player should hit and draw another card, or stand and draw no
-	 * more cards. This method very well could not exist and have its contents inside of the above 
-	 * shouldHit method, but the getPlayerProbs method needs to find simply if the player should hit and
-	 * nothing else, so calling shouldHit from the getPlayerProbs method ran lots of unnecessary code, 
-	 * decreasing the program's efficiency. However, the shouldHit method also needs access to the double
-	 * values found in this method, which is why the return type here is an array of objects.
+	 * more cards, storing that along with the probabilities of winning after hitting and after standing
+	 * in the given decision, which is also returned. Doubling and surrendering are set to false, as they
+	 * are only considered by the above shouldHit method. This method very well could not exist and have
+	 * its contents inside of shouldHit, but the player's later decisions in a hand only need to know
+	 * whether they should hit, so calling shouldHit for them would run lots of unnecessary code.
 	 * The algorithm used is rather straightforward; if the player's probability of winning while hitting
 	 * is greater than their probability of winning while standing, then they should hit, and they should
 	 * not hit otherwise. (6 logical LOC) */
-	public static Object[] shouldHitAux(int total, double[] dealerProbs, boolean acePresent, 
-			int[] cardsLeft) {
+	public static Decision shouldHitAux(int total, double[] dealerProbs, boolean acePresent, 
+			Shoe cardsLeft, Decision decision) {
+		
+		double[][] rows = playerScratch.get();
+		PlayerTranspositionTable table = playerTable.get();
+		table.begin(dealerProbs);
 		
 		// Stores the player's probability of winning if standing given their current total and the
 		// dealer's probabilities
-		double winIfStand = winIfStand(total, dealerProbs);
+		decision.winIfStand = winIfStand(total, dealerProbs);
 		
-		// Stores the probabilities of the player ending with the different possibilities of final totals
-		double[] playerProbs = getPlayerProbs(total, cardsLeft, 1.0, acePresent,  
-				new double[11], dealerProbs);
+		// Stores the probabilities of the player ending with the different possibilities of final totals.
+		// The first scratch array is used for these, so the evaluations nested inside start at the second.
+		// If this exact evaluation has already been stored, its probabilities are simply copied.
+		double[] playerProbs = findHitProbs(total, acePresent, cardsLeft, rows, table, dealerProbs);
 		
 		// If using printTable to see joint probability distribution for if the player were to hit,
 		// put the line "printTable.tablePrint(playerProbs, dealerProbs);" right below this comment.
@@ -342,16 +957,174 @@ public class BlackjackOptimization {
 		
 		
 		// Finds the probability of the player winning while hitting
-		double winIfHit = playerWinProb(playerProbs, dealerProbs);
+		decision.winIfHit = playerWinProb(playerProbs, dealerProbs);
 		
 		// If the player is more likely to win the game by hitting than they are standing, then they
 		// should hit. Otherwise, they shouldn't
-		boolean shouldHit = winIfHit > winIfStand;
+		decision.hit = decision.winIfHit > decision.winIfStand;
+		decision.doubleDown = false;
+		decision.surrender = false;
+		decision.winIfHitOnce = 0.0;
+		
+		return decision;
+		
+	}
+	
+	
+	/* Determines whether the player should split a pair, given the value of one of its cards (11 for
+	 * aces), the dealer's probabilities of ending with different values, the cards remaining, and the
+	 * decision already found by shouldHit for the pair if it is not split.
+	 * Splitting is valued by this thread's SplitEvaluator, which plays out every hand that the split can
+	 * lead to, including resplits, and it is the better choice if that value is greater than the value of
+	 * what the decision would do with the pair instead. */
+	public static boolean shouldSplit(int card, int dealer, double[] dealerProbs, Shoe cardsLeft, 
+			Decision decision) {
+		return shouldSplit(card, dealer, dealerProbs, cardsLeft, decision, 1);
+	}
+	
+	/* Determines whether the player should split a pair in the same way, given the number of hands that they
+	 * already have, counting the pair as one of them. A pair dealt to a hand that was already split is
+	 * split again only if that beats playing the pair as it is, which is valued in the same way as every
+	 * other split hand, so the decision is ignored. */
+	public static boolean shouldSplit(int card, int dealer, double[] dealerProbs, Shoe cardsLeft, 
+			Decision decision, int hands) {
+		if (hands >= rules.maxSplitHands()) {
+			return false;
+		}
+		double splitEV = splitEvaluator.get().splitValue(card, hands, dealerProbs, cardsLeft, false);
+		return splitBeatsNotSplitting(splitEV, card, hands, dealer, dealerProbs, cardsLeft, decision);
+	}
+	
+	/* Finds the same decision as shouldSplit, but with the values of the split hands found across the
+	 * common fork-join pool */
+	public static boolean shouldSplitParallel(int card, int dealer, double[] dealerProbs, Shoe cardsLeft, 
+			Decision decision) {
+		if (rules.maxSplitHands() < 2) {
+			return false;
+		}
+		double splitEV = splitEvaluator.get().splitValue(card, 1, dealerProbs, cardsLeft, true);
+		return splitBeatsNotSplitting(splitEV, card, 1, dealer, dealerProbs, cardsLeft, decision);
+	}
+	
+	/* Returns the expected value of splitting a pair, given the value of one of its cards, in the units of
+	 * getExpectedValue and assuming that the dealer does not have Blackjack. This is the value that
+	 * shouldSplit compares to not splitting, and it is found again for free right after shouldSplit. */
+	public static double getSplitExpectedValue(int card, double[] dealerProbs, Shoe cardsLeft) {
+		return splitEvaluator.get().splitValue(card, 1, dealerProbs, cardsLeft, false);
+	}
+
+	/* Returns the player's probabilities of finishing with each total if they hit, found into the first of
+	 * the given scratch arrays, which is returned, or copied from the transposition table if this exact
+	 * evaluation has already been stored. The table must already be set up for the dealer's probabilities. */
+	private static double[] findHitProbs(int total, boolean acePresent, Shoe cardsLeft, double[][] rows,
+			PlayerTranspositionTable table, double[] dealerProbs) {
+		double[] playerProbs = rows[0];
+		int slot = cardsLeft.isPackable() ? table.find(total, acePresent, cardsLeft) : -1;
+		if (slot >= 0) {
+			table.copyProbs(slot, playerProbs);
+		} else {
+			Arrays.fill(playerProbs, 0.0);
+			evaluatePlayerProbs(total, cardsLeft, 1.0, acePresent, playerProbs, dealerProbs, rows, 1, table);
+		}
+		return playerProbs;
+	}
+
+	/* Returns the player's probabilities of finishing with each total if they hit, in the same way as
+	 * shouldHitAux but without scoring them, for a caller that scores many of them at once. The returned
+	 * array is this thread's scratch array and is overwritten by the next evaluation. */
+	static double[] getHitProbs(int total, boolean acePresent, double[] dealerProbs, Shoe cardsLeft) {
+		PlayerTranspositionTable table = playerTable.get();
+		table.begin(dealerProbs);
+		return findHitProbs(total, acePresent, cardsLeft, playerScratch.get(), table, dealerProbs);
+	}
+
+	/* Returns the player's probabilities of finishing with each total if they double, into this thread's
+	 * scratch array for doubling, which is overwritten by the next evaluation */
+	static double[] getDoubledProbs(int total, boolean acePresent, Shoe cardsLeft) {
+		return getDoubledPlayerProbs(total, acePresent, cardsLeft, playerScratch.get()[MAX_DEPTH]);
+	}
+
+	/* Returns the expected value of a hand that has already been split, in the units of getExpectedValue
+	 * and assuming that the dealer does not have Blackjack, given its total, whether it is soft, the
+	 * dealer's probabilities, the cards left, whether the hand can be hit at all, and whether it can be
+	 * doubled. The player takes whichever of standing, hitting, and doubling is worth the most. */
+	static double getHandExpectedValue(int total, boolean acePresent, double[] dealerProbs, Shoe cardsLeft,
+			boolean canHit, boolean canDouble, Decision decision) {
+		if (!canHit) {
+			return getExpectedValue(winIfStand(total, dealerProbs));
+		}
+		shouldHitAux(total, dealerProbs, acePresent, cardsLeft, decision);
+		double value = getExpectedValue(Math.max(decision.winIfHit, decision.winIfStand));
+		if (canDouble) {
+			double[] doubledPlayerProbs = getDoubledPlayerProbs(total, acePresent, cardsLeft, 
+					playerScratch.get()[MAX_DEPTH]);
+			value = Math.max(value, 2 * getExpectedValue(playerWinProb(doubledPlayerProbs, dealerProbs)));
+		}
+		return value;
+	}
+
+	/* Returns whether splitting is better than not splitting, given the value of splitting, the pair's card,
+	 * the number of hands that the player already has, and the decision found by shouldHit for the pair */
+	private static boolean splitBeatsNotSplitting(double splitEV, int card, int hands, int dealer, 
+			double[] dealerProbs, Shoe cardsLeft, Decision decision) {
+
+		// A pair dealt to a hand that was already split is compared to the value of that hand played as it
+		// is, which the split's own values already hold. The dealer's Blackjack has been settled by then.
+		if (hands > 1) {
+			return splitEV > splitEvaluator.get().pairValue(card, dealerProbs, cardsLeft);
+		}
+
+		// Stores the expected difference in games won between the player and dealer if the player elects
+		// not to split, which is the value of what the decision would do instead: surrender, double, or
+		// the better of hitting and standing. Along with it is what a Blackjack would take from the player
+		// if the dealer has not peeked, which is both bets if they doubled.
+		double noSplitEV;
+		double noSplitLoss = -1;
+		if (decision.surrender) {
+			noSplitEV = -0.5;
+		} else if (decision.doubleDown) {
+			noSplitEV = 2 * getExpectedValue(decision.winIfHitOnce);
+			noSplitLoss = -2;
+		} else {
+			noSplitEV = getExpectedValue(Math.max(decision.winIfHit, decision.winIfStand));
+		}
+		
+		// If the dealer has not peeked, a Blackjack would win both of the split hands
+		if (!rules.dealerPeeks()) {
+			double blackjackProb = dealerBlackjackProb(dealer, cardsLeft);
+			noSplitEV = (1 - blackjackProb) * noSplitEV + blackjackProb * noSplitLoss;
+			splitEV = (1 - blackjackProb) * splitEV - 2 * blackjackProb;
+		}
+		
+		return splitEV > noSplitEV;
 		
-		// Stores the array of elements to be returned
-		Object[] returnArray = { shouldHit, winIfHit, winIfStand };
+	}
+	
+	
+	/* Finds simply whether the player should hit, in the same way as shouldHitAux, for the evaluations 
+	 * nested inside of getPlayerProbs. The player's probabilities are stored in the scratch array at the
+	 * given depth, and any evaluations nested inside of this one use the arrays after it. The result is 
+	 * looked up in the transposition table first, and stored in it if it was not there. */
+	private static boolean hitBeatsStand(int total, double[] dealerProbs, boolean acePresent, 
+			Shoe cardsLeft, double[][] rows, int depth, PlayerTranspositionTable table) {
+		
+		boolean packable = cardsLeft.isPackable();
+		if (packable) {
+			int slot = table.find(total, acePresent, cardsLeft);
+			if (slot >= 0) {
+				return table.shouldHit(slot);
+			}
+		}
 		
-		return returnArray;
+		double[] playerProbs = rows[depth];
+		Arrays.fill(playerProbs, 0.0);
+		evaluatePlayerProbs(total, cardsLeft, 1.0, acePresent, playerProbs, dealerProbs, rows, depth + 1, table);
+		
+		boolean shouldHit = playerWinProb(playerProbs, dealerProbs) > winIfStand(total, dealerProbs);
+		if (packable) {
+			table.store(total, acePresent, cardsLeft, playerProbs, shouldHit);
+		}
+		return shouldHit;
 		
 	}
 	
@@ -361,21 +1134,22 @@ public class BlackjackOptimization {
 	 * card after they made the decision to double, which is what differs this method from the
 	 * getPlayerProbs method, which incorporates recursion and accounts for the possibility of hitting
 	 * again being the most optimal decision in regards to finding the player's probabilities. Takes in
-	 * parameters for the player's current total, whether they have an ace, and the array of remaining
-	 * cards in the shoe.
+	 * parameters for the player's current total, whether they have an ace, the remaining cards in the
+	 * shoe, and the array to store the probabilities in.
 	 * The process used here is rather simple due to the impossibility of hitting again. We simply add to
 	 * the probability of ending with a certain total the probability that we draw a card that puts us at
 	 * that total. (20 logical LOC) */
-	private static double[] getDoubledPlayerProbs(int total, boolean acePresent, int[] cardsLeft) {
+	private static double[] getDoubledPlayerProbs(int total, boolean acePresent, Shoe cardsLeft, 
+			double[] playerProbs) {
 		
-		// Will store the probabilities
-		double[] playerProbs = new double[11];
+		// Clears out the array that will store the probabilities
+		Arrays.fill(playerProbs, 0.0);
 		
-		int sum = BlackjackSimulation.getSum(cardsLeft);
+		int sum = cardsLeft.total();
 		
 		// Loops through all of the card values in the shoe, as we will look at what happens if each of
 		// them are drawn
-		for (int i = 0; i < cardsLeft.length; i++) {
+		for (int i = 0; i < Shoe.CARD_TYPES; i++) {
 			
 			// These need to be set back to their original parameter value at the beginning of each 
 			// iteration, as these could get altered during the iterations
@@ -403,7 +1177,7 @@ public class BlackjackOptimization {
 			}
 			
 			// Stores the probability that the current card was pulled
-			double newProb = (double) cardsLeft[i] / sum;
+			double newProb = (double) cardsLeft.count(i) / sum;
 			
 			// Looks at different totals that the player could end with
 			if (newTotal <= 12) {
@@ -480,7 +1254,7 @@ public class BlackjackOptimization {
 	 * total to the variable that stores the win probability.
 	 * The dealer's 0 index corresponds to 17, 1 to 18, 2 to 19, 3 to 20, 4 to 21, and 5 to busting. 
 	 * (6 logical LOC) */
-	private static double winIfStand(int total, double[] dealerProbs) {
+	static double winIfStand(int total, double[] dealerProbs) {
 		
 		// Will store the probability
 		double winIfStand = dealerProbs[5];
@@ -1,8 +1,17 @@
 package blackjackOS;
 
-import java.util.Map;
-
-import java.util.Random;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
 
 /* The purpose of this class is simply to run a Blackjack game a certain number of times, which a user can
  * feel free to alter, and it will then print out information about the results of these games in terms of
@@ -13,76 +22,390 @@ import java.util.Random;
  * BlackjackOptimization class will determine the decisions that this program makes. */
 public class BlackjackSimulation {
 	
-	public static void main(String[] args) {
+	// The counting system that the player keeps a count with, or null if they do not count, and the bets
+	// that they make by the true count. Like the rules, these are set for the whole program before any
+	// games are played, and every thread's state picks them up when it is made.
+	private static volatile CountingSystem countingSystem;
+	private static volatile BetSpread betSpread = BetSpread.FLAT;
+	
+	public static void main(String[] args) throws IOException {
 		
-		int simulations = Integer.parseInt(args[0]);
-		int decks = Integer.parseInt(args[1]);
-		double reshuffleRatio;
-		if (args.length == 2) {
-			reshuffleRatio = 1.0;
-		} else {
-			reshuffleRatio = Double.parseDouble(args[2]);
+		SimulationOptions options = SimulationOptions.parse(args);
+		BlackjackOptimization.setInfiniteDeckDealer(options.dealer.equals("infinite"));
+		BlackjackOptimization.setEngine(options.engine);
+		BlackjackOptimization.setRules(options.rules);
+		setCounting(options.counting, options.spread);
+		
+		// In table mode, the decision table is loaded, or built and saved, before any games are played
+		DecisionTable table = null;
+		if (options.table != null) {
+			table = DecisionTable.loadOrBuild(Path.of(options.table), options.decks, -options.counts,
+					options.counts);
+		}
+		
+		// With several seats at the table, the rounds are played by MultiSeatSimulation instead
+		if (options.seats != null) {
+			SimulationMetrics.INSTANCE.register();
+			ScheduledExecutorService progress = options.progress == 0 ? null
+					: SimulationMetrics.INSTANCE.startProgress(options.games * options.seats.length,
+							options.progress);
+			SimulationResult sim;
+			try {
+				sim = MultiSeatSimulation.simulateRounds(options.games, options.decks, options.reshuffleRatio,
+						options.threads, CardRandom.create(options.rng, options.seed), options.seats, table);
+			} finally {
+				if (progress != null) {
+					progress.shutdown();
+				}
+			}
+			sim.printWinRate();
+			if (options.rng.equals("splittable")) {
+				System.out.println("Seed: " + options.seed);
+			}
+			sim.printSpread(options.bankroll);
+			sim.printSeats();
+			System.out.println("Games ran per second: " + Math.round(sim.gamesPerSecond));
+			return;
+		}
+		
+		// In chunked mode, the results so far are printed after every chunk. Checkpoints are saved after
+		// every chunk, so a run that saves them is chunked even if no chunk size was given.
+		// A run that can stop early is also chunked, as the confidence interval is checked between chunks.
+		long chunk = options.chunk != 0 ? options.chunk
+				: options.stopHalfWidth > 0 ? SimulationOptions.DEFAULT_STOP_CHUNK
+				: options.checkpoint != null ? SimulationOptions.DEFAULT_CHECKPOINT_CHUNK : options.games;
+		Consumer<SimulationResult> listener = partial -> System.out.printf(
+				"After %d games: win rate %.8f, house edge %.5f +/- %.5f percent (%.0f games/s)\n",
+				partial.games, partial.winRate, partial.houseEdge * 100, partial.ciHalfWidth * 100,
+				partial.gamesPerSecond);
+		
+		// The live metrics can be watched through JMX, and are also printed every few seconds if asked for
+		SimulationMetrics.INSTANCE.register();
+		ScheduledExecutorService progress = options.progress == 0 ? null
+				: SimulationMetrics.INSTANCE.startProgress(options.games, options.progress);
+		
+		// A resumed run carries on from the checkpoint if it exists, and starts from the beginning if not
+		SimulationCheckpoint checkpoint = null;
+		if (options.checkpoint != null) {
+			checkpoint = options.resume ? SimulationCheckpoint.resume(Path.of(options.checkpoint))
+					: SimulationCheckpoint.create(Path.of(options.checkpoint));
+			if (checkpoint.isResumed()) {
+				System.out.println("Resuming after " + checkpoint.getPlayed() + " games");
+			}
 		}
 		
-		SimulationResult sim = simulateGames(simulations, decks, reshuffleRatio);
+		// The record of every game is only written if a file for it was given. When resuming, the records
+		// written after the checkpoint was saved are dropped, as those games will be played again.
+		SimulationResult sim;
+		GameEventSink events = null;
+		try {
+			if (options.events != null) {
+				events = new GameEventSink(Path.of(options.events),
+						checkpoint != null && checkpoint.isResumed() ? checkpoint.getEventsSize() : 0);
+			}
+			sim = simulateGames(options.games, options.decks, options.reshuffleRatio, options.threads,
+					CardRandom.create(options.rng, options.seed), table, events, chunk, listener, checkpoint,
+					options.stopHalfWidth);
+		} finally {
+			if (events != null) {
+				events.close();
+			}
+			if (checkpoint != null) {
+				checkpoint.close();
+			}
+			if (progress != null) {
+				progress.shutdown();
+			}
+		}
 		sim.printWinRate();
+		if (sim.games < options.games) {
+			System.out.println("Stopped early, as the confidence interval was narrow enough");
+		}
+		sim.printSpread(options.bankroll);
+		if (options.counting != null) {
+			sim.printCounts();
+		}
+		// The seed can be given back with --seed to repeat this exact run
+		if (options.rng.equals("splittable")) {
+			System.out.println("Seed: " + options.seed);
+		}
 		// For more details, can also do:
 		// sim.printResults(); 
 		// Or to view only time taken to run:
 		System.out.println("Games ran per second: " + Math.round(sim.gamesPerSecond));
+		// Shows how often the dealer's probabilities were found in the cache rather than recomputed
+		long lookups = sim.dealerCacheHits + sim.dealerCacheMisses;
+		System.out.printf("Dealer cache hits: %d of %d (%.2f percent)\n", sim.dealerCacheHits, lookups,
+				lookups == 0 ? 0.0 : 100.0 * sim.dealerCacheHits / lookups);
 		
 	}
 
 	
+	/* Sets the counting system that the player keeps a count with, which can be null for a player who does
+	 * not count, and the spread of bets that they make by the true count */
+	public static void setCounting(CountingSystem system, BetSpread spread) {
+		countingSystem = system;
+		betSpread = spread;
+	}
+	
+	public static CountingSystem getCountingSystem() {
+		return countingSystem;
+	}
+	
+	public static BetSpread getBetSpread() {
+		return betSpread;
+	}
+	
+	/* Simulates the given number of games on a single thread with an unseeded generator */
+	public static SimulationResult simulateGames(long games, int decks, double reshuffleRatio) {
+		return simulateGames(games, decks, reshuffleRatio, 1, new ThreadLocalCardRandom());
+	}
+	
+	/* Simulates the given number of games, splitting them as evenly as possible across the given number of
+	 * threads. Each thread plays its games against its own shoe with its own generator split off of the
+	 * given one, so the threads never have to wait on each other, and their totals are merged into one
+	 * result once every thread has finished. */
+	public static SimulationResult simulateGames(long games, int decks, double reshuffleRatio, int threads,
+			CardRandom random) {
+		return simulateGames(games, decks, reshuffleRatio, threads, random, null);
+	}
+	
+	/* Simulates the given number of games in the same way, but in table mode if a decision table is given,
+	 * so that every decision is looked up in the table rather than found by the optimization methods. */
+	public static SimulationResult simulateGames(long games, int decks, double reshuffleRatio, int threads,
+			CardRandom random, DecisionTable table) {
+		return simulateGames(games, decks, reshuffleRatio, threads, random, table, null);
+	}
+	
+	/* Simulates the given number of games in the same way, also streaming a record of every game to the
+	 * given sink if it is not null. Each thread writes through its own writer, which is flushed once the
+	 * thread has finished, but the sink itself is left open. */
+	public static SimulationResult simulateGames(long games, int decks, double reshuffleRatio, int threads,
+			CardRandom random, DecisionTable table, GameEventSink events) {
+		return simulateGames(games, decks, reshuffleRatio, threads, random, table, events, games, null);
+	}
 	
-	public static SimulationResult simulateGames(int games, int decks, double reshuffleRatio) {
+	/* Simulates the given number of games in the same way, but in chunks of at most chunkGames games. The
+	 * threads keep their shoes and generators from one chunk to the next, so the chunks together play the
+	 * same kind of run as one long chunk would. After every chunk but the last, the totals of every game
+	 * played so far are passed to the given listener, if it is not null, so that a very long run can
+	 * report how it is converging. The totals are whole counts and sums of half games, so combining the
+	 * chunks loses no precision. */
+	public static SimulationResult simulateGames(long games, int decks, double reshuffleRatio, int threads,
+			CardRandom random, DecisionTable table, GameEventSink events, long chunkGames,
+			Consumer<SimulationResult> listener) {
+		return simulateGames(games, decks, reshuffleRatio, threads, random, table, events, chunkGames, listener,
+				null, 0);
+	}
+	
+	/* Simulates the given number of games in chunks in the same way, also saving the state of every thread
+	 * to the given checkpoint after each chunk, if it is not null. If the checkpoint was read from a file,
+	 * the run carries on from where that checkpoint was saved, with the same results as if it had never
+	 * stopped, as long as it is given the same settings.
+	 * If stopHalfWidth is positive, the run also stops after any chunk once the 95 percent confidence
+	 * interval of the player's edge reaches less than that far, as a fraction of a wager, on each side of
+	 * it, so a run that has already converged does not play the rest of its games. */
+	public static SimulationResult simulateGames(long games, int decks, double reshuffleRatio, int threads,
+			CardRandom random, DecisionTable table, GameEventSink events, long chunkGames,
+			Consumer<SimulationResult> listener, SimulationCheckpoint checkpoint, double stopHalfWidth) {
+		
+		if (chunkGames <= 0) {
+			throw new IllegalArgumentException("The chunk size must be positive");
+		}
+		
+		// Stores the time at the start of the simulation
+		long startTime = System.currentTimeMillis();
+		
+		// Will store the totals of every game played, across all of the threads. When there is only one
+		// thread, its games are played directly against this state.
+		SimulationState totals = new SimulationState(decks, reshuffleRatio, random, table);
+		
+		// The state of each thread, which lasts for the whole run
+		List<SimulationState> states = new ArrayList<>();
+		if (threads == 1) {
+			totals.events = events == null ? null : events.writer();
+			states.add(totals);
+		} else {
+			for (int t = 0; t < threads; t++) {
+				SimulationState state = new SimulationState(decks, reshuffleRatio, random.split(), table);
+				state.events = events == null ? null : events.writer();
+				states.add(state);
+			}
+		}
+		
+		// A resumed run starts with the states and the time taken that were saved in the checkpoint
+		long played = 0;
+		if (checkpoint != null && checkpoint.isResumed()) {
+			checkpoint.restore(games, decks, reshuffleRatio, chunkGames, table != null, states);
+			played = checkpoint.getPlayed();
+			startTime -= checkpoint.getElapsedMillis();
+			if (threads > 1) {
+				for (SimulationState state : states) {
+					totals.merge(state);
+				}
+			}
+		}
+		
+		ExecutorService pool = threads == 1 ? null : Executors.newFixedThreadPool(threads);
+		try {
+			while (played < games && !converged(totals, stopHalfWidth)) {
+				long chunk = Math.min(chunkGames, games - played);
+				
+				if (threads == 1) {
+					playGames(chunk, totals);
+				} else {
+					List<Callable<SimulationState>> workers = new ArrayList<>();
+					for (int t = 0; t < threads; t++) {
+						// The first (chunk % threads) threads play one extra game so that every game is played
+						long workerGames = chunk / threads + (t < chunk % threads ? 1 : 0);
+						SimulationState state = states.get(t);
+						workers.add(() -> {
+							playGames(workerGames, state);
+							return state;
+						});
+					}
+					
+					// The totals are merged again from scratch after every chunk, as each thread's state holds
+					// the totals of all of its games so far
+					totals = new SimulationState(decks, reshuffleRatio, random, table);
+					for (Future<SimulationState> worker : pool.invokeAll(workers)) {
+						totals.merge(worker.get());
+					}
+				}
+				
+				played += chunk;
+				if (checkpoint != null) {
+					checkpoint.save(games, decks, reshuffleRatio, chunkGames, table != null, states, played,
+							System.currentTimeMillis() - startTime, events == null ? 0 : events.size());
+				}
+				if (listener != null && played < games && !converged(totals, stopHalfWidth)) {
+					listener.accept(toResult(totals, decks, reshuffleRatio, startTime));
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Simulation was interrupted", e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Simulation failed", e.getCause());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not save a checkpoint", e);
+		} finally {
+			if (pool != null) {
+				pool.shutdown();
+			}
+		}
+		
+		// printAvgToIdx(totals.totalsByAvg, totals.gamesByAvg);
+		
+		return toResult(totals, decks, reshuffleRatio, startTime);
+		
+	}
+	
+	/* Returns whether the confidence interval of the player's edge in the given totals has narrowed to less
+	 * than the given half-width, which is never the case if the half-width is 0 */
+	private static boolean converged(SimulationState totals, double stopHalfWidth) {
+		return stopHalfWidth > 0 && PayoutStats.of(totals.outcomes).halfWidth95() < stopHalfWidth;
+	}
+	
+	/* Returns an object storing the information about the games in the given totals, which were played
+	 * since the given time */
+	private static SimulationResult toResult(SimulationState totals, int decks, double reshuffleRatio,
+			long startTime) {
+		
+		// How much time has elapsed, in seconds, since the simulation started. Used to see its efficiency
+		double elapsedSeconds = (double)(System.currentTimeMillis() - startTime) / 1000; 
+		
+		SimulationResult result = new SimulationResult(totals.games, decks, totals.outcomes,
+				elapsedSeconds, totals.difference, reshuffleRatio);
+		result.dealerCacheHits = totals.dealerCacheHits;
+		result.dealerCacheMisses = totals.dealerCacheMisses;
+		result.setCounts(totals.counter, totals.spread);
+		return result;
+		
+	}
+	
+	/* Plays the given number of games against the shoe of the given state, adding the result of each one
+	 * to the state's totals. */
+	static void playGames(long games, SimulationState state) {
 		
 		// Stores the difference between how many games the player wins and how many
 		// games the dealer wins
 		double difference = 0;
-
-		// Stores the amount of cards of each type left in the shoe.
-		// The zero index corresponds to 10 and the one index corresponds to aces.
-		// Two corresponds to two, three to three, and so on.
-		int[] cardsAtStart = { 16 * decks, 4 * decks, 4 * decks, 4 * decks, 4 * decks, 4 * decks, 4 * decks,
-				4 * decks, 4 * decks, 4 * decks };
 		
-
-		// This will store how many games ended in the player gaining the following
-		// numbers of value, relative to the size of their initial wager, 
-		// in this order: [-4 -3 -2 -1 -0.5 0 1 1.5 2 3 4]
-		int outcomeTotals[] = new int[11];
-
-		// Stores the time at the start of the simulation
-		long startTime = System.currentTimeMillis();
+		// The totals of the state, which are altered directly
+		OutcomeHistogram outcomes = state.outcomes;
+		double[] totalsByAvg = state.totalsByAvg;
+		long[] gamesByAvg = state.gamesByAvg;
 		
-		// The array of cards left of each value still in the shoe; currently, all cards are in it as no
-		// games have been simulated
-		int[] trueCardsLeft = cardsAtStart.clone();
+		// The cards left of each value still in the shoe
+		Shoe trueCardsLeft = state.trueCardsLeft;
 		
-		// If at the start of any game, the number of cards in the shoe dips below this, the shoe will
-		// be reset
-		double cardThreshold = decks * 52 * reshuffleRatio;
+		// The cards left according to the player, who has not seen the dealer's second card. It is reused
+		// for every game rather than a new one being created each time.
+		Shoe cardsLeft = trueCardsLeft.copy();
 		
-		// Will store how much time has elapsed since the beginning of the simulations
-		long elapsedTime = 0;
+		// The player's decisions, which are filled in again for every decision rather than being created
+		// each time
+		Decision decision = state.decision;
 		
-		// Stores results of games by average values of remaining cards
-		double[] totalsByAvg = new double[101];
-		int[] gamesByAvg = new int[101];
+		// The generator which every card is drawn with
+		CardRandom random = state.random;
+		
+		// The player's count of the cards dealt, or null if they are not counting
+		CardCounter counter = state.counter;
+		
+		// The record of the current game, which is filled in as the game is played and only written out if
+		// the state has somewhere to write it
+		GameEvent event = state.event;
+		
+		// The rules of the table. Whether a dealer's Blackjack ends the game before the player decides
+		// anything is worked out once here rather than in every game: it does if the dealer peeks for it,
+		// unless the player can surrender before they do.
+		Rules rules = state.rules;
+		double blackjackPayout = rules.blackjackPayout();
+		boolean blackjackEndsGame = rules.dealerPeeks() && rules.surrender() != Rules.Surrender.EARLY;
+		
+		// Used to find how many of the dealer cache lookups made by these games were hits
+		DealerProbsCache cache = BlackjackOptimization.dealerCache.get();
+		long startHits = cache.getHits();
+		long startMisses = cache.getMisses();
+		
+		// Adds this thread's counts into the live metrics every so often, rather than after every game
+		SimulationMetrics metrics = SimulationMetrics.INSTANCE;
+		SimulationMetrics.Publisher publisher = metrics.publisher();
+		long published = 0;
 
 		// Plays a game of Blackjack a given amount of times
-		for (int i = 0; i < games; i++) {
+		for (long i = 0; i < games; i++) {
+
+			if (i > 0 && (i & (SimulationMetrics.PUBLISH_INTERVAL - 1)) == 0) {
+				publisher.publish(i - published);
+				published = i;
+			}
+			state.timed = (i & (SimulationMetrics.SAMPLE_INTERVAL - 1)) == 0;
 
 			// If the number of cards is less than the threshold needed to reset the shoe (putting all cards
 			// back into it), the shoe is reset
-			if ((double)getSum(trueCardsLeft) < cardThreshold) {
-				trueCardsLeft = cardsAtStart.clone();
+			if ((double)trueCardsLeft.total() < state.cardThreshold) {
+				trueCardsLeft.copyFrom(state.cardsAtStart);
+				if (counter != null) {
+					counter.reset();
+				}
 			}
 			
 			
 			int idx = averageToIdx(trueCardsLeft);
 			gamesByAvg[idx]++;
+			event.start(state.games + i, idx);
+			
+			// In table mode, the true count at the start of the game decides which decisions are used
+			if (state.table != null) {
+				state.bucket = state.table.bucket(trueCardsLeft);
+			}
+			// The player's bet for the game is decided by the true count before any cards are dealt
+			if (counter != null) {
+				counter.startGame();
+			}
 
 
 			// Store whether the player and the dealer will hit. Initialized as true
@@ -96,7 +419,7 @@ public class BlackjackSimulation {
 			boolean dealerHasAce = false;
 
 			// Gets the player's first card.
-			int playerFirst = hit(trueCardsLeft);
+			int playerFirst = hit(trueCardsLeft, random, counter);
 			
 
 			// If it is an ace, as the "hit" method returns 1 for aces
@@ -106,7 +429,7 @@ public class BlackjackSimulation {
 			}
 
 			// Gets the dealer's first card
-			int dealerFirst = hit(trueCardsLeft);
+			int dealerFirst = hit(trueCardsLeft, random, counter);
 
 			// If it is an ace
 			if (dealerFirst == 1) {
@@ -115,7 +438,7 @@ public class BlackjackSimulation {
 			}
 
 			// Gets the player's second card
-			int playerSecond = hit(trueCardsLeft);
+			int playerSecond = hit(trueCardsLeft, random, counter);
 
 			// If it is an ace and the player does not have an ace. If the player were to
 			// have
@@ -125,10 +448,10 @@ public class BlackjackSimulation {
 				playerHasAce = true;
 			}
 
-			int[] cardsLeft = trueCardsLeft.clone();
+			cardsLeft.copyFrom(trueCardsLeft);
 
 			// Gets the dealer's second card
-			int dealerSecond = hit(trueCardsLeft);
+			int dealerSecond = hit(trueCardsLeft, random, counter);
 
 			// If it is an ace and the dealer does not already have an ace. While the player
 			// should not
@@ -140,6 +463,8 @@ public class BlackjackSimulation {
 				dealerHasAce = true;
 			}
 
+			event.deal(playerFirst, dealerFirst, playerSecond, dealerSecond);
+
 			// Stores the player's current total
 			int playerTotal = playerFirst + playerSecond;
 
@@ -147,8 +472,9 @@ public class BlackjackSimulation {
 			// to 21. The
 			// game does not continue if this is true, so it needs to be checked
 			boolean blackjackFound = false;
-			// Stores whether the player got Blackjack
+			// Stores whether the player got Blackjack, and whether the dealer did
 			boolean playerBlackjack = false;
+			boolean dealerBlackjack = false;
 
 			// If, after drawing their first two cards, the player's total is 21, they have
 			// Blackjack
@@ -158,18 +484,31 @@ public class BlackjackSimulation {
 			}
 
 			if (dealerFirst + dealerSecond == 21) {
-				blackjackFound = true;
+				dealerBlackjack = true;
 
 				if (!playerBlackjack) {
 					// If the dealer has Blackjack and the player doesn't, the dealer wins the hand.
 					// The player having Blackjack is checked for because neither the player or
 					// dealer
-					// wins the hand if they both have Blackjack
-					difference--;
-					outcomeTotals[3]++;
-					totalsByAvg[idx]++;
+					// wins the hand if they both have Blackjack. If the player gets to make their
+					// first decision before the Blackjack is found, the game goes on until then.
+					if (blackjackEndsGame) {
+						blackjackFound = true;
+						difference--;
+						outcomes.add(-1);
+						totalsByAvg[idx]--;
+						if (counter != null) {
+							counter.endGame(-1);
+						}
+						recordGame(state, playerTotal, 21, -1);
+					}
 				} else {
-					outcomeTotals[5]++;
+					blackjackFound = true;
+					outcomes.add(0);
+					if (counter != null) {
+						counter.endGame(0);
+					}
+					recordGame(state, 21, 21, 0);
 				}
 
 			} else if (playerBlackjack) {
@@ -177,10 +516,15 @@ public class BlackjackSimulation {
 				// Blackjack, the
 				// player effectively wins the game plus half of another game, so the number
 				// tracking the
-				// difference in games won will now reflect that
-				difference += 1.5;
-				outcomeTotals[7]++;
-				totalsByAvg[idx] += 1.5;
+				// difference in games won will now reflect that. The rules can pay less.
+				blackjackFound = true;
+				difference += blackjackPayout;
+				outcomes.add(blackjackPayout);
+				totalsByAvg[idx] += blackjackPayout;
+				if (counter != null) {
+					counter.endGame(blackjackPayout);
+				}
+				recordGame(state, 21, dealerFirst + dealerSecond, blackjackPayout);
 			}
 
 			// Goes to the next game if Blackjack is found
@@ -192,64 +536,96 @@ public class BlackjackSimulation {
 			// are the same
 			boolean splittable = playerFirst == playerSecond || (playerFirst == 11 && playerSecond == 1);
 
-			// Will store the probabilities of the dealer finishing with 17, 18, 19, 20, 21,
-			// or over 21.
-			double[] dealerProbs = BlackjackOptimization.getDealerProbs(dealerFirst, cardsLeft, 1, dealerFirst == 11,
-					new double[6]);
+			// Fills in whether the player should hit, if they should double the stakes of the game, and
+			// whether the player should surrender, conceding the game right now to only effectively lose
+			// half of a game, and then finds whether they should split their hand if they can. In table
+			// mode these are looked up; otherwise they are found by the optimization methods.
+			boolean splitting;
+			if (state.table != null) {
+				state.table.decide(state.bucket, playerTotal, playerHasAce, dealerFirst, true, decision);
+				splitting = splittable && state.table.shouldSplit(state.bucket, playerFirst, dealerFirst);
+			} else {
+				// Only the games picked for the metrics read the clock
+				long start = state.timed ? System.nanoTime() : 0;
+				
+				// Will store the probabilities of the dealer finishing with 17, 18, 19, 20, 21,
+				// or over 21.
+				double[] dealerProbs = BlackjackOptimization.getDealerProbs(dealerFirst, cardsLeft,
+						dealerFirst == 11);
+				if (state.timed) {
+					start = metrics.dealerProbs.recordSince(start);
+				}
+
+				// The method takes in as parameters the player's total, the dealer's probabilities of
+				// finishing with different totals, whether the player has an ace, the cards available to
+				// draw from, and the decision to fill in.
+				BlackjackOptimization.shouldHit(playerTotal, dealerFirst, dealerProbs, playerHasAce, cardsLeft,
+						decision);
+				if (state.timed) {
+					start = metrics.shouldHit.recordSince(start);
+				}
+				
+				// Splitting compares the player's chances of winning with two hands that each start with
+				// one of their cards to their chances with the hand they have now
+				splitting = splittable
+						&& BlackjackOptimization.shouldSplit(playerFirst, dealerFirst, dealerProbs, cardsLeft,
+								decision);
+				if (state.timed && splittable) {
+					metrics.split.recordSince(start);
+				}
+			}
 
-			// Stores, in order, whether the player should hit, if they should double the
-			// stakes of the game, the probability of winning if they hit, the probability of winning if
-			// they stand, and a boolean which represents whether the player should surrender, conceding the
-			// game right now to only effectively lose half of a game.
-			// The method takes in as parameters the player's total, the dealer's probabilities of
-			// finishing with different totals, the player's projected total, whether the player has an
-			// ace, and the array of cards available to draw from.
-			Object[] hitArray = BlackjackOptimization.shouldHit(playerTotal, dealerProbs, playerHasAce, cardsLeft);
+			// If the dealer has Blackjack but the player made their first decision before it was found, the
+			// player loses the bets that the decision put up: only half of their bet if they surrendered
+			// early, and both bets if they split or doubled without the dealer having peeked
+			if (dealerBlackjack) {
+				double result = -1;
+				if (splitting) {
+					event.action(GameEvent.SPLIT);
+					result = rules.dealerPeeks() ? -1 : -2;
+				} else if (decision.surrender && rules.surrender() == Rules.Surrender.EARLY) {
+					event.action(GameEvent.SURRENDER);
+					result = -0.5;
+				} else if (decision.doubleDown && !rules.dealerPeeks()) {
+					event.action(GameEvent.DOUBLE);
+					result = -2;
+				}
+				difference += result;
+				outcomes.add(result);
+				totalsByAvg[idx] += result;
+				if (counter != null) {
+					counter.endGame(result);
+				}
+				recordGame(state, playerTotal, 21, result);
+				continue;
+			}
 
-			// If the player can split their hand
-			if (splittable) {
+			// If the player will benefit more from splitting than not splitting, they split
+			if (splitting) {
 
 				// If both of the player's cards are aces, then the total goes to 22 for the
 				// purpose of the input for the split method being 11, as the totals are divided by two.
 				if (playerFirst == 11 && playerSecond == 1) {
 					playerTotal = 22;
 				}
-
-				// Stores, if the player were to split, the probabilities of them finishing with
-				// 12, 13, 14...20, 21, and over 21.
-				double[] splitPlayerProbs = BlackjackOptimization.getPlayerProbs(playerTotal / 2, cardsLeft, 1.0,
-						playerHasAce, new double[11], dealerProbs);
-
-				// Stores the probability of the player winning if they chose to split
-				double winIfSplit = BlackjackOptimization.playerWinProb(splitPlayerProbs, dealerProbs);
-
-				// Stores the probability of the player winning by finding the higher likelihood
-				// between winning if they stand and winning if they hit. The boolean at the 0 index of
-				// the hitArray corresponds to whichever number is higher.
-				double winProb = Math.max((double) hitArray[2], (double) hitArray[3]);
-
-				// Stores the expected difference in games won between the player and dealer if
-				// the player elects not to split
-				double noSplitEV = BlackjackOptimization.getExpectedValue(winProb);
-				// Stores that same expected difference, if the player were to split. Multiplied
-				// by two because the player is now playing two hands
-				double splitEV = 2 * BlackjackOptimization.getExpectedValue(winIfSplit);
-				// If the player will benefit more from splitting than not splitting, they split
-				if (splitEV > noSplitEV) {
-
-					// The difference will get added to it the result of the hand being split, a method
-					// that returns the difference in effective games won between the hands that
-					// were played once the player split
-					double split = split(playerTotal / 2, dealerFirst, dealerSecond,
-							dealerFirst == 11 || dealerSecond == 11, cardsLeft, trueCardsLeft);
-					difference += split;
-					incArr(outcomeTotals, split);
-					totalsByAvg[idx] += split;
-
-					// The current simulation is ended, as the split method plays through the entire
-					// game
-					continue;
+				event.action(GameEvent.SPLIT);
+
+				// The difference will get added to it the result of the hand being split, a method
+				// that returns the difference in effective games won between the hands that
+				// were played once the player split
+				double split = split(playerTotal / 2, dealerFirst, dealerSecond,
+						dealerFirst == 11 || dealerSecond == 11, cardsLeft, state);
+				difference += split;
+				outcomes.add(split);
+				totalsByAvg[idx] += split;
+				if (counter != null) {
+					counter.endGame(split);
 				}
+				recordSplitGame(state, split);
+
+				// The current simulation is ended, as the split method plays through the entire
+				// game
+				continue;
 
 			}
 
@@ -268,10 +644,15 @@ public class BlackjackSimulation {
 
 			// If the player should surrender, they effectively lose half the game and
 			// concede it, concluding the current game
-			if ((boolean) hitArray[4]) {
+			if (decision.surrender) {
 				difference -= 0.5;
-				incArr(outcomeTotals, -0.5);
+				outcomes.add(-0.5);
 				totalsByAvg[idx] -= 0.5;
+				if (counter != null) {
+					counter.endGame(-0.5);
+				}
+				event.action(GameEvent.SURRENDER);
+				recordGame(state, playerTotal, dealerFirst + dealerSecond, -0.5);
 				continue;
 			}
 
@@ -283,28 +664,25 @@ public class BlackjackSimulation {
 				// array is again found with the updated player total, accounting for the player's 3rd/4th/
 				// etc. card
 				if (!firstDraw) {
-					// Stores the dealer's updated probabilities with the new cardsLeft array, as it has
-					// been altered with the player drawing another card, and the player still does not
-					// know the value of the dealer's second card
-					double[] newDealerProbs = BlackjackOptimization.getDealerProbs(dealerFirst, cardsLeft, 1,
-							dealerFirst == 11, new double[6]);
-
-					// Updates the array with the player's new total and the dealer's new  probabilities
-					hitArray = BlackjackOptimization.shouldHitAux(playerTotal, newDealerProbs, playerHasAce, cardsLeft);
+					// Updates the decision with the player's new total and the cards left, which have been
+					// altered with the player drawing another card. The player still does not know the
+					// value of the dealer's second card
+					decide(state, playerTotal, playerHasAce, dealerFirst, cardsLeft, false);
 
 				}
 
 				// If the player should hit, they hit.
-				if ((boolean) hitArray[0]) {
+				if (decision.hit) {
 
 					// Stores the next card
-					int nextCard = hit(trueCardsLeft);
+					int nextCard = hit(trueCardsLeft, random, counter);
 					removeElements(nextCard, cardsLeft);
 
 					// If the player should double and the hand is doublable
-					if (firstDraw && (boolean) hitArray[1]) {
+					if (firstDraw && decision.doubleDown) {
 						doubled = true;
 					}
+					event.action(doubled ? GameEvent.DOUBLE : GameEvent.HIT);
 
 					// If the card is an ace and the player does not yet have one, it counts as 11;
 					// one otherwise
@@ -327,6 +705,7 @@ public class BlackjackSimulation {
 						break;
 					} else if (playerTotal > 18 || (playerTotal > 16 && !playerHasAce)) {
 						playerHitting = false;
+						event.action(GameEvent.STAND);
 						break;
 					}
 
@@ -339,6 +718,7 @@ public class BlackjackSimulation {
 				// If the player should not hit
 				else {
 					playerHitting = false;
+					event.action(GameEvent.STAND);
 				}
 
 				// After the first card, the player can no longer double
@@ -352,7 +732,7 @@ public class BlackjackSimulation {
 			int dealerTotal = dealerFirst + dealerSecond;
 			boolean dealerBusted = false;
 
-			dealerHitting = dealerTotal < 17;
+			dealerHitting = rules.dealerHits(dealerTotal, dealerHasAce);
 
 			// A do-while loop which runs while the dealer is hitting.
 		    while (dealerHitting) {
@@ -363,13 +743,13 @@ public class BlackjackSimulation {
 				} 
 
 				// If the dealer's total is greater than 16, then the dealer does not hit and
-				// the loop is broken out of
-				if (dealerTotal > 16) { 
+				// the loop is broken out of, unless the rules have them hit a soft 17
+				if (!rules.dealerHits(dealerTotal, dealerHasAce)) { 
 					break; 
 				}
 
 				// Gets the next card for the dealer
-				int nextCard = hit(trueCardsLeft);
+				int nextCard = hit(trueCardsLeft, random, counter);
 
 				// If it is equal to one and the dealer does not yet have an ace, the ace's value is 11
 				if (nextCard == 1 && !dealerHasAce) {
@@ -388,7 +768,7 @@ public class BlackjackSimulation {
 
 				// The dealer stops hitting if they have 17 or more, and they busted and
 				// automatically lose if their total is over 21
-				if (dealerTotal > 16) {
+				if (!rules.dealerHits(dealerTotal, dealerHasAce)) {
 					dealerHitting = false;
 					if (dealerTotal > 21) {
 						dealerBusted = true;
@@ -426,26 +806,24 @@ public class BlackjackSimulation {
 			} 
 
 			// The difference gets added to it the result of this game 
-			incArr(outcomeTotals, result); 
+			outcomes.add(result); 
 			difference += result; 
 			totalsByAvg[idx] += result;
-
-			// How much time has elapsed, in milliseconds, since the program was initially 
-			// run. Used to 
-			// see its efficiency 
-			elapsedTime = System.currentTimeMillis() - startTime; 
+			if (counter != null) {
+				counter.endGame(result);
+			}
+			recordGame(state, playerTotal, dealerTotal, result);
 
 		} 
 		
-		// The player's win rate over the course of the simulations 
-		double winRate = ((games + difference) / 2) / games; 
-		double elapsedSeconds = (double)elapsedTime / 1000; 
-		
-		// printAvgToIdx(totalsByAvg, gamesByAvg);
-		
-		// Returns an object storing the information about the simulation 
-		return new SimulationResult(games, decks, outcomeTotals, elapsedSeconds, winRate, reshuffleRatio);
-
+		state.games += games;
+		state.difference += difference;
+		state.dealerCacheHits += cache.getHits() - startHits;
+		state.dealerCacheMisses += cache.getMisses() - startMisses;
+		publisher.publish(games - published);
+		if (state.events != null) {
+			state.events.flush();
+		}
 
 	}
 
@@ -453,49 +831,68 @@ public class BlackjackSimulation {
 	 * Will run two hands against a dealer after the player has split their original
 	 * hand, which they can do if their first two cards have the same value. Takes
 	 * in as parameters the player's current value in each hand (these are the
-	 * same), the dealer's first card, whether the dealer has an ace, the array of
+	 * same), the dealer's first card, whether the dealer has an ace, the
 	 * cards remaining according to the player, and the actual cards remaining, when
-	 * considering the dealer's second card. This method will return a double which
-	 * stores the amount of games the player went up through these two hands. Each
+	 * considering the dealer's second card, which are in the simulation's state along
+	 * with the generator to draw cards with and the decision to fill in for each of
+	 * the player's choices. This method will return a double which
+	 * stores the amount of games the player went up through these hands. Each
 	 * hand has the same value as the original hand, meaning that the total amount
-	 * of winnable points has been doubled, if this method is called.
+	 * of winnable points has been doubled, if this method is called. If the rules
+	 * allow resplitting, a hand that is dealt another card of the pair can be split
+	 * again, up to the most hands that the rules allow.
 	 */
-	public static double split(int num, int dealerFirst, int dealerSecond, boolean dealerHasAce, int[] cardsLeft,
-			int[] trueCardsLeft) {
+	public static double split(int num, int dealerFirst, int dealerSecond, boolean dealerHasAce, Shoe cardsLeft,
+			SimulationState state) {
+		
+		Shoe trueCardsLeft = state.trueCardsLeft;
+		CardRandom random = state.random;
+		GameEvent event = state.event;
+		Rules rules = state.rules;
+		CardCounter counter = state.counter;
 
 		// Stores the number which will be returned.
 		double result = 0;
 
-		// Creates the array which stores the final totals of both of the player's
-		// hands.
-		int[] arr = new int[2];
+		// Creates the arrays which store the second card dealt to each of the player's hands, the final
+		// totals of each hand, and whether the player doubled each hand. There are two hands to begin
+		// with, and each resplit adds another.
+		int maxHands = rules.maxSplitHands();
+		int[] hits = new int[maxHands];
+		int[] arr = new int[maxHands];
+		boolean[] doubled = new boolean[maxHands];
+		int hands = 2;
 
 		// Gets the values for the next cards which will be dealt to each of the
 		// player's hands.
-		int hit1 = hit(trueCardsLeft);
-		removeElements(hit1, cardsLeft);
-
-		int hit2 = hit(trueCardsLeft);
-		removeElements(hit2, cardsLeft);
+		hits[0] = hit(trueCardsLeft, random, counter);
+		removeElements(hits[0], cardsLeft);
 
-		// Gets the totals of each of the player's hands after they've received their
-		// second card
-		int num1 = num + (hit1 == 1 ? 11 : hit1);
-		int num2 = num + (hit2 == 1 ? 11 : hit2);
+		hits[1] = hit(trueCardsLeft, random, counter);
+		removeElements(hits[1], cardsLeft);
 
 		// Stores the dealer's total
 		int dealerTot = dealerFirst + dealerSecond;
 
-		// Stores whether the player doubled each of their hands
-		boolean doubledFirst = false;
-		boolean doubledSecond = false;
-
-		// This loop will simply play through each of the two hands
-		for (int i = 0; i < 2; i++) {
+		// This loop will simply play through each of the hands, including any that are added by
+		// resplitting along the way
+		for (int i = 0; i < hands; i++) {
+
+			// If the hand was dealt another card of the pair, the player can split it again while the rules
+			// allow it. The new hand starts with that card, and both hands are dealt a new second card.
+			while (hands < maxHands && (hits[i] == 1 ? 11 : hits[i]) == num && (num != 11 || rules.resplitAces())
+					&& shouldResplit(state, num, dealerFirst, cardsLeft, hands)) {
+				event.action(GameEvent.SPLIT);
+				hits[i] = hit(trueCardsLeft, random, counter);
+				removeElements(hits[i], cardsLeft);
+				hits[hands] = hit(trueCardsLeft, random, counter);
+				removeElements(hits[hands], cardsLeft);
+				hands++;
+			}
 
 			// Stores the player's current value in the hand that is currently being played
-			// through
-			int value = (i == 0 ? num1 : num2);
+			// through, which is their total after they've received their second card
+			int value = num + (hits[i] == 1 ? 11 : hits[i]);
 
 			// If the player started with an ace and then drew an ace, their total would go
 			// to 22, which of course cannot happen, so one of the aces now counts as 1 and the player's
@@ -505,48 +902,46 @@ public class BlackjackSimulation {
 			}
 
 			// A rule of Blackjack, or the variation that this program simulates, does not
-			// allow the to hit a split ace after the original hit. So, this will conclude and the
+			// allow the to hit a split ace after the original hit. So, unless the rules allow it, the
 			// player's current value for this hand is final
-			if (num == 11) {
-				arr[0] = num1;
-				arr[1] = num2;
-				break;
+			if (num == 11 && !rules.hitSplitAces()) {
+				arr[i] = value;
+				continue;
+			}
 
+			// The actions of each hand after the first are separated from those before it in the game's
+			// record
+			if (i > 0) {
+				event.action(GameEvent.NEXT_HAND);
 			}
 
 			// Stores whether the player is hitting
 			boolean playerHitting = true;
 
-			// If the player can double
-			boolean doublable = true;
+			// If the player can double, which they can on their first decision if the rules allow
+			// doubling after splitting
+			boolean doublable = rules.doubleAfterSplit();
 
 			// If the player's first card was an ace or they drew an ace in this hand.
 			// Essentially stores whether the player has an ace whose value is 11
-			boolean playerHasAce = num == 11 || (i == 0 ? hit1 : hit2) == 1;
+			boolean playerHasAce = num == 11 || hits[i] == 1;
 
 			// Starts off by looking to see if the player should hit, leaving the loop if
 			// they shouldn't. But if they should, it will keep on looking to see if they should hit again
 			// until they shouldn't
 			do {
 
-				// The dealer's probabilities of ending with certain totals
-				double[] dealerProbs = BlackjackOptimization.getDealerProbs(dealerFirst, cardsLeft, 1,
-						dealerFirst == 11, new double[6]);
-
 				// Stores information about the player's best decisions to make in this current
 				// situation. If this is the first decision checkpoint, the hand is doublable, so we have
-				// to call shouldHit() to consider the possibilities of doubling and splitting. But if
-				// it is not the first checkpoint, we don't consider those possibilities and can only call
-				// shouldHitAux() for the sake of efficiency
-				Object[] hitArray = doublable
-						? BlackjackOptimization.shouldHit(value, dealerProbs, playerHasAce, cardsLeft)
-						: BlackjackOptimization.shouldHitAux(value, dealerProbs, playerHasAce, cardsLeft);
+				// to consider the possibilities of doubling and surrendering. But if it is not the first
+				// checkpoint, we don't consider those possibilities for the sake of efficiency
+				Decision decision = decide(state, value, playerHasAce, dealerFirst, cardsLeft, doublable);
 
 				// If the player should hit
-				if ((boolean) hitArray[0]) {
+				if (decision.hit) {
 
 					// The player's next card
-					int nextCard = hit(trueCardsLeft);
+					int nextCard = hit(trueCardsLeft, random, counter);
 					removeElements(nextCard, cardsLeft);
 
 					// If it is an ace and the player doesn't have an ace, it counts as 11
@@ -558,19 +953,18 @@ public class BlackjackSimulation {
 					// If the player should double the value of the game and they can double it,
 					// which is when this is the first card they are receiving after splitting. They will
 					// double in this case
-					if (doublable && (boolean) hitArray[1]) {
+					if (doublable && decision.doubleDown) {
 
 						// The player cannot receive more than one card after splitting, meaning they
 						// are no longer hitting
 						playerHitting = false;
+						event.action(GameEvent.DOUBLE);
 
 						// Stores that the stakes of the current hand were doubled
-						if (i == 0) {
-							doubledFirst = true;
-						} else {
-							doubledSecond = true;
-						}
+						doubled[i] = true;
 
+					} else {
+						event.action(GameEvent.HIT);
 					}
 
 					// Adds to the player's value the card they received
@@ -587,12 +981,17 @@ public class BlackjackSimulation {
 					// while having an ace is hitting again the optimal decision. So, we simply do
 					// not bother checking what the player's best decision is for the sake of efficiency
 					if (value >= 19 || (value >= 17 && !playerHasAce)) {
+						// A hand that has not doubled or busted stands here
+						if (playerHitting && value <= 21) {
+							event.action(GameEvent.STAND);
+						}
 						playerHitting = false;
 					}
 
 				} else {
 					// If the player should not hit; this will cause the do-while loop to terminate
 					playerHitting = false;
+					event.action(GameEvent.STAND);
 				}
 
 				// The player can no longer double after they hit once
@@ -606,14 +1005,19 @@ public class BlackjackSimulation {
 		}
 
 		// The dealer is only hitting while their hand's value is less than 17, so they
-		// will not even hit to begin with if that is the case
-		boolean dealerHitting = dealerTot < 17;
+		// will not even hit to begin with if that is the case. The rules can have them hit a soft 17 too.
+		// If every hand busted, the dealer doesn't draw at all, as when a hand that wasn't split busts.
+		boolean anyLive = false;
+		for (int i = 0; i < hands; i++) {
+			anyLive |= arr[i] <= 21;
+		}
+		boolean dealerHitting = anyLive && rules.dealerHits(dealerTot, dealerHasAce);
 
 		// While the dealer is supposed to hit, they will keep hitting
 		while (dealerHitting) {
 
 			// The value of their next card
-			int nextCard = hit(trueCardsLeft);
+			int nextCard = hit(trueCardsLeft, random, counter);
 
 			// If they don't have an ace and they drew an ace, it counts as 11
 			if (!dealerHasAce && nextCard == 1) {
@@ -631,32 +1035,33 @@ public class BlackjackSimulation {
 			}
 
 			// If their total surpassed 16, they do not hit again
-			if (dealerTot > 16) {
+			if (!rules.dealerHits(dealerTot, dealerHasAce)) {
 				dealerHitting = false;
 			}
 		}
 
-		// This loop will go through both of the values that the player ended with
-		for (int i = 0; i < 2; i++) {
+		// The final totals are kept in the game's record, which is written out once the result is known
+		event.hands(arr, hands);
+		event.dealerTotal = dealerTot;
 
-			// If the player doubled the value of the current hand
-			boolean doubled = (i == 0 ? doubledFirst : doubledSecond);
+		// This loop will go through all of the values that the player ended with
+		for (int i = 0; i < hands; i++) {
 
 			// If the player busted or went over 21, they lost the hand
 			if (arr[i] > 21) {
-				result -= (doubled ? 2 : 1);
+				result -= (doubled[i] ? 2 : 1);
 
 			} else if (dealerTot > 21) {
 				// Otherwise, if the dealer busted, the player wins
-				result += (doubled ? 2 : 1);
+				result += (doubled[i] ? 2 : 1);
 
 			} else if (arr[i] > dealerTot) {
 				// If the player's total is greater than the dealer's
-				result += (doubled ? 2 : 1);
+				result += (doubled[i] ? 2 : 1);
 
 			} else if (arr[i] < dealerTot) {
 				// If the dealer's total is greater than the player's
-				result -= (doubled ? 2 : 1);
+				result -= (doubled[i] ? 2 : 1);
 
 			}
 		}
@@ -665,104 +1070,112 @@ public class BlackjackSimulation {
 
 	}
 
-	/*
-	 * Returns a number corresponding to a card randomly chosen from the cards
-	 * available. Returns 1 for an ace
-	 */
-	public static int hit(int[] remainingCards) {
-		Random random = new Random();
-		// Gets a random number below the number of cards remaining and assigns the
-		// corresponding card value 
-		int numCardsLeft = getSum(remainingCards);
-		 
-		// Gets a random number below the number of cards remaining
-		int randomInt = random.nextInt(numCardsLeft);
-		  
-
-		// Essentially translates the value of the random number into a value of a card
-		int nextCard = getVal(randomInt, remainingCards);          
-
-		// Removes this card from the shoe
-		removeElements(nextCard, remainingCards);
-
-		// If the value is 0, 10 needs to be returned instead, as getVal returns 0 through 9
-		return (nextCard == 0 ? 10 : nextCard);
-
+	/* Returns whether the player should split a pair of the given card again after being dealt another
+	 * one of it, given the number of hands they have, which is decided from the cards left at that point by
+	 * comparing the split to playing the pair as a split hand */
+	private static boolean shouldResplit(SimulationState state, int card, int dealerFirst, Shoe cardsLeft,
+			int hands) {
+		if (state.table != null) {
+			return state.table.shouldSplit(state.bucket, card, dealerFirst);
+		}
+		double[] dealerProbs = BlackjackOptimization.getDealerProbs(dealerFirst, cardsLeft, dealerFirst == 11);
+		return BlackjackOptimization.shouldSplit(card, dealerFirst, dealerProbs, cardsLeft, state.decision, hands);
 	}
 
 	/*
-	 * Returns the count of all the values in an integer array. Used for the purpose
-	 * of finding the probability that the dealer or player ends with a certain
-	 * number, as the return value of this method will be the denominator in such
-	 * fractions throughout other methods in this class.
+	 * Fills in the player's decision for their current hand and returns it. If the
+	 * simulation is in table mode, the decision is looked up in the decision table
+	 * for the true count at the start of the game; otherwise the dealer's
+	 * probabilities are found and the decision is made by shouldHit, if this is the
+	 * player's first decision and they can still double, or by shouldHitAux.
 	 */
-	public static int getSum(int[] arr) {
-		int sum = 0;
-		// Loops through all of the numbers, adding them together
-		for (int i = 0; i < arr.length; i++) {
-			sum += arr[i];
+	private static Decision decide(SimulationState state, int total, boolean playerHasAce, int dealerFirst,
+			Shoe cardsLeft, boolean firstDecision) {
+		
+		if (state.table != null) {
+			return state.table.decide(state.bucket, total, playerHasAce, dealerFirst, firstDecision,
+					state.decision);
 		}
-		return sum;
+		
+		// Only the games picked for the metrics read the clock
+		SimulationMetrics metrics = SimulationMetrics.INSTANCE;
+		long start = state.timed ? System.nanoTime() : 0;
+		
+		// The dealer's probabilities of ending with certain totals
+		double[] dealerProbs = BlackjackOptimization.getDealerProbs(dealerFirst, cardsLeft, dealerFirst == 11);
+		if (state.timed) {
+			start = metrics.dealerProbs.recordSince(start);
+		}
+		
+		Decision decision = firstDecision
+				? BlackjackOptimization.shouldHit(total, dealerFirst, dealerProbs, playerHasAce, cardsLeft,
+						state.decision)
+				: BlackjackOptimization.shouldHitAux(total, dealerProbs, playerHasAce, cardsLeft, state.decision);
+		if (state.timed) {
+			metrics.shouldHit.recordSince(start);
+		}
+		return decision;
+		
 	}
 
-	/* Returns the value of a number as it corresponds to the amount of cards left
-	 * in the shoe. Essentially, all of the remaining cards are lined up, starting
-	 * with tens/jacks/queens/kings, then going to aces, then twos, and so on. This
-	 * method will get the value of the card at the location corresponding to the
-	 * randomInt parameter.
-	 */
-	private static int getVal(int randomInt, int[] cardsLeft) {
-		int tracker = 0; // Stores the amount of cards which have been iterated over
-		int val = 0; // Stores the value of the card which will be returned
-		// Loops through the cardsLeft array, adding to the tracker how many cards of
-		// each number there are
-		for (int i = 0; i < cardsLeft.length; i++) {
-			tracker += cardsLeft[i];
-			// If the number becomes less than the tracker, the current index is returned
-			if (randomInt < tracker) {
-				return i;
-			}
+	/* Finishes the record of the current game, in which the player didn't split, with the final totals and
+	 * the result, and writes it out if the state's games are being recorded */
+	private static void recordGame(SimulationState state, int playerTotal, int dealerTotal, double result) {
+		if (state.events != null) {
+			GameEvent event = state.event;
+			event.hand(playerTotal);
+			event.dealerTotal = dealerTotal;
+			event.payout = result;
+			state.events.write(event);
 		}
-
-		return val;
-
 	}
 
-	/* Removes from the array of remaining cards, a specified card */
-	public static void removeElements(int num, int[] cardsLeft) {
-		// If the value of the card which needs to be removed is 10, 1 is subtracted at
-		// the 0 index
-		cardsLeft[num == 10 ? 0 : num == 11 ? 1 : num]--;
+	/* Finishes the record of the current game, in which the player split and split already recorded the
+	 * totals of every hand and the dealer, with the result, and writes it out if the state's games are being
+	 * recorded */
+	private static void recordSplitGame(SimulationState state, double result) {
+		if (state.events != null) {
+			state.event.payout = result;
+			state.events.write(state.event);
+		}
 	}
 
-    /* These following methods are used to store the amounts of games that all
-	 * possible results took place in. The Map stores the corresponding indeces in
-	 * the outcomeTotals array of each of these possible results. The
-	 * printOutcomeTotals method finds the percent of all the games that each
-	 * outcome occurred in, and prints them out.
+	/*
+	 * Returns a number corresponding to a card randomly chosen from the cards
+	 * available, using the given generator, and removes it from the shoe. Returns 1 for an ace
 	 */
-	private static Map<Double, Integer> resultToIdx = Map.ofEntries(Map.entry(-4.0, 0), Map.entry(-3.0, 1),
-			Map.entry(-2.0, 2), Map.entry(-1.0, 3), Map.entry(-0.5, 4), Map.entry(0.0, 5), Map.entry(1.0, 6),
-			Map.entry(1.5, 7), Map.entry(2.0, 8), Map.entry(3.0, 9), Map.entry(4.0, 10));
+	public static int hit(Shoe remainingCards, CardRandom random) {
+		// Draws a random card from the shoe, which gives the index of its value
+		int nextCard = remainingCards.draw(random);
+
+		// If the index is 0, 10 needs to be returned instead, as the indices go from 0 through 9
+		return (nextCard == 0 ? 10 : nextCard);
 
-	
-	/* Increments the outcomeTotals array at the index that stores the result of the game that was just
-	 * simulated; this is called in every simulation only once the result has been determined. */
-	private static void incArr(int[] outcomeTotals, double result) {
-		outcomeTotals[resultToIdx.get(result)]++;
 	}
-	
-	private static int averageToIdx(int[] cardsLeft) {
-		int sum = getSum(cardsLeft);
-		int total = cardsLeft[0] * 10 + cardsLeft[1] * 11;
-		for (int i = 2; i < cardsLeft.length; i++) {
-			total += i * cardsLeft[i];
+
+	/* Deals a card in the same way, also adding it to the player's count if they are counting. The count
+	 * is given the card's index, so keeping it costs one addition per card. */
+	public static int hit(Shoe remainingCards, CardRandom random, CardCounter counter) {
+		int nextCard = remainingCards.draw(random);
+		if (counter != null) {
+			counter.count(nextCard);
 		}
-		double average = (double)total / (double)sum;
+		return (nextCard == 0 ? 10 : nextCard);
+	}
+
+	/* Removes from the shoe of remaining cards, a specified card */
+	public static void removeElements(int num, Shoe cardsLeft) {
+		// If the value of the card which needs to be removed is 10, it is removed at the 0 index
+		cardsLeft.remove(Shoe.indexOf(num));
+	}
+
+	private static int averageToIdx(Shoe cardsLeft) {
+		// The shoe keeps track of both the sum of the values of its cards and how many are left
+		double average = (double)cardsLeft.points() / (double)cardsLeft.total();
 		return (int) Math.floor(average * 10);
 	}
 	
-	private static void printAvgToIdx(double[] totalByAvg, int[] gamesPlayed) {
+	private static void printAvgToIdx(double[] totalByAvg, long[] gamesPlayed) {
 		for (int i = 0; i < totalByAvg.length; i++) {
 			double avg = (double) i / 10;
 			double avgPerGame = gamesPlayed[i] == 0 ? 0.0 : totalByAvg[i] / (double)gamesPlayed[i];
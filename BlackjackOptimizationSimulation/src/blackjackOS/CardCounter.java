@@ -0,0 +1,97 @@
+package blackjackOS;
+
+/* This class keeps the player's count of the cards that have been dealt from one thread's shoe, using one
+ * of the counting systems, and the results of the games played at each true count. The count is updated by
+ * BlackjackSimulation.hit as each card is dealt, which is a single addition of the card's tag, so the cards
+ * left never have to be looked through again; it only starts over when the shoe is reshuffled.
+ * The true count at the start of each game is what the player's bet is decided by. The games are only
+ * tallied by that count, as the bet at each count is fixed by the spread, so the units won and bet over the
+ * whole run are found from the tallies at the end, and the tallies of each thread are simply added
+ * together. */
+public class CardCounter {
+
+	// The true counts are tallied from -MAX_COUNT to MAX_COUNT, with any count past either end tallied with
+	// the end
+	static final int MAX_COUNT = 20;
+
+	private final CountingSystem system;
+	private final int decks;
+
+	// The running count, and the number of cards left in the shoe, which the true count is found from
+	private int running;
+	private int cardsLeft;
+
+	// The true count at the start of the current game, as an index of the tallies
+	private int gameIdx;
+
+	// The number of games started at each true count, and the sum of their payouts relative to the wager
+	final long[] gamesByCount = new long[2 * MAX_COUNT + 1];
+	final double[] payoutsByCount = new double[2 * MAX_COUNT + 1];
+
+	/* Constructor. Starts off with the count of a full shoe of the given number of decks. */
+	public CardCounter(CountingSystem system, int decks) {
+		this.system = system;
+		this.decks = decks;
+		reset();
+	}
+
+	/* Starts the count over for a freshly shuffled shoe */
+	public void reset() {
+		running = system.initialCount(decks);
+		cardsLeft = decks * 52;
+	}
+
+	/* Finds the count from the cards left in the given shoe, for when the shoe was set from somewhere else
+	 * rather than dealt, such as when a run is resumed from a checkpoint */
+	public void recount(Shoe shoe) {
+		Shoe full = Shoe.full(decks);
+		running = system.initialCount(decks);
+		for (int i = 0; i < Shoe.CARD_TYPES; i++) {
+			running += system.tag(i) * (full.count(i) - shoe.count(i));
+		}
+		cardsLeft = shoe.total();
+	}
+
+	/* Counts a card which was just dealt, given its index in the shoe */
+	public void count(int idx) {
+		running += system.tag(idx);
+		cardsLeft--;
+	}
+
+	public int runningCount() {
+		return running;
+	}
+
+	/* Returns the true count, which is the running count per deck left, rounded to the nearest whole number
+	 * as the decision tables do. An unbalanced system's running count is its true count. */
+	public int trueCount() {
+		if (!system.isBalanced()) {
+			return running;
+		}
+		return (int) Math.round(running * 52.0 / Math.max(1, cardsLeft));
+	}
+
+	/* Notes the true count at the start of a game, which the game's result is tallied under */
+	public void startGame() {
+		gameIdx = Math.max(-MAX_COUNT, Math.min(MAX_COUNT, trueCount())) + MAX_COUNT;
+	}
+
+	/* Tallies the payout of the game that was started last, relative to the wager */
+	public void endGame(double payout) {
+		gamesByCount[gameIdx]++;
+		payoutsByCount[gameIdx] += payout;
+	}
+
+	/* Adds the tallies of another counter, kept with the same system, into this one */
+	public void merge(CardCounter other) {
+		for (int i = 0; i < gamesByCount.length; i++) {
+			gamesByCount[i] += other.gamesByCount[i];
+			payoutsByCount[i] += other.payoutsByCount[i];
+		}
+	}
+
+	public CountingSystem getSystem() {
+		return system;
+	}
+
+}
@@ -0,0 +1,30 @@
+package blackjackOS;
+
+/* This interface represents the source of randomness used to deal cards from the shoe. Every simulation,
+ * or every thread of a simulation, holds onto one of these for its whole run, rather than a new generator
+ * being created for each card. There are two implementations: SplittableCardRandom, which can be given a
+ * seed so that a run can be repeated exactly, and ThreadLocalCardRandom, which cannot be seeded but uses
+ * the generator that the JDK already keeps for each thread. */
+public interface CardRandom {
+
+	/* Returns a random number that is at least 0 and less than the bound */
+	int nextInt(int bound);
+
+	/* Returns a new, independent generator for another thread to use. For seeded generators, the
+	 * generators that are split off are themselves determined by the seed. */
+	CardRandom split();
+
+	/* Creates a generator given the name of its type, which is either "splittable" or "threadlocal". The
+	 * seed is ignored by the thread-local generator. */
+	static CardRandom create(String type, long seed) {
+		switch (type) {
+		case "splittable":
+			return new SplittableCardRandom(seed);
+		case "threadlocal":
+			return new ThreadLocalCardRandom();
+		default:
+			throw new IllegalArgumentException("Unknown random number generator " + type);
+		}
+	}
+
+}
@@ -0,0 +1,65 @@
+package blackjackOS;
+
+/* The card counting systems that the player can keep a count with. Each one gives every card value a tag,
+ * which is added to the running count when a card of that value is dealt. In a balanced system the tags of
+ * a whole deck add up to 0, so the running count is divided by the number of decks left to find the true
+ * count. KO is unbalanced, as it counts sevens as low cards, so its running count starts below 0 and is
+ * used as it is, without being divided, which is the point of the system. */
+public enum CountingSystem {
+
+	// The tags are in the order of the shoe's indices: tens, aces, and then two through nine
+	HI_LO("hilo", new int[] { -1, -1, 1, 1, 1, 1, 1, 0, 0, 0 }, true),
+	KO("ko", new int[] { -1, -1, 1, 1, 1, 1, 1, 1, 0, 0 }, false),
+	OMEGA_II("omega2", new int[] { -2, 0, 1, 1, 2, 2, 2, 1, 0, -1 }, true);
+
+	private final String name;
+	private final int[] tags;
+	private final boolean balanced;
+
+	private CountingSystem(String name, int[] tags, boolean balanced) {
+		this.name = name;
+		this.tags = tags;
+		this.balanced = balanced;
+	}
+
+	/* Returns the system with the given name, which is "hilo", "ko", or "omega2" */
+	public static CountingSystem parse(String name) {
+		for (CountingSystem system : values()) {
+			if (system.name.equals(name.toLowerCase())) {
+				return system;
+			}
+		}
+		throw new IllegalArgumentException("Unknown counting system " + name);
+	}
+
+	/* Returns the tag of the card at the given index of the shoe */
+	public int tag(int idx) {
+		return tags[idx];
+	}
+
+	public boolean isBalanced() {
+		return balanced;
+	}
+
+	/* Returns the running count before any cards have been dealt from a shoe of the given number of decks.
+	 * This is 0 for a balanced system. For KO, it is chosen so that the count reaches 0, on average, by the
+	 * time only one deck is left, which puts the counts that call for bigger bets at about the same
+	 * place for any number of decks. */
+	public int initialCount(int decks) {
+		if (balanced) {
+			return 0;
+		}
+		Shoe deck = Shoe.full(1);
+		int deckSum = 0;
+		for (int i = 0; i < Shoe.CARD_TYPES; i++) {
+			deckSum += tags[i] * deck.count(i);
+		}
+		return -deckSum * (decks - 1);
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+
+}
@@ -0,0 +1,139 @@
+package blackjackOS;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/* This class stores the results of the getDealerProbs method in BlackjackOptimization so that the full
+ * draw tree of the dealer does not need to be walked again every time the same situation comes up. Over
+ * the course of a long simulation with multiple decks, the same dealer totals are reached with the same
+ * cards left in the shoe over and over again, so this saves a large amount of repeated work.
+ * Each entry is keyed on the dealer's total, whether they have an ace counting as 11, whether they have
+ * peeked for Blackjack, and the 10 counts of the cards left, which the shoe keeps packed into a single
+ * long. Once the cache holds its maximum number of entries, the one that was used least recently is
+ * removed. */
+public class DealerProbsCache {
+
+	// The default amount of entries that the cache will hold before it starts removing old ones
+	public static final int DEFAULT_MAX_ENTRIES = 1 << 16;
+
+	private final Map<Key, double[]> entries;
+
+	// A key which is reused for every lookup, so that checking the cache does not create a new object.
+	// It is only copied when a new entry is stored.
+	private final Key probe = new Key();
+
+	private long hits;
+	private long misses;
+
+	// The rules that every entry was found under
+	private Rules rules = BlackjackOptimization.getRules();
+
+	/* Constructor which uses the default size */
+	public DealerProbsCache() {
+		this(DEFAULT_MAX_ENTRIES);
+	}
+
+	/* Constructor. The LinkedHashMap is created in access order, so its eldest entry is always the one
+	 * that was used least recently, and that entry is the one removed once the size limit is passed. */
+	public DealerProbsCache(int maxEntries) {
+		this.entries = new LinkedHashMap<Key, double[]>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, double[]> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/* Returns the probabilities of the dealer finishing with 17, 18, 19, 20, 21, and over 21, in the same
+	 * format as getDealerProbs, for a dealer who has just shown their up card. If this situation has
+	 * already been seen, the stored array is returned; otherwise it is computed by getDealerProbs and
+	 * stored. The returned array is shared between callers and must not be altered. */
+	public double[] get(int dealer, Shoe cardsLeft, boolean acePresent) {
+
+		// If the rules have changed since the cache was last used, none of its entries can be trusted
+		Rules current = BlackjackOptimization.getRules();
+		if (current != rules) {
+			entries.clear();
+			rules = current;
+		}
+
+		// The dealer only peeks for Blackjack at the top of the draw tree, when their up card is a 10 or an
+		// ace, which is the same check made inside getDealerProbs
+		boolean peeked = dealer > 9;
+
+		// If the shoe is too large for its counts to be packed, the result is simply computed
+		if (!cardsLeft.isPackable()) {
+			misses++;
+			return BlackjackOptimization.getDealerProbs(dealer, cardsLeft, 1, acePresent, new double[6]);
+		}
+
+		probe.composition = cardsLeft.key();
+		probe.state = dealer | (acePresent ? 1 << 5 : 0) | (peeked ? 1 << 6 : 0);
+		double[] probs = entries.get(probe);
+		if (probs != null) {
+			hits++;
+			return probs;
+		}
+
+		misses++;
+		probs = BlackjackOptimization.getDealerProbs(dealer, cardsLeft, 1, acePresent, new double[6]);
+		entries.put(probe.copy(), probs);
+		return probs;
+
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	/* Returns the proportion of lookups that were answered from the cache */
+	public double getHitRate() {
+		long lookups = hits + misses;
+		return lookups == 0 ? 0.0 : (double) hits / lookups;
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	public void clear() {
+		entries.clear();
+	}
+
+	/* The key of each entry: the packed counts of the cards left, and the dealer's total along with the ace
+	 * and peek flags packed into a single int */
+	private static final class Key {
+
+		long composition;
+		int state;
+
+		Key copy() {
+			Key key = new Key();
+			key.composition = composition;
+			key.state = state;
+			return key;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) o;
+			return composition == other.composition && state == other.state;
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(composition * 0x9E3779B97F4A7C15L) * 31 + state;
+		}
+
+	}
+
+}
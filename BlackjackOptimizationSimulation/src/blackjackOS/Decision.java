@@ -0,0 +1,45 @@
+package blackjackOS;
+
+/* This class stores the decisions that the player should make in a certain situation, along with the
+ * probabilities of winning that those decisions are based on. It is filled in by the shouldHit and
+ * shouldHitAux methods in BlackjackOptimization. A simulation creates one of these and passes it in for
+ * every decision, so finding a decision never creates any new objects. */
+public class Decision {
+
+	// Whether the player should hit, double the stakes of the game, and surrender the game. Doubling and
+	// surrendering are only ever set by shouldHit, and are always false after a call to shouldHitAux.
+	boolean hit;
+	boolean doubleDown;
+	boolean surrender;
+
+	// The probabilities of the player winning if they hit, if they stand, and if they hit exactly once,
+	// which is what happens when they double. The last of these is only found by shouldHit.
+	double winIfHit;
+	double winIfStand;
+	double winIfHitOnce;
+
+	public boolean shouldHit() {
+		return hit;
+	}
+
+	public boolean shouldDouble() {
+		return doubleDown;
+	}
+
+	public boolean shouldSurrender() {
+		return surrender;
+	}
+
+	public double getWinIfHit() {
+		return winIfHit;
+	}
+
+	public double getWinIfStand() {
+		return winIfStand;
+	}
+
+	public double getWinIfHitOnce() {
+		return winIfHitOnce;
+	}
+
+}
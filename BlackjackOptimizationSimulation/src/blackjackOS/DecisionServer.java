@@ -0,0 +1,398 @@
+package blackjackOS;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/* This class answers questions about a single live hand over HTTP, so that a training tool can ask what the
+ * optimizer would do without starting a new JVM for every hand. It stays running, and every thread that
+ * answers requests keeps its own dealer cache and transposition table from one request to the next, as the
+ * simulation's threads do from one game to the next. The answers themselves are kept in a cache shared by
+ * every thread, keyed on the cards left and the hand, so a hand that has been asked about before is
+ * answered without any evaluation at all. Once the cache is full, the answer used least recently is dropped
+ * for each new one, in the same way as the dealer cache.
+ * A hand is asked about with a GET request like
+ *   /decide?decks=6&player=A,7&dealer=10&removed=2,5,K
+ * where player is the player's cards, dealer is the dealer's up card, and removed is any other cards that
+ * are known to have left the shoe. Cards are 2 to 10, J, Q, K, and A, and decks is 1 to 8, defaulting to
+ * 6. A request that does not describe a hand that can be played is answered with a 400, and one that
+ * fails while it is being evaluated with a 500, each with a line of JSON giving the error. The player
+ * can double or surrender only with two cards, and split only with two cards of the same value. The answer
+ * is a line of JSON with the action to take, each of the decisions, and the probabilities of winning that
+ * they were based on. /stats returns the number of requests, how many were answered from the cache, and
+ * how long they took.
+ * Arguments:
+ *   --port N       the port to listen on (default 8077)
+ *   --threads N    the number of threads answering requests; 0 uses every available core (default 0)
+ *   --cache N      the most answers to keep in the shared cache (default 1048576), after which the least
+ *                  recently used are dropped
+ *   --parallel     finds each answer across the fork-join pool, which is faster for a single hand when
+ *                  there are fewer requests at once than cores
+ *   --dealer MODEL "exact" (the default) or "infinite", as for BlackjackSimulation
+ *   --rules LIST   the rules of the table, in the form read by Rules.parse (default the standard rules) */
+public class DecisionServer {
+
+	static final int DEFAULT_PORT = 8077;
+	static final int DEFAULT_CACHE_ENTRIES = 1 << 20;
+
+	// The most decks a request can ask about, which is the most that any table is dealt from
+	static final int MAX_DECKS = 8;
+
+	private final HttpServer server;
+	private final ExecutorService pool;
+
+	// The answers that have already been found, in access order so that the least recently used is dropped
+	// once there are more than the most allowed. Reading an answer moves it to the end of the order, so
+	// every read as well as every write holds the map's lock, but only for the lookup itself and never
+	// while an answer is being found.
+	private final Map<Query, String> answers;
+	private final boolean parallel;
+
+	private final LongAdder requests = new LongAdder();
+	private final LongAdder cacheHits = new LongAdder();
+	private final LatencyHistogram latency = new LatencyHistogram();
+
+	public static void main(String[] args) throws IOException {
+
+		int port = DEFAULT_PORT;
+		int threads = 0;
+		int cacheEntries = DEFAULT_CACHE_ENTRIES;
+		boolean parallel = false;
+
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--parallel")) {
+				parallel = true;
+				continue;
+			}
+			if (i + 1 >= args.length) {
+				throw new IllegalArgumentException("Missing value for " + args[i]);
+			}
+			String value = args[i + 1];
+			switch (args[i++]) {
+			case "--port":
+				port = Integer.parseInt(value);
+				break;
+			case "--threads":
+				threads = Integer.parseInt(value);
+				break;
+			case "--cache":
+				cacheEntries = Integer.parseInt(value);
+				break;
+			case "--dealer":
+				if (!value.equals("exact") && !value.equals("infinite")) {
+					throw new IllegalArgumentException("Unknown dealer model " + value);
+				}
+				BlackjackOptimization.setInfiniteDeckDealer(value.equals("infinite"));
+				break;
+			case "--rules":
+				BlackjackOptimization.setRules(Rules.parse(value));
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option " + args[i - 1]);
+			}
+		}
+		if (threads == 0) {
+			threads = Runtime.getRuntime().availableProcessors();
+		}
+
+		DecisionServer server = new DecisionServer(new InetSocketAddress(port), threads, cacheEntries, parallel);
+		server.start();
+		System.out.println("Answering decisions on port " + port + " with " + threads + " threads");
+
+	}
+
+	/* Constructor. The requests are answered by a fixed pool of the given number of threads rather than a
+	 * new thread for each, so that the caches of each thread stay warm between requests. */
+	public DecisionServer(InetSocketAddress address, int threads, int maxCacheEntries, boolean parallel)
+			throws IOException {
+		this.answers = Collections.synchronizedMap(new LinkedHashMap<Query, String>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Query, String> eldest) {
+				return size() > maxCacheEntries;
+			}
+		});
+		this.parallel = parallel;
+		this.server = HttpServer.create(address, 0);
+		AtomicInteger threadNumber = new AtomicInteger();
+		this.pool = Executors.newFixedThreadPool(threads,
+				runnable -> new Thread(runnable, "decision-server-" + threadNumber.incrementAndGet()));
+		server.setExecutor(pool);
+		server.createContext("/decide", this::handleDecide);
+		server.createContext("/stats", this::handleStats);
+	}
+
+	public void start() {
+		server.start();
+	}
+
+	/* Stops accepting requests, waiting up to the given number of seconds for the ones being answered */
+	public void stop(int seconds) {
+		server.stop(seconds);
+		pool.shutdown();
+		try {
+			pool.awaitTermination(seconds, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/* Returns the port that the server is listening on, which is useful when it was started on port 0 */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	/* Answers a request for a decision. A request that can't be played is the client's error, and anything
+	 * else that goes wrong while finding the answer is the server's, which is reported to the client
+	 * rather than leaving it waiting. The exchange is always closed, even if the answer can't be sent. */
+	private void handleDecide(HttpExchange exchange) throws IOException {
+		long start = System.nanoTime();
+		requests.increment();
+		try {
+			String body;
+			int status = 200;
+			try {
+				body = decide(parseQuery(exchange.getRequestURI().getRawQuery()));
+			} catch (IllegalArgumentException e) {
+				status = 400;
+				body = error(e.getMessage());
+			} catch (RuntimeException e) {
+				status = 500;
+				body = error("Could not find the decision: " + e);
+			}
+			send(exchange, status, body);
+		} finally {
+			exchange.close();
+			latency.recordSince(start);
+		}
+	}
+
+	private void handleStats(HttpExchange exchange) throws IOException {
+		try {
+			send(exchange, 200, String.format("{\"requests\":%d,\"cacheHits\":%d,\"cached\":%d,"
+					+ "\"p50Nanos\":%d,\"p99Nanos\":%d}", requests.sum(), cacheHits.sum(), answers.size(),
+					latency.percentile(0.5), latency.percentile(0.99)));
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/* Returns a line of JSON giving the error with the given message */
+	private static String error(String message) {
+		return "{\"error\":\"" + String.valueOf(message).replace("\\", "/").replace("\"", "'") + "\"}";
+	}
+
+	private static void send(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = (body + "\n").getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	/* Returns the answer for the hand described by the given parameters as a line of JSON, throwing an
+	 * IllegalArgumentException if they do not describe a hand that can be played */
+	String decide(Map<String, String> params) {
+
+		int decks = Integer.parseInt(params.getOrDefault("decks", "6"));
+		if (decks < 1 || decks > MAX_DECKS) {
+			throw new IllegalArgumentException("decks must be from 1 to " + MAX_DECKS);
+		}
+		String[] playerCards = split(params.get("player"));
+		String[] dealerCards = split(params.get("dealer"));
+		if (playerCards.length < 2 || dealerCards.length != 1) {
+			throw new IllegalArgumentException("player needs at least two cards and dealer needs one");
+		}
+
+		// Takes every known card out of the shoe
+		Shoe cardsLeft = Shoe.full(decks);
+		int dealerIdx = removeCard(cardsLeft, dealerCards[0]);
+		for (String card : split(params.get("removed"))) {
+			removeCard(cardsLeft, card);
+		}
+
+		// Adds up the player's cards in the same way as the simulation, with an ace counting as 11 until
+		// that would take the total over 21
+		int total = 0;
+		boolean acePresent = false;
+		int[] playerIdxs = new int[playerCards.length];
+		for (int i = 0; i < playerCards.length; i++) {
+			playerIdxs[i] = removeCard(cardsLeft, playerCards[i]);
+			int value = BlackjackOptimization.idxToVal[playerIdxs[i]];
+			if (playerIdxs[i] == 1 && !acePresent) {
+				value = 11;
+				acePresent = true;
+			}
+			total += value;
+			if (total > 21 && acePresent) {
+				total -= 10;
+				acePresent = false;
+			}
+		}
+		if (total > 21) {
+			throw new IllegalArgumentException("The player has already busted");
+		}
+
+		boolean firstDecision = playerCards.length == 2;
+		boolean splittable = firstDecision && playerIdxs[0] == playerIdxs[1];
+		int dealer = dealerIdx == 1 ? 11 : BlackjackOptimization.idxToVal[dealerIdx];
+
+		Query query = new Query(cardsLeft.toArray(), total, acePresent, dealer, splittable ? playerIdxs[0] : -1,
+				firstDecision);
+		String answer = answers.get(query);
+		if (answer != null) {
+			cacheHits.increment();
+			return answer;
+		}
+
+		answer = evaluate(cardsLeft, total, acePresent, dealer, splittable ? playerIdxs[0] : -1, firstDecision);
+		answers.put(query, answer);
+		return answer;
+
+	}
+
+	/* Finds the decisions for a hand, where pairIdx is the index of the player's cards if they can split
+	 * them and -1 otherwise */
+	private String evaluate(Shoe cardsLeft, int total, boolean acePresent, int dealer, int pairIdx,
+			boolean firstDecision) {
+
+		// The dealer's probabilities are copied, as the array returned belongs to this thread's cache and
+		// could be reused by the evaluations below
+		double[] dealerProbs = BlackjackOptimization.getDealerProbs(dealer, cardsLeft, dealer == 11).clone();
+
+		Decision decision = new Decision();
+		if (!firstDecision) {
+			BlackjackOptimization.shouldHitAux(total, dealerProbs, acePresent, cardsLeft, decision);
+		} else if (parallel) {
+			BlackjackOptimization.shouldHitParallel(total, dealer, dealerProbs, acePresent, cardsLeft, decision);
+		} else {
+			BlackjackOptimization.shouldHit(total, dealer, dealerProbs, acePresent, cardsLeft, decision);
+		}
+
+		boolean split = false;
+		if (pairIdx >= 0) {
+			int card = pairIdx == 1 ? 11 : BlackjackOptimization.idxToVal[pairIdx];
+			split = parallel
+					? BlackjackOptimization.shouldSplitParallel(card, dealer, dealerProbs, cardsLeft, decision)
+					: BlackjackOptimization.shouldSplit(card, dealer, dealerProbs, cardsLeft, decision);
+		}
+
+		// The same order that the simulation checks the decisions in
+		String action = split ? "split" : decision.surrender ? "surrender" : decision.doubleDown ? "double"
+				: decision.hit ? "hit" : "stand";
+		return "{\"action\":\"" + action + "\",\"hit\":" + decision.hit + ",\"double\":" + decision.doubleDown
+				+ ",\"surrender\":" + decision.surrender + ",\"split\":" + split + ",\"winIfHit\":"
+				+ decision.winIfHit + ",\"winIfStand\":" + decision.winIfStand + ",\"winIfHitOnce\":"
+				+ decision.winIfHitOnce + "}";
+
+	}
+
+	/* Removes the given card from the shoe and returns its index */
+	private static int removeCard(Shoe cardsLeft, String card) {
+		int idx;
+		switch (card.toUpperCase()) {
+		case "A":
+		case "1":
+		case "11":
+			idx = 1;
+			break;
+		case "10":
+		case "J":
+		case "Q":
+		case "K":
+			idx = 0;
+			break;
+		default:
+			try {
+				idx = Integer.parseInt(card);
+			} catch (NumberFormatException e) {
+				idx = -1;
+			}
+			if (idx < 2 || idx > 9) {
+				throw new IllegalArgumentException("Unknown card " + card);
+			}
+		}
+		if (cardsLeft.count(idx) == 0) {
+			throw new IllegalArgumentException("There are no more " + card + "s in the shoe");
+		}
+		cardsLeft.remove(idx);
+		return idx;
+	}
+
+	private static String[] split(String list) {
+		return list == null || list.isEmpty() ? new String[0] : list.split(",");
+	}
+
+	static Map<String, String> parseQuery(String query) {
+		Map<String, String> params = new HashMap<>();
+		if (query != null) {
+			for (String pair : query.split("&")) {
+				int eq = pair.indexOf('=');
+				if (eq > 0) {
+					params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+							URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+				}
+			}
+		}
+		return params;
+	}
+
+	/* The key of an answer in the shared cache: the cards left and everything about the hand that changes
+	 * the answer */
+	private static final class Query {
+
+		private final int[] counts;
+		private final int total;
+		private final boolean acePresent;
+		private final int dealer;
+		private final int pairIdx;
+		private final boolean firstDecision;
+		private final int hash;
+
+		Query(int[] counts, int total, boolean acePresent, int dealer, int pairIdx, boolean firstDecision) {
+			this.counts = counts;
+			this.total = total;
+			this.acePresent = acePresent;
+			this.dealer = dealer;
+			this.pairIdx = pairIdx;
+			this.firstDecision = firstDecision;
+			this.hash = 31 * Arrays.hashCode(counts) + ((total << 1 | (acePresent ? 1 : 0)) * 31 + dealer) * 31
+					+ pairIdx * 2 + (firstDecision ? 1 : 0);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Query)) {
+				return false;
+			}
+			Query query = (Query) other;
+			return total == query.total && acePresent == query.acePresent && dealer == query.dealer
+					&& pairIdx == query.pairIdx && firstDecision == query.firstDecision
+					&& Arrays.equals(counts, query.counts);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+	}
+
+}
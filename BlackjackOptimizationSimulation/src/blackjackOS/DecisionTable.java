@@ -0,0 +1,298 @@
+package blackjackOS;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.IntStream;
+
+/* This class stores the player's decisions for every total, whether it is soft, and every dealer up card,
+ * found once by the methods in BlackjackOptimization, so that a simulation can look decisions up rather
+ * than running the full search for every one. This is what "table mode" uses, and it is much faster than
+ * solving every hand, at the cost of ignoring the exact cards left in the shoe.
+ * The decisions can optionally be refined by the true count, which is the Hi-Lo running count divided by
+ * the number of decks left. In that case, a separate set of decisions is built for each true count in a
+ * range, each one from a shoe which has had cards removed so that it has that true count.
+ * Each decision is one byte of flags. A table can be saved to a small binary file and loaded back so that
+ * it only has to be built once for each number of decks and set of rules. */
+public class DecisionTable {
+
+	// The flags that make up each decision. Hitting is whether the player should hit when they can no
+	// longer double, and is not affected by the other flags.
+	public static final byte HIT = 1;
+	public static final byte DOUBLE = 2;
+	public static final byte SURRENDER = 4;
+	public static final byte SPLIT = 8;
+
+	// The rows of the table are the hard totals from 0 to 21, then the soft totals from 0 to 21, and then
+	// the pairs, indexed by the index of their card value. Only some of these totals can actually occur,
+	// but keeping them all makes finding a row a single addition.
+	static final int SOFT_ROW = 22;
+	static final int PAIR_ROW = 44;
+	static final int ROWS = 54;
+
+	// Identifies the binary file format, which is "BJDT" followed by a version number. Version 3 stores the
+	// number of decks and the range of true counts as ints rather than bytes.
+	private static final int MAGIC = 0x424A4454;
+	private static final int VERSION = 3;
+
+	private final int decks;
+	private final int minCount;
+	private final int maxCount;
+
+	// The rules that the decisions were found under
+	private final Rules rules;
+
+	// The decisions, stored as [true count][row][dealer up card index]
+	private final byte[] actions;
+
+	private DecisionTable(int decks, int minCount, int maxCount, Rules rules, byte[] actions) {
+		this.decks = decks;
+		this.minCount = minCount;
+		this.maxCount = maxCount;
+		this.rules = rules;
+		this.actions = actions;
+	}
+
+	/* Builds a table for the given number of decks, with a separate set of decisions for every true count
+	 * from minCount to maxCount. Both can be 0 for a single set of decisions made from a full shoe. The
+	 * dealer up cards of each true count are built in parallel, under the rules set in BlackjackOptimization.
+	 * The true counts can be at most CardCounter.MAX_COUNT either way, which takes out every low card or
+	 * every high card from the shoe. */
+	public static DecisionTable build(int decks, int minCount, int maxCount) {
+
+		checkRange(decks, minCount, maxCount);
+
+		byte[] actions = new byte[(maxCount - minCount + 1) * ROWS * Shoe.CARD_TYPES];
+
+		for (int count = minCount; count <= maxCount; count++) {
+			Shoe shoe = shoeWithCount(decks, count);
+			int offset = (count - minCount) * ROWS * Shoe.CARD_TYPES;
+			IntStream.range(0, Shoe.CARD_TYPES).parallel()
+					.forEach(upIdx -> buildUpCard(actions, offset, shoe.copy(), upIdx));
+		}
+
+		return new DecisionTable(decks, minCount, maxCount, BlackjackOptimization.getRules(), actions);
+
+	}
+
+	/* Finds the decisions for every row against one dealer up card */
+	private static void buildUpCard(byte[] actions, int offset, Shoe shoe, int upIdx) {
+
+		int up = upIdx == 1 ? 11 : BlackjackOptimization.idxToVal[upIdx];
+		shoe.remove(upIdx);
+
+		// The dealer's probabilities for a full shoe, used when the table has no true counts, were already
+		// found when the optimization methods were loaded
+		double[] dealerProbs = BlackjackOptimization.findFullShoeDealerProbs(up, shoe);
+		if (dealerProbs == null) {
+			dealerProbs = BlackjackOptimization.getDealerProbs(up, shoe, 1, up == 11, new double[6]);
+		}
+		Decision decision = new Decision();
+
+		for (int total = 4; total <= 21; total++) {
+			actions[offset + total * Shoe.CARD_TYPES + upIdx] = solve(total, false, up, dealerProbs, shoe,
+					decision);
+		}
+		for (int total = 12; total <= 21; total++) {
+			actions[offset + (SOFT_ROW + total) * Shoe.CARD_TYPES + upIdx] = solve(total, true, up,
+					dealerProbs, shoe, decision);
+		}
+
+		// Pairs are decided in the same way as their total, with splitting considered as well. A pair of
+		// aces is a soft 12.
+		for (int pairIdx = 0; pairIdx < Shoe.CARD_TYPES; pairIdx++) {
+			int card = pairIdx == 1 ? 11 : BlackjackOptimization.idxToVal[pairIdx];
+			boolean soft = card == 11;
+			byte action = solve(soft ? 12 : 2 * card, soft, up, dealerProbs, shoe, decision);
+			if (BlackjackOptimization.shouldSplit(card, up, dealerProbs, shoe, decision)) {
+				action |= SPLIT;
+			}
+			actions[offset + (PAIR_ROW + pairIdx) * Shoe.CARD_TYPES + upIdx] = action;
+		}
+
+	}
+
+	/* Finds the flags for one total. shouldHit sets hitting to true whenever doubling is best, so whether
+	 * to hit after the first card is found by comparing the probabilities of winning directly. */
+	private static byte solve(int total, boolean soft, int up, double[] dealerProbs, Shoe shoe,
+			Decision decision) {
+		BlackjackOptimization.shouldHit(total, up, dealerProbs, soft, shoe, decision);
+		byte action = 0;
+		if (decision.winIfHit > decision.winIfStand) {
+			action |= HIT;
+		}
+		if (decision.doubleDown) {
+			action |= DOUBLE;
+		}
+		if (decision.surrender) {
+			action |= SURRENDER;
+		}
+		return action;
+	}
+
+	/* Throws an IllegalArgumentException unless there is at least one deck and the true counts are an
+	 * ordered range within CardCounter.MAX_COUNT either way */
+	private static void checkRange(int decks, int minCount, int maxCount) {
+		if (decks < 1) {
+			throw new IllegalArgumentException("A decision table needs at least one deck, not " + decks);
+		}
+		if (minCount > maxCount || minCount < -CardCounter.MAX_COUNT || maxCount > CardCounter.MAX_COUNT) {
+			throw new IllegalArgumentException("The true counts of a decision table must be from -"
+					+ CardCounter.MAX_COUNT + " to " + CardCounter.MAX_COUNT + ", not " + minCount + " to "
+					+ maxCount);
+		}
+	}
+
+	/* Returns a full shoe of the given number of decks with cards removed so that its Hi-Lo true count is
+	 * about the given count. For a positive count, low cards (2 through 6) are removed, and for a negative
+	 * count, high cards (tens and aces) are removed, spread evenly across the values. */
+	static Shoe shoeWithCount(int decks, int count) {
+		Shoe shoe = Shoe.full(decks);
+		int toRemove = Math.abs(count) * decks;
+		for (int i = 0; i < toRemove; i++) {
+			if (count > 0) {
+				shoe.remove(2 + i % 5);
+			} else {
+				// Tens make up four of every five high cards
+				shoe.remove(i % 5 == 4 ? 1 : 0);
+			}
+		}
+		return shoe;
+	}
+
+	/* Returns the Hi-Lo true count of a shoe, which is the count of the cards that have been removed from it
+	 * divided by the decks left, rounded to the nearest whole number. Low cards add one to the count when
+	 * removed, and high cards subtract one. A full shoe of any size has as many low cards as high cards, so
+	 * the running count is simply how many more high cards than low cards are left, and the shoe's size is
+	 * not needed. */
+	public static int trueCount(Shoe shoe) {
+		int lowLeft = 0;
+		for (int i = 2; i <= 6; i++) {
+			lowLeft += shoe.count(i);
+		}
+		int highLeft = shoe.count(0) + shoe.count(1);
+		int running = highLeft - lowLeft;
+		return (int) Math.round(running * 52.0 / shoe.total());
+	}
+
+	/* Returns the index of the set of decisions to use for a shoe, which is its true count limited to the
+	 * range of the table */
+	public int bucket(Shoe shoe) {
+		if (minCount == maxCount) {
+			return 0;
+		}
+		return Math.max(minCount, Math.min(maxCount, trueCount(shoe))) - minCount;
+	}
+
+	/* Returns the flags for the given total, whether it is soft, and the dealer's up card */
+	public byte lookup(int bucket, int total, boolean soft, int dealerUp) {
+		int row = soft ? SOFT_ROW + total : total;
+		return actions[(bucket * ROWS + row) * Shoe.CARD_TYPES + Shoe.indexOf(dealerUp)];
+	}
+
+	/* Returns whether the player should split a pair of cards with the given value */
+	public boolean shouldSplit(int bucket, int card, int dealerUp) {
+		int row = PAIR_ROW + Shoe.indexOf(card);
+		return (actions[(bucket * ROWS + row) * Shoe.CARD_TYPES + Shoe.indexOf(dealerUp)] & SPLIT) != 0;
+	}
+
+	/* Fills in the given decision from the table in the same way that shouldHit or, if this is not the
+	 * player's first decision, shouldHitAux would. The probabilities in the decision are left as they
+	 * are, as the table does not store them. */
+	public Decision decide(int bucket, int total, boolean soft, int dealerUp, boolean firstDecision,
+			Decision decision) {
+		byte action = lookup(bucket, total, soft, dealerUp);
+		decision.doubleDown = firstDecision && (action & DOUBLE) != 0;
+		decision.surrender = firstDecision && (action & SURRENDER) != 0;
+		decision.hit = (action & HIT) != 0 || decision.doubleDown;
+		return decision;
+	}
+
+	public int getDecks() {
+		return decks;
+	}
+
+	public Rules getRules() {
+		return rules;
+	}
+
+	/* Writes the table to a file */
+	public void save(Path path) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+			out.writeInt(MAGIC);
+			out.writeByte(VERSION);
+			out.writeInt(decks);
+			out.writeInt(minCount);
+			out.writeInt(maxCount);
+			out.writeUTF(rules.toString());
+			out.write(actions);
+		}
+	}
+
+	/* Reads a table from a file written by save. A decision table saved in another version of the format is
+	 * rejected with a VersionException, and any other file, including one that is cut short or whose decks
+	 * or true counts are out of range, with an IOException. */
+	public static DecisionTable load(Path path) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+			if (in.readInt() != MAGIC) {
+				throw new IOException(path + " is not a decision table");
+			}
+			int version = in.readByte();
+			if (version != VERSION) {
+				throw new VersionException(path + " is a decision table of version " + version + " rather than "
+						+ VERSION);
+			}
+			int decks = in.readInt();
+			int minCount = in.readInt();
+			int maxCount = in.readInt();
+			try {
+				checkRange(decks, minCount, maxCount);
+			} catch (IllegalArgumentException e) {
+				throw new IOException(path + " is not a valid decision table: " + e.getMessage(), e);
+			}
+			Rules rules = Rules.parse(in.readUTF());
+			byte[] actions = new byte[(maxCount - minCount + 1) * ROWS * Shoe.CARD_TYPES];
+			in.readFully(actions);
+			return new DecisionTable(decks, minCount, maxCount, rules, actions);
+		}
+	}
+
+	/* Loads the table from the given file if it was built for the same decks, true counts, and rules, or
+	 * otherwise builds it and saves it to the file so that the next run can load it. Only a table saved in
+	 * another version of the format is built again; a file that can't be read, or that isn't a whole
+	 * decision table, is left as it is and the error is thrown. */
+	public static DecisionTable loadOrBuild(Path path, int decks, int minCount, int maxCount) throws IOException {
+		if (Files.exists(path)) {
+			DecisionTable table;
+			try {
+				table = load(path);
+			} catch (VersionException e) {
+				table = null;
+			}
+			if (table != null && table.decks == decks && table.minCount == minCount && table.maxCount == maxCount
+					&& table.rules.equals(BlackjackOptimization.getRules())) {
+				return table;
+			}
+		}
+		DecisionTable table = build(decks, minCount, maxCount);
+		table.save(path);
+		return table;
+	}
+
+	/* Thrown by load for a decision table saved in another version of the format, which loadOrBuild builds
+	 * again */
+	public static class VersionException extends IOException {
+
+		private static final long serialVersionUID = 1L;
+
+		public VersionException(String message) {
+			super(message);
+		}
+
+	}
+
+}
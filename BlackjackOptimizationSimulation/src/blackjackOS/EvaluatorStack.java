@@ -0,0 +1,39 @@
+package blackjackOS;
+
+/* This class holds the frames used by the iterative versions of getDealerProbs and getPlayerProbs in
+ * BlackjackOptimization, which walk the same draw trees as the recursive versions but keep the state of
+ * each level in these arrays rather than on the call stack. Each frame is one level of the draw tree: the
+ * hand's total, whether it has an ace counting as 11, the probability of reaching it divided by the cards
+ * it could draw from, and the index of the card value it is looking at next. The dealer's frames also
+ * store which card value, if any, was ruled out by peeking for Blackjack.
+ * The player's frames are split into one region for each depth that an evaluation of whether to hit can be
+ * nested at, so a nested evaluation never writes over the frames of the walk it was started from. Each
+ * thread has its own stack, so nothing in it is ever created while a decision is being made. */
+class EvaluatorStack {
+
+	// The most levels that a draw tree can have. Every card drawn adds at least 1 to the total, and both
+	// the dealer and the player stop drawing before their total can pass 21, so this is never reached.
+	static final int MAX_FRAMES = 24;
+
+	final int[] dealerTotals = new int[MAX_FRAMES];
+	final boolean[] dealerAces = new boolean[MAX_FRAMES];
+	final double[] dealerTotalProbs = new double[MAX_FRAMES];
+	final int[] dealerIdxs = new int[MAX_FRAMES];
+	final int[] dealerRuledOut = new int[MAX_FRAMES];
+
+	// The frames of the walk at each depth start at depth * MAX_FRAMES
+	final int[] playerTotals;
+	final boolean[] playerAces;
+	final double[] playerTotalProbs;
+	final int[] playerIdxs;
+
+	/* Constructor, which makes room for walks nested up to the given depth */
+	EvaluatorStack(int maxDepth) {
+		int size = (maxDepth + 1) * MAX_FRAMES;
+		this.playerTotals = new int[size];
+		this.playerAces = new boolean[size];
+		this.playerTotalProbs = new double[size];
+		this.playerIdxs = new int[size];
+	}
+
+}
@@ -0,0 +1,115 @@
+package blackjackOS;
+
+import java.nio.ByteBuffer;
+
+/* This class stores the details of one game while it is being simulated, so that they can be written out
+ * as a fixed-width record by a GameEventSink and read back by a GameEventReader. Each simulation state has
+ * one of these which is filled in again for every game.
+ * A file of records starts with a HEADER_SIZE byte header, the int MAGIC followed by the int VERSION, so
+ * that a file written in another layout is rejected rather than misread. Version 2 made room for every
+ * hand of a split, up to the most that the rules allow, and stores the amount won exactly, where version
+ * 1 had two hand totals and the amount in tenths of a wager, which could not hold every payout.
+ * Every record after the header is RECORD_SIZE bytes long, laid out as follows:
+ *   0   long   the index of the game among the games played by its thread
+ *   8   double the amount the player won, relative to their initial wager
+ *   16  byte   the index of the thread that played the game
+ *   17  byte   the player's first card, then the dealer's first card, the player's second card, and the
+ *              dealer's second card, in the order they were dealt, from 1 (an ace) to 10
+ *   21  byte   the number of hands the player finished with, which is more than 1 if they split
+ *   22  byte[] the final total of each of up to MAX_HANDS hands, with 0 for the hands they didn't have
+ *   26  byte   the dealer's final total
+ *   27  byte   the index of the average value of the cards left at the start of the game
+ *   28  byte   the number of actions
+ *   29  byte[] up to MAX_ACTIONS actions, each one of the characters below */
+public class GameEvent {
+
+	public static final int MAGIC = 0x424A4745;
+	public static final int VERSION = 2;
+	public static final int HEADER_SIZE = 8;
+
+	public static final int RECORD_SIZE = 48;
+	public static final int MAX_HANDS = Rules.MAX_SPLIT_HANDS;
+	public static final int MAX_ACTIONS = 19;
+
+	// The actions that can be recorded. NEXT_HAND separates the actions of each hand after a split from
+	// those of the hand before it.
+	public static final byte HIT = 'H';
+	public static final byte STAND = 'S';
+	public static final byte DOUBLE = 'D';
+	public static final byte SPLIT = 'P';
+	public static final byte SURRENDER = 'R';
+	public static final byte NEXT_HAND = '|';
+
+	long game;
+	int worker;
+	final byte[] cards = new byte[4];
+	final byte[] actions = new byte[MAX_ACTIONS];
+	int actionCount;
+	final int[] handTotals = new int[MAX_HANDS];
+	int hands;
+	int dealerTotal;
+	int shoeIndex;
+	double payout;
+
+	/* Clears out the details of the last game so that a new one can be recorded */
+	void start(long game, int shoeIndex) {
+		this.game = game;
+		this.shoeIndex = shoeIndex;
+		actionCount = 0;
+		hands = 0;
+		dealerTotal = 0;
+		payout = 0;
+	}
+
+	/* Records the player's final total of a game in which they didn't split */
+	void hand(int total) {
+		handTotals[0] = total;
+		hands = 1;
+	}
+
+	/* Records the final totals of the player's hands after a split */
+	void hands(int[] totals, int count) {
+		System.arraycopy(totals, 0, handTotals, 0, count);
+		hands = count;
+	}
+
+	/* Records the four cards dealt at the start of the game. Aces may be given as either 1 or 11. */
+	void deal(int playerFirst, int dealerFirst, int playerSecond, int dealerSecond) {
+		cards[0] = card(playerFirst);
+		cards[1] = card(dealerFirst);
+		cards[2] = card(playerSecond);
+		cards[3] = card(dealerSecond);
+	}
+
+	private static byte card(int value) {
+		return (byte) (value == 11 ? 1 : value);
+	}
+
+	/* Records an action. Any actions after the first MAX_ACTIONS are dropped, which can only happen in
+	 * hands with a large number of small cards. */
+	void action(byte action) {
+		if (actionCount < MAX_ACTIONS) {
+			actions[actionCount++] = action;
+		}
+	}
+
+	/* Writes this game as a record at the current position of the buffer */
+	void writeTo(ByteBuffer buffer) {
+		buffer.putLong(game);
+		buffer.putDouble(payout);
+		buffer.put((byte) worker);
+		buffer.put(cards);
+		buffer.put((byte) hands);
+		for (int i = 0; i < MAX_HANDS; i++) {
+			buffer.put((byte) (i < hands ? handTotals[i] : 0));
+		}
+		buffer.put((byte) dealerTotal);
+		buffer.put((byte) shoeIndex);
+		buffer.put((byte) actionCount);
+		buffer.put(actions, 0, actionCount);
+		for (int i = actionCount; i < MAX_ACTIONS; i++) {
+			buffer.put((byte) 0);
+		}
+	}
+
+}
@@ -0,0 +1,171 @@
+package blackjackOS;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/* This class reads back the records written by a GameEventSink. The file is memory-mapped a large piece
+ * at a time, and the reader moves through it one record at a time, with each getter reading its field
+ * directly from the mapped file, so no objects are created for the records and files far larger than
+ * memory can be read. A file that doesn't start with the header of the current version is rejected.
+ * A reader is used like this:
+ *     try (GameEventReader reader = new GameEventReader(path)) {
+ *         while (reader.next()) {
+ *             total += reader.payout();
+ *         }
+ *     }
+ * Running its main method with the path of a file prints a summary of the games in it. */
+public class GameEventReader implements Closeable {
+
+	// The number of records mapped at once, which keeps each mapping under the 2 GB limit of a buffer
+	private static final long MAP_RECORDS = 1 << 24;
+
+	private final FileChannel channel;
+	private final long records;
+
+	private MappedByteBuffer map;
+
+	// The index of the first record in the current mapping, and of the current record in the file
+	private long mapStart;
+	private long current = -1;
+
+	// The position of the current record in the current mapping
+	private int offset;
+
+	/* Constructor */
+	public GameEventReader(Path path) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			checkHeader(channel, path);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		this.records = (channel.size() - GameEvent.HEADER_SIZE) / GameEvent.RECORD_SIZE;
+	}
+
+	/* Throws an IOException unless the file open in the given channel starts with the header of the
+	 * current version of the format */
+	static void checkHeader(FileChannel channel, Path path) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(GameEvent.HEADER_SIZE);
+		while (header.hasRemaining()) {
+			if (channel.read(header, header.position()) < 0) {
+				break;
+			}
+		}
+		header.flip();
+		if (header.remaining() < GameEvent.HEADER_SIZE || header.getInt() != GameEvent.MAGIC) {
+			throw new IOException(path + " is not a file of game records");
+		}
+		int version = header.getInt();
+		if (version != GameEvent.VERSION) {
+			throw new IOException(path + " holds game records of version " + version + " rather than "
+					+ GameEvent.VERSION);
+		}
+	}
+
+	/* Returns the number of records in the file */
+	public long size() {
+		return records;
+	}
+
+	/* Moves on to the next record, returning false if there are none left */
+	public boolean next() throws IOException {
+		current++;
+		if (current >= records) {
+			return false;
+		}
+		if (map == null || current >= mapStart + MAP_RECORDS) {
+			mapStart = current;
+			long count = Math.min(MAP_RECORDS, records - current);
+			long position = GameEvent.HEADER_SIZE + mapStart * GameEvent.RECORD_SIZE;
+			map = channel.map(FileChannel.MapMode.READ_ONLY, position, count * GameEvent.RECORD_SIZE);
+		}
+		offset = (int) (current - mapStart) * GameEvent.RECORD_SIZE;
+		return true;
+	}
+
+	public long game() {
+		return map.getLong(offset);
+	}
+
+	/* Returns the amount the player won, relative to their initial wager */
+	public double payout() {
+		return map.getDouble(offset + 8);
+	}
+
+	public int worker() {
+		return map.get(offset + 16);
+	}
+
+	/* Returns one of the four cards dealt at the start of the game, in the order they were dealt: the
+	 * player's first card, the dealer's first card, the player's second card, and the dealer's second */
+	public int card(int i) {
+		return map.get(offset + 17 + i);
+	}
+
+	/* Returns the number of hands the player finished with, which is more than 1 if they split */
+	public int hands() {
+		return map.get(offset + 21);
+	}
+
+	/* Returns the final total of one of the player's hands, in the order they were played, or 0 for a hand
+	 * they didn't have */
+	public int handTotal(int i) {
+		return map.get(offset + 22 + i);
+	}
+
+	/* Returns the player's final total, or the final total of their first hand if they split */
+	public int playerTotal() {
+		return handTotal(0);
+	}
+
+	public int dealerTotal() {
+		return map.get(offset + 26);
+	}
+
+	public int shoeIndex() {
+		return map.get(offset + 27);
+	}
+
+	public int actionCount() {
+		return map.get(offset + 28);
+	}
+
+	/* Returns one of the actions, which is one of the action constants in GameEvent */
+	public byte action(int i) {
+		return map.get(offset + 29 + i);
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/* Prints the number of games in a file, the player's average result, and how often each action was
+	 * taken */
+	public static void main(String[] args) throws IOException {
+		try (GameEventReader reader = new GameEventReader(Path.of(args[0]))) {
+			double total = 0;
+			long[] actionCounts = new long[128];
+			while (reader.next()) {
+				total += reader.payout();
+				for (int i = 0; i < reader.actionCount(); i++) {
+					actionCounts[reader.action(i)]++;
+				}
+			}
+			System.out.println("Games: " + reader.size());
+			System.out.println("Average result: " + (reader.size() == 0 ? 0 : total / reader.size()));
+			byte[] actions = { GameEvent.HIT, GameEvent.STAND, GameEvent.DOUBLE, GameEvent.SPLIT,
+					GameEvent.SURRENDER };
+			for (byte action : actions) {
+				System.out.println((char) action + ": " + actionCounts[action]);
+			}
+		}
+	}
+
+}
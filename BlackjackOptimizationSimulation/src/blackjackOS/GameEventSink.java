@@ -0,0 +1,110 @@
+package blackjackOS;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/* This class streams the record of every simulated game to a file, in the format described by GameEvent,
+ * so that the games can be analyzed afterwards without the simulator having to keep them in memory. Each
+ * thread of a simulation writes through its own Writer, which collects records in a direct buffer and
+ * writes the whole buffer to the file once it is full. The file channel writes each buffer in one piece,
+ * so the records of different threads are never mixed together, although their order in the file depends
+ * on when each thread's buffer filled up. The file starts with the header described by GameEvent. */
+public class GameEventSink implements Closeable {
+
+	// The size of each writer's buffer, which is a whole number of records
+	private static final int BUFFER_RECORDS = 4096;
+
+	private final FileChannel channel;
+
+	// The number of writers created so far, which gives each one a different index
+	private int writers;
+
+	/* Constructor, which creates the file or empties it if it already exists */
+	public GameEventSink(Path path) throws IOException {
+		this(path, 0);
+	}
+
+	/* Constructor for a run that is resuming from a checkpoint, which keeps the first given number of bytes
+	 * of the file, the header and the records written before the checkpoint, and writes after them. A file
+	 * kept from a checkpoint must have been written in the current version of the format. */
+	public GameEventSink(Path path, long keep) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try {
+			if (keep < GameEvent.HEADER_SIZE) {
+				channel.truncate(0);
+				ByteBuffer header = ByteBuffer.allocate(GameEvent.HEADER_SIZE);
+				header.putInt(GameEvent.MAGIC).putInt(GameEvent.VERSION).flip();
+				write(header);
+			} else {
+				GameEventReader.checkHeader(channel, path);
+				channel.truncate(keep);
+			}
+			channel.position(channel.size());
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/* Returns the number of bytes written to the file so far, including the header and only the records
+	 * that writers have flushed */
+	public long size() throws IOException {
+		return channel.size();
+	}
+
+	/* Returns a new writer for one thread to use */
+	public synchronized Writer writer() {
+		return new Writer(writers++);
+	}
+
+	private void write(ByteBuffer buffer) {
+		try {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/* Closes the file. Every writer must be flushed first. */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/* Collects the records of one thread and writes them to the file in large blocks */
+	public class Writer {
+
+		private final int index;
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_RECORDS * GameEvent.RECORD_SIZE);
+
+		private Writer(int index) {
+			this.index = index;
+		}
+
+		/* Adds the record of a game, writing the buffer to the file first if it is full */
+		public void write(GameEvent event) {
+			if (buffer.remaining() < GameEvent.RECORD_SIZE) {
+				flush();
+			}
+			event.worker = index;
+			event.writeTo(buffer);
+		}
+
+		/* Writes every record collected so far to the file */
+		public void flush() {
+			buffer.flip();
+			GameEventSink.this.write(buffer);
+			buffer.clear();
+		}
+
+	}
+
+}
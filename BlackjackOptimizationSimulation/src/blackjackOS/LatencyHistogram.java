@@ -0,0 +1,90 @@
+package blackjackOS;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/* This class counts how many timed calls took each amount of time, in the same way as an HDR histogram:
+ * the times are split into ranges that double in size, and each range is split into SUB_BUCKETS buckets
+ * of equal width, so the top of every time's bucket is within an eighth, 12.5 percent, of it no matter how
+ * large it is, in a small fixed array. Any number of threads can record into the same histogram.
+ * Recording is a few bit operations and one atomic increment, but the simulation still only times a sample
+ * of its calls. */
+public class LatencyHistogram {
+
+	// The number of buckets that each range of times is split into, which must be a power of two
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	// Enough buckets for any time that fits in a long
+	static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+	/* Records one call which took the given number of nanoseconds */
+	public void record(long nanos) {
+		counts.incrementAndGet(bucket(Math.max(0, nanos)));
+	}
+
+	/* Records the time since the given start, as returned by System.nanoTime, and returns the current time
+	 * so that the next call can be timed from it */
+	public long recordSince(long start) {
+		long now = System.nanoTime();
+		record(now - start);
+		return now;
+	}
+
+	/* Returns the number of calls recorded */
+	public long count() {
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			total += counts.get(i);
+		}
+		return total;
+	}
+
+	/* Returns the time, in nanoseconds, that the given fraction of the recorded calls took no longer than,
+	 * such as 0.99 for the 99th percentile. The time returned is the top of the bucket it falls in. */
+	public long percentile(double fraction) {
+		long total = count();
+		if (total == 0) {
+			return 0;
+		}
+		long target = Math.max(1, (long) Math.ceil(fraction * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= target) {
+				return upperBound(i);
+			}
+		}
+		return upperBound(BUCKETS - 1);
+	}
+
+	/* Removes every recorded call */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+	}
+
+	/* Times below SUB_BUCKETS each get their own bucket. Above that, the highest bit of the time picks the
+	 * range, and the SUB_BUCKET_BITS bits below it pick the bucket within the range. */
+	static int bucket(long nanos) {
+		if (nanos < SUB_BUCKETS) {
+			return (int) nanos;
+		}
+		int highest = 63 - Long.numberOfLeadingZeros(nanos);
+		int shift = highest - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKETS + (int) ((nanos >>> shift) & (SUB_BUCKETS - 1));
+	}
+
+	/* Returns the largest time that goes in the given bucket */
+	static long upperBound(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKETS - 1;
+		long low = ((long) (SUB_BUCKETS + bucket % SUB_BUCKETS)) << shift;
+		return low + (1L << shift) - 1;
+	}
+
+}
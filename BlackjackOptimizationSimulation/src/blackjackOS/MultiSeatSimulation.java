@@ -0,0 +1,632 @@
+package blackjackOS;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/* This class simulates a full table, where from 1 to MAX_SEATS players sit at the same table and are dealt
+ * from the same shoe, rather than one player having the dealer to themselves. Each round is dealt as it is
+ * at a casino: one card to each seat in order, the dealer's up card, a second card to each seat, and the
+ * dealer's hole card. The seats then play their hands in order, and the dealer plays their hand once, after
+ * every seat has finished, as long as any seat still has a hand that the dealer's total matters to.
+ * Every seat has its own strategy. An optimizer seat makes every decision with the methods in
+ * BlackjackOptimization from the cards it has seen, a table seat looks its decisions up in the decision
+ * table given to the simulation, by the true count at the start of the round, and a basic seat looks them
+ * up in a table built for a full shoe, which is basic strategy. A table with one optimizer seat plays exactly
+ * the same games as BlackjackSimulation does with a generator seeded the same way.
+ * The first decisions of the seats are made together once the round has been dealt, as every seat has
+ * seen the same cards at that point: the dealer's probabilities are found once for the round, and a hand
+ * that more than one optimizer seat holds is only solved once. A seat's later decisions, after it has
+ * drawn a card or split, are made from the cards left at that time, which includes the cards drawn by the
+ * seats before it.
+ * The games of each seat are counted on their own, and every seat's game is also counted in the totals of
+ * the whole table. The seats of a round share the dealer's hand, so their games are not independent, and
+ * the confidence interval of the whole table is narrower than it should be; each seat's own interval is
+ * not affected. Recording games, counting cards, checkpoints, and stopping early are only supported
+ * with a single player, through BlackjackSimulation. */
+public class MultiSeatSimulation {
+
+	// The most seats that a table has
+	public static final int MAX_SEATS = 7;
+
+	// The shoe is always reshuffled before it has fewer than this many cards for each seat and the dealer,
+	// however low the reshuffle ratio is, and the shoe must hold that many for every seat. A round that
+	// still runs out, such as one with many splits, has the cards of the earlier rounds shuffled back in.
+	private static final int CARDS_PER_HAND = 10;
+
+	/* How a seat decides what to do with its hands */
+	public enum Strategy {
+		OPTIMIZER, TABLE, BASIC;
+
+		/* Returns the strategy with the given name, which is "optimizer", "table", or "basic" */
+		public static Strategy parse(String name) {
+			try {
+				return valueOf(name.trim().toUpperCase());
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("Unknown seat strategy " + name);
+			}
+		}
+	}
+
+	/* Simulates the given number of rounds at a table with a seat for each of the given strategies,
+	 * splitting the rounds as evenly as possible across the given number of threads in the same way as
+	 * BlackjackSimulation.simulateGames, with every thread dealing from its own shoe. The table is used by
+	 * the table seats, and can be null if there are none. The result counts every seat's game in each
+	 * round, and holds the result of each seat as well. */
+	public static SimulationResult simulateRounds(long rounds, int decks, double reshuffleRatio, int threads,
+			CardRandom random, Strategy[] seats, DecisionTable table) {
+
+		if (seats.length < 1 || seats.length > MAX_SEATS) {
+			throw new IllegalArgumentException("A table has 1 to " + MAX_SEATS + " seats");
+		}
+		if (CARDS_PER_HAND * (seats.length + 1) > decks * 52) {
+			throw new IllegalArgumentException("A table with " + decks + (decks == 1 ? " deck" : " decks")
+					+ " has at most " + (decks * 52 / CARDS_PER_HAND - 1) + " seats");
+		}
+		boolean basicSeats = false;
+		for (Strategy seat : seats) {
+			if (seat == Strategy.TABLE && table == null) {
+				throw new IllegalArgumentException("A table seat needs a decision table to look decisions up in");
+			}
+			basicSeats |= seat == Strategy.BASIC;
+		}
+
+		// Basic strategy is a decision table with a single set of decisions, made from a full shoe
+		DecisionTable basic = basicSeats ? DecisionTable.build(decks, 0, 0) : null;
+
+		// Stores the time at the start of the simulation
+		long startTime = System.currentTimeMillis();
+
+		List<TableState> states = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			states.add(new TableState(decks, reshuffleRatio, threads == 1 ? random : random.split(), seats, table,
+					basic));
+		}
+
+		TableState totals;
+		if (threads == 1) {
+			totals = states.get(0);
+			playRounds(rounds, totals);
+		} else {
+			ExecutorService pool = Executors.newFixedThreadPool(threads);
+			try {
+				List<Callable<TableState>> workers = new ArrayList<>();
+				for (int t = 0; t < threads; t++) {
+					// The first (rounds % threads) threads play one extra round
+					long workerRounds = rounds / threads + (t < rounds % threads ? 1 : 0);
+					TableState state = states.get(t);
+					workers.add(() -> {
+						playRounds(workerRounds, state);
+						return state;
+					});
+				}
+				totals = new TableState(decks, reshuffleRatio, random, seats, table, basic);
+				for (Future<TableState> worker : pool.invokeAll(workers)) {
+					totals.merge(worker.get());
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("Simulation was interrupted", e);
+			} catch (ExecutionException e) {
+				throw new RuntimeException("Simulation failed", e.getCause());
+			} finally {
+				pool.shutdown();
+			}
+		}
+
+		double elapsedSeconds = (double) (System.currentTimeMillis() - startTime) / 1000;
+
+		// The table's totals are every seat's games added together
+		OutcomeHistogram outcomes = new OutcomeHistogram(totals.rules);
+		double difference = 0;
+		for (int seat = 0; seat < seats.length; seat++) {
+			outcomes.merge(totals.outcomes[seat]);
+			difference += totals.difference[seat];
+		}
+		SimulationResult result = new SimulationResult(totals.rounds * seats.length, decks, outcomes,
+				elapsedSeconds, difference, reshuffleRatio);
+		result.rounds = totals.rounds;
+		result.dealerCacheHits = totals.dealerCacheHits;
+		result.dealerCacheMisses = totals.dealerCacheMisses;
+		result.seatResults = new SimulationResult[seats.length];
+		for (int seat = 0; seat < seats.length; seat++) {
+			SimulationResult seatResult = new SimulationResult(totals.rounds, decks, totals.outcomes[seat],
+					elapsedSeconds, totals.difference[seat], reshuffleRatio);
+			seatResult.rounds = totals.rounds;
+			seatResult.strategy = seats[seat].name().toLowerCase();
+			result.seatResults[seat] = seatResult;
+		}
+		return result;
+
+	}
+
+	/* Plays the given number of rounds against the shoe of the given state, adding the result of every
+	 * seat's game to the state's totals */
+	static void playRounds(long rounds, TableState state) {
+
+		Shoe trueCardsLeft = state.trueCardsLeft;
+		// The cards left according to the players, who have not seen the dealer's hole card
+		Shoe cardsLeft = state.cardsLeft;
+		Rules rules = state.rules;
+		Strategy[] seats = state.seats;
+		int[] cards = state.cards;
+		byte[] actions = state.actions;
+
+		double blackjackPayout = rules.blackjackPayout();
+		boolean blackjackEndsRound = rules.dealerPeeks() && rules.surrender() != Rules.Surrender.EARLY;
+
+		// Used to find how many of the dealer cache lookups made by these rounds were hits
+		DealerProbsCache cache = BlackjackOptimization.dealerCache.get();
+		long startHits = cache.getHits();
+		long startMisses = cache.getMisses();
+
+		SimulationMetrics.Publisher publisher = SimulationMetrics.INSTANCE.publisher();
+		long published = 0;
+
+		for (long r = 0; r < rounds; r++) {
+
+			if (r > 0 && (r & (SimulationMetrics.PUBLISH_INTERVAL - 1)) == 0) {
+				publisher.publish((r - published) * seats.length);
+				published = r;
+			}
+
+			if ((double) trueCardsLeft.total() < state.cardThreshold) {
+				trueCardsLeft.copyFrom(state.cardsAtStart);
+			}
+			Arrays.fill(state.inPlay, 0);
+			state.holeIdx = -1;
+			if (state.table != null) {
+				state.bucket = state.table.bucket(trueCardsLeft);
+			}
+
+			// Deals one card to each seat, the dealer's up card, a second card to each seat, and the hole
+			// card, in that order. The cards are kept as they are drawn, with 1 for an ace.
+			for (int seat = 0; seat < seats.length; seat++) {
+				cards[2 * seat] = state.deal();
+			}
+			int dealerUp = state.deal();
+			for (int seat = 0; seat < seats.length; seat++) {
+				cards[2 * seat + 1] = state.deal();
+			}
+			cardsLeft.copyFrom(trueCardsLeft);
+			int hole = state.deal();
+			state.holeIdx = Shoe.indexOf(hole);
+
+			// The dealer's up card counts an ace as 11, which is how the optimization methods take it
+			boolean dealerHasAce = dealerUp == 1 || hole == 1;
+			if (dealerUp == 1) {
+				dealerUp = 11;
+			}
+			int dealerTotal = dealerUp + (hole == 1 && dealerUp != 11 ? 11 : hole);
+			boolean dealerBlackjack = dealerTotal == 21;
+
+			decideFirst(state, dealerUp);
+
+			// Whether any seat has a hand that is settled against the dealer's final total
+			boolean anyLive = false;
+
+			for (int seat = 0; seat < seats.length; seat++) {
+				state.hands[seat] = 0;
+				int first = cards[2 * seat];
+				int second = cards[2 * seat + 1];
+				boolean playerBlackjack = first + second == 11 && (first == 1 || second == 1);
+				byte action = actions[seat];
+
+				// A Blackjack on either side settles the seat straight away, as does the dealer's when it
+				// is found before the players decide. If it is only found afterwards, the seat loses the
+				// bets that its first decision put up, in the same way as with a single player.
+				if (dealerBlackjack && (blackjackEndsRound || playerBlackjack)) {
+					state.settle(seat, playerBlackjack ? 0 : -1);
+					continue;
+				}
+				if (playerBlackjack) {
+					state.settle(seat, blackjackPayout);
+					continue;
+				}
+				if (dealerBlackjack) {
+					double result = -1;
+					if ((action & DecisionTable.SPLIT) != 0) {
+						result = rules.dealerPeeks() ? -1 : -2;
+					} else if ((action & DecisionTable.SURRENDER) != 0 && rules.surrender() == Rules.Surrender.EARLY) {
+						result = -0.5;
+					} else if ((action & DecisionTable.DOUBLE) != 0 && !rules.dealerPeeks()) {
+						result = -2;
+					}
+					state.settle(seat, result);
+					continue;
+				}
+
+				if ((action & DecisionTable.SPLIT) != 0) {
+					anyLive |= playSplit(state, seat, first == 1 ? 11 : first, dealerUp);
+				} else if ((action & DecisionTable.SURRENDER) != 0) {
+					state.settle(seat, -0.5);
+				} else {
+					anyLive |= playHand(state, seat, first, second, action, dealerUp);
+				}
+			}
+
+			// The dealer only plays their hand if it can make a difference to some seat
+			if (anyLive) {
+				while (rules.dealerHits(dealerTotal, dealerHasAce)) {
+					int nextCard = state.deal();
+					if (nextCard == 1 && !dealerHasAce) {
+						dealerTotal += 11;
+						dealerHasAce = true;
+					} else {
+						dealerTotal += nextCard;
+					}
+					// An ace that would bust the dealer counts as 1 rather than 11
+					if (dealerTotal > 21 && dealerHasAce) {
+						dealerTotal -= 10;
+						dealerHasAce = false;
+					}
+				}
+			}
+
+			// Settles every hand that was played out against the dealer's total
+			for (int seat = 0; seat < seats.length; seat++) {
+				if (state.hands[seat] == 0) {
+					continue;
+				}
+				double result = 0;
+				for (int hand = 0; hand < state.hands[seat]; hand++) {
+					int total = state.handTotals[seat][hand];
+					int stake = state.handDoubled[seat][hand] ? 2 : 1;
+					if (total > 21 || (dealerTotal <= 21 && total < dealerTotal)) {
+						result -= stake;
+					} else if (dealerTotal > 21 || total > dealerTotal) {
+						result += stake;
+					}
+				}
+				state.settle(seat, result);
+			}
+
+		}
+
+		state.rounds += rounds;
+		state.dealerCacheHits += cache.getHits() - startHits;
+		state.dealerCacheMisses += cache.getMisses() - startMisses;
+		publisher.publish((rounds - published) * seats.length);
+
+	}
+
+	/* Makes the first decision of every seat for the round that was just dealt, filling in the flags of
+	 * each one in the same form as the decision table. All of these are made from the same cards left, so
+	 * the dealer's probabilities are only found once, and only if an optimizer seat needs them, and a hand
+	 * that the optimizer has already solved this round is not solved again. */
+	private static void decideFirst(TableState state, int dealerUp) {
+
+		Shoe cardsLeft = state.cardsLeft;
+		Decision decision = state.decision;
+		double[] dealerProbs = null;
+		// Marks the hands solved during this round, without having to clear the ones from the last round
+		long round = ++state.decisionRound;
+
+		for (int seat = 0; seat < state.seats.length; seat++) {
+			int first = state.cards[2 * seat];
+			int second = state.cards[2 * seat + 1];
+			boolean soft = first == 1 || second == 1;
+			int total = first + second + (soft ? 10 : 0);
+			boolean pair = first == second;
+			int card = first == 1 ? 11 : first;
+
+			byte action;
+			switch (state.seats[seat]) {
+			case OPTIMIZER:
+				int row = pair ? DecisionTable.PAIR_ROW + Shoe.indexOf(card)
+						: soft ? DecisionTable.SOFT_ROW + total : total;
+				if (state.solvedRound[row] != round) {
+					if (dealerProbs == null) {
+						dealerProbs = BlackjackOptimization.getDealerProbs(dealerUp, cardsLeft, dealerUp == 11);
+					}
+					BlackjackOptimization.shouldHit(total, dealerUp, dealerProbs, soft, cardsLeft, decision);
+					byte solved = 0;
+					if (decision.hit) {
+						solved |= DecisionTable.HIT;
+					}
+					if (decision.doubleDown) {
+						solved |= DecisionTable.DOUBLE;
+					}
+					if (decision.surrender) {
+						solved |= DecisionTable.SURRENDER;
+					}
+					if (pair && BlackjackOptimization.shouldSplit(card, dealerUp, dealerProbs, cardsLeft, decision)) {
+						solved |= DecisionTable.SPLIT;
+					}
+					state.solved[row] = solved;
+					state.solvedRound[row] = round;
+				}
+				action = state.solved[row];
+				break;
+			case TABLE:
+				action = lookup(state.table, state.bucket, total, soft, pair, card, dealerUp);
+				break;
+			default:
+				action = lookup(state.basic, 0, total, soft, pair, card, dealerUp);
+				break;
+			}
+			state.actions[seat] = action;
+		}
+
+	}
+
+	/* Returns the flags of the first decision for a hand from a decision table */
+	private static byte lookup(DecisionTable table, int bucket, int total, boolean soft, boolean pair, int card,
+			int dealerUp) {
+		byte action = table.lookup(bucket, total, soft, dealerUp);
+		if (pair && table.shouldSplit(bucket, card, dealerUp)) {
+			action |= DecisionTable.SPLIT;
+		}
+		return action;
+	}
+
+	/* Plays out a seat's hand that was not split, starting from its first decision, in the same way as a
+	 * single player's hand. Returns whether the hand is still in play for the dealer to settle. */
+	private static boolean playHand(TableState state, int seat, int first, int second, byte action,
+			int dealerUp) {
+
+		boolean playerHasAce = first == 1 || second == 1;
+		int total = first + second + (playerHasAce ? 10 : 0);
+		boolean doubled = false;
+		boolean hitting = (action & (DecisionTable.HIT | DecisionTable.DOUBLE)) != 0;
+		boolean firstDraw = true;
+
+		while (hitting) {
+			int nextCard = state.deal();
+			BlackjackSimulation.removeElements(nextCard, state.cardsLeft);
+			doubled = firstDraw && (action & DecisionTable.DOUBLE) != 0;
+			firstDraw = false;
+
+			if (nextCard == 1 && !playerHasAce) {
+				total += 11;
+				playerHasAce = true;
+			} else {
+				total += nextCard;
+			}
+			if (total > 21 && playerHasAce) {
+				total -= 10;
+				playerHasAce = false;
+			}
+
+			// As with a single player, a hand that has busted or doubled, or that would never be hit
+			// again, stops here without another decision being made
+			if (total > 21 || doubled || total > 18 || (total > 16 && !playerHasAce)) {
+				break;
+			}
+			hitting = decide(state, state.seats[seat], total, playerHasAce, dealerUp, false).hit;
+		}
+
+		state.handTotals[seat][0] = total;
+		state.handDoubled[seat][0] = doubled;
+		state.hands[seat] = 1;
+		return total <= 21;
+
+	}
+
+	/* Plays out a seat's pair after it was split, in the same way as BlackjackSimulation.split, resplitting
+	 * while the rules allow it. Returns whether any of the hands is still in play for the dealer to settle. */
+	private static boolean playSplit(TableState state, int seat, int num, int dealerUp) {
+
+		Shoe cardsLeft = state.cardsLeft;
+		Rules rules = state.rules;
+		Strategy strategy = state.seats[seat];
+		int maxHands = rules.maxSplitHands();
+		int[] hits = state.splitCards;
+		int[] totals = state.handTotals[seat];
+		boolean[] doubled = state.handDoubled[seat];
+		boolean live = false;
+
+		hits[0] = state.deal();
+		BlackjackSimulation.removeElements(hits[0], cardsLeft);
+		hits[1] = state.deal();
+		BlackjackSimulation.removeElements(hits[1], cardsLeft);
+		int hands = 2;
+
+		for (int i = 0; i < hands; i++) {
+
+			while (hands < maxHands && (hits[i] == 1 ? 11 : hits[i]) == num && (num != 11 || rules.resplitAces())
+					&& shouldResplit(state, strategy, num, dealerUp, hands)) {
+				hits[i] = state.deal();
+				BlackjackSimulation.removeElements(hits[i], cardsLeft);
+				hits[hands] = state.deal();
+				BlackjackSimulation.removeElements(hits[hands], cardsLeft);
+				hands++;
+			}
+
+			int value = num + (hits[i] == 1 ? 11 : hits[i]);
+			if (value == 22) {
+				value = 12;
+			}
+			boolean playerHasAce = num == 11 || hits[i] == 1;
+			doubled[i] = false;
+
+			// Split aces only get one card each, unless the rules allow them to be hit
+			if (num != 11 || rules.hitSplitAces()) {
+				boolean doublable = rules.doubleAfterSplit();
+				boolean hitting = true;
+				while (hitting) {
+					Decision decision = decide(state, strategy, value, playerHasAce, dealerUp, doublable);
+					if (!decision.hit) {
+						break;
+					}
+					int nextCard = state.deal();
+					BlackjackSimulation.removeElements(nextCard, cardsLeft);
+					if (nextCard == 1 && !playerHasAce) {
+						nextCard = 11;
+						playerHasAce = true;
+					}
+					if (doublable && decision.doubleDown) {
+						doubled[i] = true;
+						hitting = false;
+					}
+					value += nextCard;
+					if (playerHasAce && value > 21) {
+						value -= 10;
+						playerHasAce = false;
+					}
+					if (value >= 19 || (value >= 17 && !playerHasAce)) {
+						hitting = false;
+					}
+					doublable = false;
+				}
+			}
+
+			totals[i] = value;
+			live |= value <= 21;
+		}
+
+		state.hands[seat] = hands;
+		return live;
+
+	}
+
+	/* Returns whether a seat should split a pair of the given card again, given the number of hands it has,
+	 * decided from the cards left at that point by the seat's strategy */
+	private static boolean shouldResplit(TableState state, Strategy strategy, int card, int dealerUp, int hands) {
+		switch (strategy) {
+		case TABLE:
+			return state.table.shouldSplit(state.bucket, card, dealerUp);
+		case BASIC:
+			return state.basic.shouldSplit(0, card, dealerUp);
+		default:
+			double[] dealerProbs = BlackjackOptimization.getDealerProbs(dealerUp, state.cardsLeft, dealerUp == 11);
+			return BlackjackOptimization.shouldSplit(card, dealerUp, dealerProbs, state.cardsLeft, state.decision,
+					hands);
+		}
+	}
+
+	/* Fills in the decision for a seat's current hand by the given strategy, and returns it. The optimizer
+	 * finds the dealer's probabilities from the cards left at this point in the round. */
+	private static Decision decide(TableState state, Strategy strategy, int total, boolean playerHasAce,
+			int dealerUp, boolean firstDecision) {
+		switch (strategy) {
+		case TABLE:
+			return state.table.decide(state.bucket, total, playerHasAce, dealerUp, firstDecision, state.decision);
+		case BASIC:
+			return state.basic.decide(0, total, playerHasAce, dealerUp, firstDecision, state.decision);
+		default:
+			double[] dealerProbs = BlackjackOptimization.getDealerProbs(dealerUp, state.cardsLeft, dealerUp == 11);
+			return firstDecision
+					? BlackjackOptimization.shouldHit(total, dealerUp, dealerProbs, playerHasAce, state.cardsLeft,
+							state.decision)
+					: BlackjackOptimization.shouldHitAux(total, dealerProbs, playerHasAce, state.cardsLeft,
+							state.decision);
+		}
+	}
+
+	/* This class stores everything that one thread needs to play its share of the rounds: its own shoe and
+	 * generator, the totals of each seat, and the arrays that each round is played in, which are reused
+	 * rather than created for every round */
+	static class TableState {
+
+		final Shoe cardsAtStart;
+		final Shoe trueCardsLeft;
+		final Shoe cardsLeft;
+		final double cardThreshold;
+		final CardRandom random;
+		final Rules rules = BlackjackOptimization.getRules();
+		final Strategy[] seats;
+		final DecisionTable table;
+		final DecisionTable basic;
+		// Which set of the table's decisions is used for the current round
+		int bucket;
+		final Decision decision = new Decision();
+
+		// The number of rounds played, and the totals of each seat's games
+		long rounds;
+		final OutcomeHistogram[] outcomes;
+		final double[] difference;
+		long dealerCacheHits;
+		long dealerCacheMisses;
+
+		// The two cards dealt to each seat, and the flags of each seat's first decision
+		final int[] cards;
+		final byte[] actions;
+		// The hands that each seat played out this round, which is more than one if it split, with the
+		// total and whether it was doubled of each one
+		final int[] hands;
+		final int[][] handTotals;
+		final boolean[][] handDoubled;
+		final int[] splitCards;
+		// How many cards of each index have been dealt this round, and the index of the dealer's hole card,
+		// or -1 before it has been dealt
+		final int[] inPlay = new int[Shoe.CARD_TYPES];
+		int holeIdx = -1;
+
+		// The first decisions that the optimizer has solved, by the row of the decision table, and the
+		// round that each was solved in
+		final byte[] solved = new byte[DecisionTable.ROWS];
+		final long[] solvedRound = new long[DecisionTable.ROWS];
+		long decisionRound;
+
+		TableState(int decks, double reshuffleRatio, CardRandom random, Strategy[] seats, DecisionTable table,
+				DecisionTable basic) {
+			this.cardsAtStart = Shoe.full(decks);
+			this.trueCardsLeft = cardsAtStart.copy();
+			this.cardsLeft = cardsAtStart.copy();
+			this.cardThreshold = Math.max(decks * 52 * reshuffleRatio, CARDS_PER_HAND * (seats.length + 1));
+			this.random = random;
+			this.seats = seats;
+			this.table = table;
+			this.basic = basic;
+			this.outcomes = new OutcomeHistogram[seats.length];
+			for (int s = 0; s < seats.length; s++) {
+				outcomes[s] = new OutcomeHistogram(rules);
+			}
+			this.difference = new double[seats.length];
+			this.cards = new int[2 * seats.length];
+			this.actions = new byte[seats.length];
+			this.hands = new int[seats.length];
+			this.handTotals = new int[seats.length][rules.maxSplitHands()];
+			this.handDoubled = new boolean[seats.length][rules.maxSplitHands()];
+			this.splitCards = new int[rules.maxSplitHands()];
+		}
+
+		/* Deals the next card from the shoe, with 1 for an ace. If the shoe has run out partway through a
+		 * round, the cards of the earlier rounds are shuffled back in, leaving out the ones dealt this round,
+		 * and the players' cards left start again from the new shoe, with the hole card still unseen. */
+		int deal() {
+			if (trueCardsLeft.total() == 0) {
+				int[] counts = cardsAtStart.toArray();
+				for (int idx = 0; idx < Shoe.CARD_TYPES; idx++) {
+					counts[idx] -= inPlay[idx];
+				}
+				trueCardsLeft.set(counts);
+				if (trueCardsLeft.total() == 0) {
+					throw new IllegalStateException("Every card in the shoe was dealt in one round");
+				}
+				cardsLeft.copyFrom(trueCardsLeft);
+				if (holeIdx >= 0) {
+					cardsLeft.restore(holeIdx);
+				}
+			}
+			int card = BlackjackSimulation.hit(trueCardsLeft, random);
+			inPlay[Shoe.indexOf(card)]++;
+			return card;
+		}
+
+		/* Adds the result of a seat's game to its totals */
+		void settle(int s, double result) {
+			difference[s] += result;
+			outcomes[s].add(result);
+		}
+
+		/* Adds the totals of another state into this one */
+		void merge(TableState other) {
+			rounds += other.rounds;
+			for (int s = 0; s < seats.length; s++) {
+				outcomes[s].merge(other.outcomes[s]);
+				difference[s] += other.difference[s];
+			}
+			dealerCacheHits += other.dealerCacheHits;
+			dealerCacheMisses += other.dealerCacheMisses;
+		}
+
+	}
+
+}
@@ -0,0 +1,124 @@
+package blackjackOS;
+
+import java.util.Arrays;
+
+/* This class counts how many games ended in each result, which is how much the player won or lost relative
+ * to their initial wager. Almost every result is a whole number of half wagers, from losing every hand of
+ * a split after doubling each of them to winning all of them, so the slot of one of those is found by
+ * doubling the result and offsetting it, with no boxing or hashing. The only other results are Blackjack
+ * payouts such as 6:5, which are given their own slots when the histogram is made for the rules. The
+ * slots are kept in order of their results, so they can be printed as they are.
+ * One histogram is kept by each thread and they are merged together once the threads have finished, which
+ * only works between histograms made for the same rules. */
+public class OutcomeHistogram {
+
+	// The number of slots for each wager, as every ordinary result is a whole number of half wagers
+	private static final int STEPS_PER_WAGER = 2;
+
+	// The result of each slot, in increasing order
+	private final double[] values;
+	private final long[] counts;
+
+	// The slot of each number of half wagers from -offset to offset
+	private final int[] slotOfStep;
+	private final int offset;
+
+	/* Constructor. Makes a slot for every result that can happen under the given rules, where a doubled
+	 * hand wins or loses two wagers and each split hand is played out with its own wager. */
+	public OutcomeHistogram(Rules rules) {
+		int maxWagers = 2 * Math.max(1, rules.maxSplitHands());
+		double payout = rules.blackjackPayout();
+		double payoutSteps = payout * STEPS_PER_WAGER;
+		// A payout which is a whole number of half wagers needs no slot of its own, unless it is larger
+		// than anything else that can be won
+		boolean payoutFits = payoutSteps == Math.rint(payoutSteps);
+		if (payoutFits) {
+			maxWagers = Math.max(maxWagers, (int) Math.ceil(payout));
+		}
+		this.offset = maxWagers * STEPS_PER_WAGER;
+
+		int steps = 2 * offset + 1;
+		this.values = new double[payoutFits ? steps : steps + 1];
+		this.counts = new long[values.length];
+		this.slotOfStep = new int[steps];
+		int slot = 0;
+		for (int step = 0; step < steps; step++) {
+			double value = (double) (step - offset) / STEPS_PER_WAGER;
+			// The payout's own slot goes right before the first result that is larger than it
+			if (!payoutFits && slot == step && payout < value) {
+				values[slot++] = payout;
+			}
+			values[slot] = value;
+			slotOfStep[step] = slot++;
+		}
+		if (!payoutFits && slot == steps) {
+			values[slot] = payout;
+		}
+	}
+
+	/* Counts one game which ended with the given result, throwing an IllegalArgumentException if the
+	 * result cannot happen under the rules that the histogram was made for */
+	public void add(double result) {
+		double steps = result * STEPS_PER_WAGER;
+		int step = (int) steps + offset;
+		if (step >= 0 && step < slotOfStep.length && step - offset == steps) {
+			counts[slotOfStep[step]]++;
+		} else {
+			counts[otherSlot(result)]++;
+		}
+	}
+
+	/* Finds the slot of a result which is not a whole number of half wagers, of which there is at most one */
+	private int otherSlot(double result) {
+		for (int slot = 0; slot < values.length; slot++) {
+			if (values[slot] == result) {
+				return slot;
+			}
+		}
+		throw new IllegalArgumentException("No outcome slot for a result of " + result);
+	}
+
+	/* Adds the counts of another histogram, made for the same rules, into this one */
+	public void merge(OutcomeHistogram other) {
+		if (!Arrays.equals(values, other.values)) {
+			throw new IllegalArgumentException("Outcome histograms made for different rules cannot be merged");
+		}
+		for (int slot = 0; slot < counts.length; slot++) {
+			counts[slot] += other.counts[slot];
+		}
+	}
+
+	public int slots() {
+		return values.length;
+	}
+
+	/* Returns the result that the given slot counts */
+	public double value(int slot) {
+		return values[slot];
+	}
+
+	public long count(int slot) {
+		return counts[slot];
+	}
+
+	/* Sets the count of a slot, which is used to restore a histogram from a checkpoint */
+	void setCount(int slot, long count) {
+		counts[slot] = count;
+	}
+
+	/* Returns the number of games counted */
+	public long total() {
+		long total = 0;
+		for (long count : counts) {
+			total += count;
+		}
+		return total;
+	}
+
+	/* Returns the result of the given slot as it is printed, with no decimal point for whole wagers */
+	public String label(int slot) {
+		double value = values[slot];
+		return value == Math.rint(value) ? Long.toString((long) value) : Double.toString(value);
+	}
+
+}
@@ -0,0 +1,94 @@
+package blackjackOS;
+
+/* This class keeps the running mean and variance of the payout of each game, relative to the wager, in the
+ * way described by Welford: the count, the mean, and the sum of the squared distances from the mean are
+ * updated together, so the variance never comes from subtracting two large, nearly equal sums. Two sets of
+ * statistics are merged with the formula of Chan et al., which gives the same answer as if every game had
+ * been added to one of them, so each thread can keep its own.
+ * The simulation already counts every game in its outcome histogram, in which all of the games in a slot
+ * have the same payout, so the statistics of a run are found by merging in each slot as a group rather than
+ * by updating them once for every game. */
+public class PayoutStats {
+
+	// The number of standard errors on each side of the mean that a 95 percent confidence interval spans
+	static final double Z_95 = 1.959963984540054;
+
+	private long count;
+	private double mean;
+	// The sum of the squared distances of every payout from the mean
+	private double m2;
+
+	/* Returns the statistics of every game counted in the given histogram */
+	public static PayoutStats of(OutcomeHistogram outcomes) {
+		PayoutStats stats = new PayoutStats();
+		for (int slot = 0; slot < outcomes.slots(); slot++) {
+			stats.add(outcomes.value(slot), outcomes.count(slot));
+		}
+		return stats;
+	}
+
+	/* Adds one game with the given payout */
+	public void add(double payout) {
+		count++;
+		double delta = payout - mean;
+		mean += delta / count;
+		m2 += delta * (payout - mean);
+	}
+
+	/* Adds the given number of games which all had the same payout, which is a group with no spread of its
+	 * own */
+	public void add(double payout, long games) {
+		merge(games, payout, 0);
+	}
+
+	/* Adds the games of another set of statistics into this one */
+	public void merge(PayoutStats other) {
+		merge(other.count, other.mean, other.m2);
+	}
+
+	private void merge(long otherCount, double otherMean, double otherM2) {
+		if (otherCount == 0) {
+			return;
+		}
+		long total = count + otherCount;
+		double delta = otherMean - mean;
+		mean += delta * otherCount / total;
+		m2 += otherM2 + delta * delta * ((double) count * otherCount / total);
+		count = total;
+	}
+
+	public long count() {
+		return count;
+	}
+
+	/* Returns the average payout of a game, which is the player's edge */
+	public double mean() {
+		return mean;
+	}
+
+	/* Returns the sample variance of the payout of a game */
+	public double variance() {
+		return count < 2 ? 0.0 : m2 / (count - 1);
+	}
+
+	/* Returns the standard error of the mean, which shrinks with the square root of the number of games */
+	public double standardError() {
+		return count < 2 ? Double.POSITIVE_INFINITY : Math.sqrt(variance() / count);
+	}
+
+	/* Returns how far the 95 percent confidence interval of the mean reaches on each side of it */
+	public double halfWidth95() {
+		return Z_95 * standardError();
+	}
+
+	/* Returns the chance of losing a bankroll of the given number of wagers before it grows without limit,
+	 * playing one wager a game, by the usual approximation for a random walk with this mean and variance.
+	 * A player without an edge is certain to lose it eventually. */
+	public double riskOfRuin(double bankroll) {
+		if (mean <= 0) {
+			return 1.0;
+		}
+		return Math.exp(-2 * mean * bankroll / variance());
+	}
+
+}
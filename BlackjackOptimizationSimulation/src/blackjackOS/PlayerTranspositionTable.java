@@ -0,0 +1,154 @@
+package blackjackOS;
+
+/* This class stores the results of the player's hit-or-stand evaluations inside of getPlayerProbs, so that
+ * the same evaluation is not run again when it is reached a second time. getPlayerProbs checks whether
+ * the player should hit at every total from 12 to 18, and each of those checks starts a new getPlayerProbs
+ * recursion of its own, so the same total, ace, and cards left are often reached by drawing the same cards
+ * in different orders, such as a 2 and then a 5 or a 5 and then a 2.
+ * Each entry is keyed on the player's total, whether they have an ace counting as 11, and the packed counts
+ * of the cards left, and stores the player's probabilities of finishing with each total after hitting as
+ * well as whether hitting beats standing. Because those results also depend on the dealer's probabilities,
+ * the table is only valid for one set of them at a time, and it is emptied whenever it is used with a
+ * different set. Emptying it just moves on to a new generation, so the old entries are ignored without
+ * needing to be cleared.
+ * The table has a fixed size and uses open addressing. If none of the few slots that an entry can go in
+ * are free, the entry replaces the one in its first slot, so the table never grows. */
+public class PlayerTranspositionTable {
+
+	// The number of slots, which must be a power of two, and the number of slots checked for each key
+	private static final int DEFAULT_CAPACITY = 1 << 15;
+	private static final int PROBES = 4;
+
+	private final int mask;
+	private final long[] compositions;
+	private final int[] states;
+	private final int[] generations;
+	private final boolean[] hits;
+
+	// The probabilities of each entry, with the 11 of the entry in slot i starting at index 11 * i
+	private final double[] probs;
+
+	// The dealer's probabilities that the current entries were found with
+	private final double[] dealerProbs = new double[6];
+
+	// Starts at 1 so that every slot, whose generation starts at 0, is empty
+	private int generation = 1;
+
+	private long lookups;
+	private long found;
+
+	// The number of calls that the player's recursion has made, which is counted here because every call
+	// already has this thread's table at hand
+	private long nodes;
+
+	/* Constructor which uses the default size */
+	public PlayerTranspositionTable() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/* Constructor. The capacity is rounded up to a power of two. */
+	public PlayerTranspositionTable(int capacity) {
+		int size = Integer.highestOneBit(Math.max(PROBES, capacity - 1) << 1);
+		this.mask = size - 1;
+		this.compositions = new long[size];
+		this.states = new int[size];
+		this.generations = new int[size];
+		this.hits = new boolean[size];
+		this.probs = new double[size * 11];
+	}
+
+	/* Makes sure that the entries in the table were found with the given dealer's probabilities, moving to
+	 * a new generation if they were not. This is called at the start of each evaluation, before any of the
+	 * other methods. */
+	public void begin(double[] newDealerProbs) {
+		for (int i = 0; i < 6; i++) {
+			if (dealerProbs[i] != newDealerProbs[i]) {
+				System.arraycopy(newDealerProbs, 0, dealerProbs, 0, 6);
+				generation++;
+				return;
+			}
+		}
+	}
+
+	/* Empties the table by moving to a new generation */
+	public void clear() {
+		generation++;
+	}
+
+	/* Returns the slot of the entry for the given total, ace, and cards left, or -1 if there is none. The
+	 * cards left must be packable. */
+	public int find(int total, boolean acePresent, Shoe cardsLeft) {
+		lookups++;
+		long composition = cardsLeft.key();
+		int state = state(total, acePresent);
+		int slot = hash(composition, state);
+		for (int i = 0; i < PROBES; i++) {
+			int s = (slot + i) & mask;
+			if (generations[s] != generation) {
+				return -1;
+			}
+			if (compositions[s] == composition && states[s] == state) {
+				found++;
+				return s;
+			}
+		}
+		return -1;
+	}
+
+	/* Returns whether hitting beats standing for the entry in the given slot */
+	public boolean shouldHit(int slot) {
+		return hits[slot];
+	}
+
+	/* Copies the player's probabilities of the entry in the given slot into the given array */
+	public void copyProbs(int slot, double[] playerProbs) {
+		System.arraycopy(probs, slot * 11, playerProbs, 0, 11);
+	}
+
+	/* Stores the results of an evaluation for the given total, ace, and cards left */
+	public void store(int total, boolean acePresent, Shoe cardsLeft, double[] playerProbs, boolean shouldHit) {
+		long composition = cardsLeft.key();
+		int state = state(total, acePresent);
+		int slot = hash(composition, state);
+		int target = slot;
+		for (int i = 0; i < PROBES; i++) {
+			int s = (slot + i) & mask;
+			if (generations[s] != generation) {
+				target = s;
+				break;
+			}
+		}
+		generations[target] = generation;
+		compositions[target] = composition;
+		states[target] = state;
+		hits[target] = shouldHit;
+		System.arraycopy(playerProbs, 0, probs, target * 11, 11);
+	}
+
+	private static int state(int total, boolean acePresent) {
+		return total | (acePresent ? 1 << 5 : 0);
+	}
+
+	private int hash(long composition, int state) {
+		long h = (composition ^ ((long) state << 58)) * 0x9E3779B97F4A7C15L;
+		return (int) (h >>> 40) & mask;
+	}
+
+	/* Counts one call of the player's recursion */
+	public void countNode() {
+		nodes++;
+	}
+
+	public long getNodes() {
+		return nodes;
+	}
+
+	public long getLookups() {
+		return lookups;
+	}
+
+	public long getHits() {
+		return found;
+	}
+
+}
@@ -0,0 +1,236 @@
+package blackjackOS;
+
+/* This class holds the rules of the table that the games are played at. The simulation and the
+ * optimization methods used to have one set of rules written into them, which are the rules of STANDARD:
+ * the dealer stands on every 17, Blackjack pays 3:2, the player can double after splitting, a pair can
+ * only be split once, split aces only get one card each, the player can surrender once the dealer has
+ * peeked for Blackjack, and the dealer does peek when their up card is a 10 or an ace.
+ * A set of rules never changes once it is made. Each with method returns a new set with one rule changed,
+ * and parse reads a set from a short list such as "h17,bj=6:5,hands=4,surrender=none".
+ * BlackjackOptimization.setRules sets the rules for the whole program, before any games are played, and
+ * the draw trees read the one rule that they depend on into a plain flag at that point, so that checking
+ * it costs nothing on the dealer's draws below 17. */
+public final class Rules {
+
+	/* When the player can surrender: never, only once the dealer has peeked for Blackjack, or before
+	 * the dealer has peeked */
+	public enum Surrender { NONE, LATE, EARLY }
+
+	// The most hands that a pair can be split into
+	static final int MAX_SPLIT_HANDS = 4;
+
+	public static final Rules STANDARD = new Rules(false, 1.5, true, 2, false, false, Surrender.LATE, true);
+
+	private final boolean dealerHitsSoft17;
+	private final double blackjackPayout;
+	private final boolean doubleAfterSplit;
+	private final int maxSplitHands;
+	private final boolean resplitAces;
+	private final boolean hitSplitAces;
+	private final Surrender surrender;
+	private final boolean dealerPeeks;
+
+	private Rules(boolean dealerHitsSoft17, double blackjackPayout, boolean doubleAfterSplit, int maxSplitHands,
+			boolean resplitAces, boolean hitSplitAces, Surrender surrender, boolean dealerPeeks) {
+		if (blackjackPayout <= 0) {
+			throw new IllegalArgumentException("Blackjack must pay something");
+		}
+		if (maxSplitHands < 1 || maxSplitHands > MAX_SPLIT_HANDS) {
+			throw new IllegalArgumentException("A pair can be split into 1 to " + MAX_SPLIT_HANDS + " hands");
+		}
+		this.dealerHitsSoft17 = dealerHitsSoft17;
+		this.blackjackPayout = blackjackPayout;
+		this.doubleAfterSplit = doubleAfterSplit;
+		this.maxSplitHands = maxSplitHands;
+		this.resplitAces = resplitAces;
+		this.hitSplitAces = hitSplitAces;
+		this.surrender = surrender;
+		this.dealerPeeks = dealerPeeks;
+	}
+
+	/* Reads a set of rules from a list separated by commas, where every rule that is not listed is the
+	 * same as in STANDARD. The rules are:
+	 *   s17 or h17          the dealer stands or hits on a soft 17
+	 *   bj=3:2              what Blackjack pays, either as a ratio or as a number such as 1.2
+	 *   das or ndas         whether the player can double after splitting
+	 *   hands=N             the most hands that a pair can be split into, where 2 means no resplitting
+	 *                       and 1 means no splitting at all
+	 *   rsa or nrsa         whether aces can be split again
+	 *   hsa or nhsa         whether split aces can be hit rather than only getting one card
+	 *   surrender=TYPE      "none", "late", or "early"
+	 *   peek or nopeek      whether the dealer peeks for Blackjack; without a peek, a Blackjack also wins
+	 *                       the bets that the player has doubled or split */
+	public static Rules parse(String list) {
+		Rules rules = STANDARD;
+		if (list == null || list.isEmpty()) {
+			return rules;
+		}
+		for (String rule : list.split(",")) {
+			String[] parts = rule.trim().toLowerCase().split("=", 2);
+			String name = parts[0];
+			String value = parts.length > 1 ? parts[1] : null;
+			if (value == null) {
+				switch (name) {
+				case "s17":
+				case "h17":
+					rules = rules.withDealerHitsSoft17(name.equals("h17"));
+					break;
+				case "das":
+				case "ndas":
+					rules = rules.withDoubleAfterSplit(name.equals("das"));
+					break;
+				case "rsa":
+				case "nrsa":
+					rules = rules.withResplitAces(name.equals("rsa"));
+					break;
+				case "hsa":
+				case "nhsa":
+					rules = rules.withHitSplitAces(name.equals("hsa"));
+					break;
+				case "peek":
+				case "nopeek":
+					rules = rules.withDealerPeeks(name.equals("peek"));
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown rule " + rule);
+				}
+				continue;
+			}
+			switch (name) {
+			case "bj":
+				int colon = value.indexOf(':');
+				rules = rules.withBlackjackPayout(colon < 0 ? Double.parseDouble(value)
+						: Double.parseDouble(value.substring(0, colon))
+								/ Double.parseDouble(value.substring(colon + 1)));
+				break;
+			case "hands":
+				rules = rules.withMaxSplitHands(Integer.parseInt(value));
+				break;
+			case "surrender":
+				try {
+					rules = rules.withSurrender(Surrender.valueOf(value.toUpperCase()));
+				} catch (IllegalArgumentException e) {
+					throw new IllegalArgumentException("Unknown surrender type " + value);
+				}
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown rule " + rule);
+			}
+		}
+		return rules;
+	}
+
+	public Rules withDealerHitsSoft17(boolean value) {
+		return new Rules(value, blackjackPayout, doubleAfterSplit, maxSplitHands, resplitAces, hitSplitAces,
+				surrender, dealerPeeks);
+	}
+
+	public Rules withBlackjackPayout(double value) {
+		return new Rules(dealerHitsSoft17, value, doubleAfterSplit, maxSplitHands, resplitAces, hitSplitAces,
+				surrender, dealerPeeks);
+	}
+
+	public Rules withDoubleAfterSplit(boolean value) {
+		return new Rules(dealerHitsSoft17, blackjackPayout, value, maxSplitHands, resplitAces, hitSplitAces,
+				surrender, dealerPeeks);
+	}
+
+	public Rules withMaxSplitHands(int value) {
+		return new Rules(dealerHitsSoft17, blackjackPayout, doubleAfterSplit, value, resplitAces, hitSplitAces,
+				surrender, dealerPeeks);
+	}
+
+	public Rules withResplitAces(boolean value) {
+		return new Rules(dealerHitsSoft17, blackjackPayout, doubleAfterSplit, maxSplitHands, value, hitSplitAces,
+				surrender, dealerPeeks);
+	}
+
+	public Rules withHitSplitAces(boolean value) {
+		return new Rules(dealerHitsSoft17, blackjackPayout, doubleAfterSplit, maxSplitHands, resplitAces, value,
+				surrender, dealerPeeks);
+	}
+
+	public Rules withSurrender(Surrender value) {
+		return new Rules(dealerHitsSoft17, blackjackPayout, doubleAfterSplit, maxSplitHands, resplitAces,
+				hitSplitAces, value, dealerPeeks);
+	}
+
+	public Rules withDealerPeeks(boolean value) {
+		return new Rules(dealerHitsSoft17, blackjackPayout, doubleAfterSplit, maxSplitHands, resplitAces,
+				hitSplitAces, surrender, value);
+	}
+
+	/* Returns whether the dealer draws another card with the given total, where soft is whether they have
+	 * an ace counting as 11. The second check is only reached once the dealer has 17 or more. */
+	public boolean dealerHits(int total, boolean soft) {
+		return total < 17 || (total == 17 && soft && dealerHitsSoft17);
+	}
+
+	/* Returns the expected value of surrendering, in the same units as getExpectedValue, given the
+	 * probability that the dealer has Blackjack when the player surrenders. A late surrender still loses
+	 * the whole bet to a Blackjack, while an early one does not. */
+	public double surrenderValue(double blackjackProb) {
+		switch (surrender) {
+		case LATE:
+			return blackjackProb == 0 ? -0.5 : -0.5 * (1 - blackjackProb) - blackjackProb;
+		case EARLY:
+			return -0.5;
+		default:
+			return Double.NEGATIVE_INFINITY;
+		}
+	}
+
+	public boolean dealerHitsSoft17() {
+		return dealerHitsSoft17;
+	}
+
+	public double blackjackPayout() {
+		return blackjackPayout;
+	}
+
+	public boolean doubleAfterSplit() {
+		return doubleAfterSplit;
+	}
+
+	public int maxSplitHands() {
+		return maxSplitHands;
+	}
+
+	public boolean resplitAces() {
+		return resplitAces;
+	}
+
+	public boolean hitSplitAces() {
+		return hitSplitAces;
+	}
+
+	public Surrender surrender() {
+		return surrender;
+	}
+
+	public boolean dealerPeeks() {
+		return dealerPeeks;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof Rules)) {
+			return false;
+		}
+		return toString().equals(o.toString());
+	}
+
+	@Override
+	public int hashCode() {
+		return toString().hashCode();
+	}
+
+	/* Returns the rules in the form that parse reads, with every rule listed */
+	@Override
+	public String toString() {
+		return (dealerHitsSoft17 ? "h17" : "s17") + ",bj=" + blackjackPayout + (doubleAfterSplit ? ",das" : ",ndas")
+				+ ",hands=" + maxSplitHands + (resplitAces ? ",rsa" : ",nrsa") + (hitSplitAces ? ",hsa" : ",nhsa")
+				+ ",surrender=" + surrender.name().toLowerCase() + (dealerPeeks ? ",peek" : ",nopeek");
+	}
+
+}
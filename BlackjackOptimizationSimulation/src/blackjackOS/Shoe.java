@@ -0,0 +1,192 @@
+package blackjackOS;
+
+/* This class represents the cards left in a shoe, stored as the number of cards of each value. As with the
+ * arrays used before it, the zero index corresponds to 10 and the one index corresponds to aces, while two
+ * corresponds to two, three to three, and so on.
+ * Along with the counts, the shoe keeps track of the total number of cards left, so it never has to be
+ * added up again, and a Fenwick tree over the counts, which allows a random card to be drawn by walking
+ * down the tree rather than scanning every count. It also keeps the counts packed into a single long,
+ * which the caches use as part of their keys. */
+public class Shoe {
+
+	// The number of different card values in the shoe
+	public static final int CARD_TYPES = 10;
+
+	// The value of the card at each index, with aces counting as 11 and tens as 10
+	private static final int[] POINTS = { 10, 11, 2, 3, 4, 5, 6, 7, 8, 9 };
+
+	// The amount of bits used for each count in the packed key. Eight bits allows up to 255 tens, and six
+	// bits allows up to 63 of each other card, which covers up to 15 decks while using 62 of the 64 bits.
+	private static final int TEN_BITS = 8;
+	private static final int CARD_BITS = 6;
+
+	// The amount that the packed key changes by when one card of each index is removed
+	private static final long[] KEY_UNITS = new long[CARD_TYPES];
+
+	static {
+		for (int i = 0; i < CARD_TYPES; i++) {
+			KEY_UNITS[i] = 1L << ((CARD_TYPES - 1 - i) * CARD_BITS);
+		}
+	}
+
+	private final int[] counts = new int[CARD_TYPES];
+
+	// The Fenwick tree, where tree[i] stores the sum of the counts at the indices from (i - (i & -i)) to
+	// (i - 1). The zero position is unused.
+	private final int[] tree = new int[CARD_TYPES + 1];
+
+	private int total;
+
+	// The sum of the values of all of the cards left, used to find their average value
+	private int points;
+
+	private long key;
+
+	// Whether every count fits in the bits set aside for it in the packed key
+	private boolean packable;
+
+	/* Constructor which creates a shoe holding the given counts of each card */
+	public Shoe(int[] counts) {
+		set(counts);
+	}
+
+	/* Creates a shoe holding every card in the given number of decks */
+	public static Shoe full(int decks) {
+		return new Shoe(new int[] { 16 * decks, 4 * decks, 4 * decks, 4 * decks, 4 * decks, 4 * decks,
+				4 * decks, 4 * decks, 4 * decks, 4 * decks });
+	}
+
+	/* Sets the counts of this shoe to the given counts, rebuilding everything that is stored about them */
+	public void set(int[] newCounts) {
+		total = 0;
+		points = 0;
+		key = 0;
+		packable = newCounts[0] < (1 << TEN_BITS);
+		for (int i = 0; i < CARD_TYPES; i++) {
+			counts[i] = newCounts[i];
+			total += newCounts[i];
+			points += newCounts[i] * POINTS[i];
+			key += newCounts[i] * KEY_UNITS[i];
+			if (i > 0 && newCounts[i] >= (1 << CARD_BITS)) {
+				packable = false;
+			}
+		}
+		buildTree();
+	}
+
+	/* Makes this shoe hold exactly the same cards as another one, without creating any new arrays */
+	public void copyFrom(Shoe other) {
+		System.arraycopy(other.counts, 0, counts, 0, CARD_TYPES);
+		System.arraycopy(other.tree, 0, tree, 0, tree.length);
+		total = other.total;
+		points = other.points;
+		key = other.key;
+		packable = other.packable;
+	}
+
+	public Shoe copy() {
+		return new Shoe(counts);
+	}
+
+	/* Fills in the Fenwick tree from the counts */
+	private void buildTree() {
+		for (int i = 1; i <= CARD_TYPES; i++) {
+			tree[i] = counts[i - 1];
+		}
+		for (int i = 1; i <= CARD_TYPES; i++) {
+			int parent = i + (i & -i);
+			if (parent <= CARD_TYPES) {
+				tree[parent] += tree[i];
+			}
+		}
+	}
+
+	/* Returns the number of cards left at the given index */
+	public int count(int idx) {
+		return counts[idx];
+	}
+
+	/* Returns the total number of cards left */
+	public int total() {
+		return total;
+	}
+
+	/* Returns the sum of the values of all the cards left, with aces counting as 11 */
+	public int points() {
+		return points;
+	}
+
+	/* Returns the counts of the cards left packed into a single long. Two shoes with the same counts always
+	 * have the same key, but the key is only meaningful if isPackable returns true. */
+	public long key() {
+		return key;
+	}
+
+	public boolean isPackable() {
+		return packable;
+	}
+
+	/* Returns a copy of the counts of the cards left */
+	public int[] toArray() {
+		return counts.clone();
+	}
+
+	/* Removes one card at the given index from the shoe */
+	public void remove(int idx) {
+		take(idx);
+		for (int i = idx + 1; i <= CARD_TYPES; i += i & -i) {
+			tree[i]--;
+		}
+	}
+
+	/* Puts one card at the given index back into the shoe */
+	public void restore(int idx) {
+		putBack(idx);
+		for (int i = idx + 1; i <= CARD_TYPES; i += i & -i) {
+			tree[i]++;
+		}
+	}
+
+	/* Removes one card at the given index for the length of a calculation, leaving the Fenwick tree as it
+	 * is. This is what the recursive methods in BlackjackOptimization use, as they always put the card
+	 * back with putBack before they return, and they never draw a card in between. Skipping the tree saves
+	 * the work of updating it at every step of the recursion, and it is correct again as soon as every
+	 * card that was taken has been put back. */
+	public void take(int idx) {
+		counts[idx]--;
+		total--;
+		points -= POINTS[idx];
+		key -= KEY_UNITS[idx];
+	}
+
+	/* Puts back a card that was removed with take */
+	public void putBack(int idx) {
+		counts[idx]++;
+		total++;
+		points += POINTS[idx];
+		key += KEY_UNITS[idx];
+	}
+
+	/* Draws a random card from the shoe, removes it, and returns its index. The random number picks one of
+	 * the cards left, and the Fenwick tree is walked down from the top to find which index it falls
+	 * under, which takes four steps for the ten card values. */
+	public int draw(CardRandom random) {
+		int remaining = random.nextInt(total);
+		int pos = 0;
+		for (int step = Integer.highestOneBit(CARD_TYPES); step > 0; step >>= 1) {
+			int next = pos + step;
+			if (next <= CARD_TYPES && tree[next] <= remaining) {
+				pos = next;
+				remaining -= tree[next];
+			}
+		}
+		remove(pos);
+		return pos;
+	}
+
+	/* Returns the index of a card given its value, where both 1 and 11 are aces */
+	public static int indexOf(int value) {
+		return value == 10 ? 0 : value == 11 ? 1 : value;
+	}
+
+}
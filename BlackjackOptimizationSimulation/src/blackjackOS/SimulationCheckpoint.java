@@ -0,0 +1,272 @@
+package blackjackOS;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/* This class saves the progress of a long simulation to a small binary file after every chunk of games, so
+ * that a run which is stopped partway through can be resumed from its last checkpoint rather than started
+ * again. A checkpoint holds the settings of the run and, for each thread, the state of its generator, the
+ * cards left in its shoe, and its running totals, which is everything that decides the rest of the run, so
+ * a resumed run finishes with exactly the same results as one that was never stopped. The rules of the
+ * table and the player's counting system and bets are saved as well, and a checkpoint can only be resumed
+ * under the same ones.
+ * Checkpoints are taken between chunks, while every thread is waiting, so the states never change while
+ * they are being saved. They are written to bytes in memory, which takes very little time, and the bytes
+ * are then written to the file by a background thread, so the simulation carries on with the next chunk
+ * straight away. Each file is written under a temporary name and then moved over the old one, so a run
+ * that is stopped in the middle of a write still leaves the previous checkpoint in one piece. */
+public class SimulationCheckpoint implements Closeable {
+
+	// Identifies the binary file format, which is "BJCK" followed by a version number
+	private static final int MAGIC = 0x424A434B;
+	private static final int VERSION = 4;
+
+	private final Path path;
+
+	// Writes the checkpoints in the order that they were taken, one at a time
+	private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "checkpoint-writer");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	// The contents of the checkpoint that the run is resuming from, or null if it is starting fresh
+	private byte[] resumed;
+
+	// The settings of the run and how far it got, as read from the checkpoint being resumed from
+	private long played;
+	private long elapsedMillis;
+	private long eventsSize;
+
+	// The first error from writing a checkpoint in the background, which is thrown on the next save
+	private volatile IOException failure;
+
+	private SimulationCheckpoint(Path path) {
+		this.path = path;
+	}
+
+	/* Returns a checkpoint for a new run, which will be saved to the given file */
+	public static SimulationCheckpoint create(Path path) {
+		return new SimulationCheckpoint(path);
+	}
+
+	/* Returns a checkpoint which resumes from the given file if it exists, and otherwise starts a new run,
+	 * saving to the same file in either case */
+	public static SimulationCheckpoint resume(Path path) throws IOException {
+		SimulationCheckpoint checkpoint = new SimulationCheckpoint(path);
+		if (Files.exists(path)) {
+			checkpoint.resumed = Files.readAllBytes(path);
+			try (DataInputStream in = checkpoint.input()) {
+				checkpoint.readHeader(in);
+			}
+		}
+		return checkpoint;
+	}
+
+	/* Returns whether this checkpoint was read from a file, so that the run continues from it */
+	public boolean isResumed() {
+		return resumed != null;
+	}
+
+	/* Returns how many games had been played when the checkpoint being resumed from was saved */
+	public long getPlayed() {
+		return played;
+	}
+
+	/* Returns how long, in milliseconds, the run had been going when the checkpoint was saved */
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	/* Returns how many bytes of game records had been written when the checkpoint was saved, so that any
+	 * written after it can be cut off */
+	public long getEventsSize() {
+		return eventsSize;
+	}
+
+	/* Saves the given thread states after the given number of games have been played. The states are
+	 * copied to bytes before this returns, and the file is written in the background. */
+	public void save(long games, int decks, double reshuffleRatio, long chunkGames, boolean tableMode,
+			List<SimulationState> states, long played, long elapsedMillis, long eventsSize) throws IOException {
+
+		if (failure != null) {
+			throw failure;
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeInt(MAGIC);
+			out.writeByte(VERSION);
+			out.writeLong(games);
+			out.writeInt(decks);
+			out.writeDouble(reshuffleRatio);
+			out.writeLong(chunkGames);
+			out.writeBoolean(tableMode);
+			out.writeInt(states.size());
+			out.writeLong(played);
+			out.writeLong(elapsedMillis);
+			out.writeLong(eventsSize);
+			out.writeUTF(states.get(0).rules.toString());
+			out.writeUTF(counting(states.get(0)));
+			for (SimulationState state : states) {
+				writeState(out, state);
+			}
+		}
+		byte[] contents = bytes.toByteArray();
+
+		writer.execute(() -> {
+			try {
+				Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+				Files.write(temporary, contents);
+				Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException e) {
+				if (failure == null) {
+					failure = e;
+				}
+			}
+		});
+
+	}
+
+	/* Puts the thread states saved in the checkpoint being resumed from back into the given states, first
+	 * making sure that the checkpoint was saved by a run with the same settings */
+	public void restore(long games, int decks, double reshuffleRatio, long chunkGames, boolean tableMode,
+			List<SimulationState> states) {
+
+		try (DataInputStream in = input()) {
+			readHeader(in);
+			if (in.readLong() != games || in.readInt() != decks || in.readDouble() != reshuffleRatio
+					|| in.readLong() != chunkGames || in.readBoolean() != tableMode
+					|| in.readInt() != states.size()) {
+				throw new IllegalArgumentException(path + " was saved by a run with different settings");
+			}
+			in.readLong();
+			in.readLong();
+			in.readLong();
+			if (!Rules.parse(in.readUTF()).equals(states.get(0).rules)) {
+				throw new IllegalArgumentException(path + " was saved by a run with different rules");
+			}
+			if (!in.readUTF().equals(counting(states.get(0)))) {
+				throw new IllegalArgumentException(path + " was saved by a run with different counting");
+			}
+			for (SimulationState state : states) {
+				readState(in, state);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+	}
+
+	/* Waits for every checkpoint to finish being written, throwing the error if any of them failed */
+	@Override
+	public void close() throws IOException {
+		writer.shutdown();
+		try {
+			writer.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	private DataInputStream input() {
+		return new DataInputStream(new ByteArrayInputStream(resumed));
+	}
+
+	/* Reads the magic number and version, and then reads how far the run got without moving past the
+	 * settings, which restore checks */
+	private void readHeader(DataInputStream in) throws IOException {
+		if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+			throw new IOException(path + " is not a simulation checkpoint");
+		}
+		in.mark(Integer.MAX_VALUE);
+		// games, decks, reshuffle ratio, chunk size, table mode, and the number of threads
+		in.skipBytes(8 + 4 + 8 + 8 + 1 + 4);
+		played = in.readLong();
+		elapsedMillis = in.readLong();
+		eventsSize = in.readLong();
+		in.reset();
+	}
+
+	/* Returns the counting system and bet spread of a state, or an empty string if the player is not
+	 * counting */
+	private static String counting(SimulationState state) {
+		return state.counter == null ? "" : state.counter.getSystem() + ":" + state.spread;
+	}
+
+	private static void writeState(DataOutputStream out, SimulationState state) throws IOException {
+		if (!(state.random instanceof SplittableCardRandom)) {
+			throw new IllegalStateException("Only runs with the splittable generator can be checkpointed");
+		}
+		SplittableCardRandom random = (SplittableCardRandom) state.random;
+		out.writeLong(random.getSeed());
+		out.writeLong(random.getGamma());
+		for (int count : state.trueCardsLeft.toArray()) {
+			out.writeInt(count);
+		}
+		out.writeLong(state.games);
+		out.writeDouble(state.difference);
+		for (int slot = 0; slot < state.outcomes.slots(); slot++) {
+			out.writeLong(state.outcomes.count(slot));
+		}
+		for (int i = 0; i < state.totalsByAvg.length; i++) {
+			out.writeDouble(state.totalsByAvg[i]);
+			out.writeLong(state.gamesByAvg[i]);
+		}
+		out.writeLong(state.dealerCacheHits);
+		out.writeLong(state.dealerCacheMisses);
+		if (state.counter != null) {
+			for (int i = 0; i < state.counter.gamesByCount.length; i++) {
+				out.writeLong(state.counter.gamesByCount[i]);
+				out.writeDouble(state.counter.payoutsByCount[i]);
+			}
+		}
+	}
+
+	private static void readState(DataInputStream in, SimulationState state) throws IOException {
+		long seed = in.readLong();
+		state.random = new SplittableCardRandom(seed, in.readLong());
+		int[] counts = new int[Shoe.CARD_TYPES];
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = in.readInt();
+		}
+		state.trueCardsLeft.set(counts);
+		state.games = in.readLong();
+		state.difference = in.readDouble();
+		// The rules have already been checked to be the same, so the histogram has the same slots
+		for (int slot = 0; slot < state.outcomes.slots(); slot++) {
+			state.outcomes.setCount(slot, in.readLong());
+		}
+		for (int i = 0; i < state.totalsByAvg.length; i++) {
+			state.totalsByAvg[i] = in.readDouble();
+			state.gamesByAvg[i] = in.readLong();
+		}
+		state.dealerCacheHits = in.readLong();
+		state.dealerCacheMisses = in.readLong();
+		// The running count is not saved, as it follows from the cards left in the shoe
+		if (state.counter != null) {
+			state.counter.recount(state.trueCardsLeft);
+			for (int i = 0; i < state.counter.gamesByCount.length; i++) {
+				state.counter.gamesByCount[i] = in.readLong();
+				state.counter.payoutsByCount[i] = in.readDouble();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,206 @@
+package blackjackOS;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/* This class collects numbers about a simulation while it is running, so that it can be seen where the
+ * time is going before the run has finished: how many games have been played, how often the dealer cache
+ * and the player's transposition table are hit, how many calls the player's recursion has made, and how
+ * long the dealer's probabilities, the player's decisions, and splitting decisions take.
+ * Every thread keeps its own counts as it plays, as it already does for the caches, and only adds them in
+ * here once every PUBLISH_INTERVAL games, so the shared counters are barely touched. Only one game in every
+ * SAMPLE_INTERVAL is timed, and only in the games that are timed is the clock read.
+ * The numbers can be watched through JMX once register has been called, and printed as a progress line
+ * every few seconds with startProgress. There is one set of metrics for the whole JVM. */
+public class SimulationMetrics implements SimulationMetricsMBean {
+
+	public static final SimulationMetrics INSTANCE = new SimulationMetrics();
+
+	// One in this many games is timed, which must be a power of two
+	static final int SAMPLE_INTERVAL = 64;
+
+	// How many games each thread plays between adding its counts in here, which must be a power of two
+	static final int PUBLISH_INTERVAL = 1024;
+
+	private final LongAdder games = new LongAdder();
+	private final LongAdder dealerCacheHits = new LongAdder();
+	private final LongAdder dealerCacheMisses = new LongAdder();
+	private final LongAdder playerTableLookups = new LongAdder();
+	private final LongAdder playerTableHits = new LongAdder();
+	private final LongAdder playerNodes = new LongAdder();
+
+	// The times of the calls made in the games that are timed
+	final LatencyHistogram dealerProbs = new LatencyHistogram();
+	final LatencyHistogram shouldHit = new LatencyHistogram();
+	final LatencyHistogram split = new LatencyHistogram();
+
+	private volatile long startNanos = System.nanoTime();
+
+	private SimulationMetrics() {
+	}
+
+	/* Makes the metrics visible through JMX. Does nothing if they already are. */
+	public synchronized void register() {
+		try {
+			ObjectName name = new ObjectName("blackjackOS:type=SimulationMetrics");
+			if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+				ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+			}
+		} catch (JMException e) {
+			throw new IllegalStateException("Could not register the simulation metrics", e);
+		}
+	}
+
+	/* Prints a progress line every given number of seconds until the returned service is shut down. The
+	 * percentage done is shown out of the given number of games. */
+	public ScheduledExecutorService startProgress(long totalGames, long seconds) {
+		ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "simulation-progress");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long[] last = { getGamesPlayed(), System.nanoTime() };
+		progress.scheduleAtFixedRate(() -> {
+			long played = getGamesPlayed();
+			long now = System.nanoTime();
+			double rate = (played - last[0]) * 1e9 / (now - last[1]);
+			last[0] = played;
+			last[1] = now;
+			System.out.printf("Progress: %d games (%.1f percent), %.0f games/s, dealer cache %.1f percent, "
+					+ "player table %.1f percent, shouldHit p50/p99 %d/%d ns\n", played,
+					100.0 * played / totalGames, rate, 100 * getDealerCacheHitRate(),
+					100 * getPlayerTableHitRate(), getShouldHitP50(), getShouldHitP99());
+		}, seconds, seconds, TimeUnit.SECONDS);
+		return progress;
+	}
+
+	/* Returns a new publisher for the current thread to add its counts in through */
+	Publisher publisher() {
+		return new Publisher();
+	}
+
+	/* Adds the counts of one thread into the shared metrics. It remembers the thread's counts from the last
+	 * time they were added, so only what has changed since then is added each time. */
+	final class Publisher {
+
+		private final DealerProbsCache cache = BlackjackOptimization.dealerCache.get();
+		private final PlayerTranspositionTable table = BlackjackOptimization.playerTable.get();
+
+		private long cacheHits = cache.getHits();
+		private long cacheMisses = cache.getMisses();
+		private long tableLookups = table.getLookups();
+		private long tableHits = table.getHits();
+		private long nodes = table.getNodes();
+
+		/* Adds the given number of games, along with everything the thread's caches counted since the
+		 * last time */
+		void publish(long played) {
+			games.add(played);
+			dealerCacheHits.add(cache.getHits() - cacheHits);
+			dealerCacheMisses.add(cache.getMisses() - cacheMisses);
+			playerTableLookups.add(table.getLookups() - tableLookups);
+			playerTableHits.add(table.getHits() - tableHits);
+			playerNodes.add(table.getNodes() - nodes);
+			cacheHits = cache.getHits();
+			cacheMisses = cache.getMisses();
+			tableLookups = table.getLookups();
+			tableHits = table.getHits();
+			nodes = table.getNodes();
+		}
+
+	}
+
+	@Override
+	public long getGamesPlayed() {
+		return games.sum();
+	}
+
+	/* Returns the games played per second since the metrics were created or last reset */
+	@Override
+	public double getGamesPerSecond() {
+		return games.sum() * 1e9 / (System.nanoTime() - startNanos);
+	}
+
+	@Override
+	public double getDealerCacheHitRate() {
+		long hits = dealerCacheHits.sum();
+		long lookups = hits + dealerCacheMisses.sum();
+		return lookups == 0 ? 0.0 : (double) hits / lookups;
+	}
+
+	@Override
+	public double getPlayerTableHitRate() {
+		long lookups = playerTableLookups.sum();
+		return lookups == 0 ? 0.0 : (double) playerTableHits.sum() / lookups;
+	}
+
+	/* Returns how many times the player's recursion has been called */
+	@Override
+	public long getPlayerNodes() {
+		return playerNodes.sum();
+	}
+
+	/* Returns how many times the dealer's full recursion has been run, which is once for every lookup
+	 * that missed the dealer cache */
+	@Override
+	public long getDealerRecursions() {
+		return dealerCacheMisses.sum();
+	}
+
+	@Override
+	public long getTimedCalls() {
+		return dealerProbs.count() + shouldHit.count() + split.count();
+	}
+
+	@Override
+	public long getDealerProbsP50() {
+		return dealerProbs.percentile(0.5);
+	}
+
+	@Override
+	public long getDealerProbsP99() {
+		return dealerProbs.percentile(0.99);
+	}
+
+	@Override
+	public long getShouldHitP50() {
+		return shouldHit.percentile(0.5);
+	}
+
+	@Override
+	public long getShouldHitP99() {
+		return shouldHit.percentile(0.99);
+	}
+
+	@Override
+	public long getSplitP50() {
+		return split.percentile(0.5);
+	}
+
+	@Override
+	public long getSplitP99() {
+		return split.percentile(0.99);
+	}
+
+	/* Sets every count back to zero */
+	@Override
+	public void reset() {
+		games.reset();
+		dealerCacheHits.reset();
+		dealerCacheMisses.reset();
+		playerTableLookups.reset();
+		playerTableHits.reset();
+		playerNodes.reset();
+		dealerProbs.reset();
+		shouldHit.reset();
+		split.reset();
+		startNanos = System.nanoTime();
+	}
+
+}
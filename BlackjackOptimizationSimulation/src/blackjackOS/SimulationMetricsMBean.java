@@ -0,0 +1,35 @@
+package blackjackOS;
+
+/* The attributes of SimulationMetrics that are shown through JMX, such as in JConsole or VisualVM, under
+ * the name blackjackOS:type=SimulationMetrics. Every time is in nanoseconds. */
+public interface SimulationMetricsMBean {
+
+	long getGamesPlayed();
+
+	double getGamesPerSecond();
+
+	double getDealerCacheHitRate();
+
+	double getPlayerTableHitRate();
+
+	long getPlayerNodes();
+
+	long getDealerRecursions();
+
+	long getTimedCalls();
+
+	long getDealerProbsP50();
+
+	long getDealerProbsP99();
+
+	long getShouldHitP50();
+
+	long getShouldHitP99();
+
+	long getSplitP50();
+
+	long getSplitP99();
+
+	void reset();
+
+}
@@ -0,0 +1,230 @@
+package blackjackOS;
+
+import java.util.SplittableRandom;
+
+/* This class reads the arguments given to BlackjackSimulation's main method. The first three arguments
+ * are, in order, the number of games to simulate, the number of decks in the shoe, and optionally the
+ * reshuffle ratio, which defaults to 1. After those, any of the following options can be given:
+ *   --threads N    the number of threads to split the games across; 0 uses every available core
+ *   --seed N       the seed for dealing cards, so that a run can be repeated exactly
+ *   --rng TYPE     the random number generator, either "splittable" (the default) or "threadlocal",
+ *                  which cannot be seeded
+ *   --table FILE   plays in table mode, looking decisions up in the decision table stored in FILE, which
+ *                  is built and saved there first if it does not exist or was built for other decks
+ *   --counts N     builds the decision table with separate decisions for each true count from -N to N
+ *   --events FILE  streams a fixed-width record of every game to FILE, which GameEventReader can read
+ *   --chunk N      plays the games in chunks of N, printing the results so far after each chunk
+ *   --checkpoint FILE  saves the state of the run to FILE after every chunk, which is a million games if
+ *                  no chunk size is given
+ *   --dealer MODEL "exact" (the default) finds the dealer's probabilities from the cards left, while
+ *                  "infinite" approximates them with an infinite number of decks, which is much faster
+ *   --engine TYPE  walks the draw trees with the "recursive" (the default) or the "iterative" engine
+ *   --rules LIST   the rules of the table, such as "h17,bj=6:5,hands=4", in the form read by Rules.parse;
+ *                  any rule that is not listed is the standard one
+ *   --progress S   prints the live metrics every S seconds while the games are played
+ *   --stop-ci P    stops early, after a chunk, once the 95 percent confidence interval of the player's edge
+ *                  reaches less than P percent on each side; the games are played in chunks of a hundred
+ *                  thousand if no chunk size is given
+ *   --seats LIST   plays at a table with a seat for each strategy in the list, which are "optimizer",
+ *                  "table" (which needs --table), or "basic", such as "basic,optimizer,basic"; the number of
+ *                  games is then the number of rounds dealt, and each seat's results are printed
+ *   --bankroll N   the bankroll, in wagers, that the risk of ruin is printed for (default 100)
+ *   --count SYSTEM the player keeps a count of the cards dealt with "hilo", "ko", or "omega2", and the
+ *                  results are also given for each true count
+ *   --spread LIST  the bets, in units, that a counting player makes at a true count of 1 or less, 2, 3, and
+ *                  so on, such as "1,2,4,8"; the last bet is made at every higher count (default 1)
+ *   --resume       carries on from the checkpoint in the checkpoint file, if there is one, which must have
+ *                  been saved by a run with the same arguments */
+public class SimulationOptions {
+
+	// The number of games in each chunk when checkpoints are saved and no chunk size was given
+	static final long DEFAULT_CHECKPOINT_CHUNK = 1_000_000;
+	// The number of games in each chunk when the run can stop early and no chunk size was given, which is
+	// how often the confidence interval is checked
+	static final long DEFAULT_STOP_CHUNK = 100_000;
+
+	long games;
+	int decks;
+	double reshuffleRatio = 1.0;
+	int threads = 1;
+	String rng = "splittable";
+	// Whether a seed was given, and if not, a seed is picked at random
+	boolean seeded = false;
+	long seed;
+	// The file of the decision table, or null if the simulation is not in table mode
+	String table;
+	int counts = 0;
+	// The file that the record of every game is written to, or null if the games are not recorded
+	String events;
+	// The number of games in each chunk, or 0 if the games are played in one chunk
+	long chunk = 0;
+	// The file that checkpoints are saved to, or null if none are saved, and whether to resume from it
+	String checkpoint;
+	boolean resume = false;
+	// How often, in seconds, the progress line is printed, or 0 if it is not
+	long progress = 0;
+	// How the dealer's probabilities are found, either "exact" or "infinite"
+	String dealer = "exact";
+	// The engine that walks the draw trees
+	BlackjackOptimization.Engine engine = BlackjackOptimization.Engine.RECURSIVE;
+	// The rules of the table
+	Rules rules = Rules.STANDARD;
+	// The half-width of the confidence interval of the player's edge, as a fraction of a wager, that the run
+	// stops once it reaches, or 0 if it plays every game
+	double stopHalfWidth = 0;
+	double bankroll = SimulationResult.DEFAULT_BANKROLL;
+	// The counting system that the player uses, or null if they do not count, and the bets they make
+	CountingSystem counting;
+	BetSpread spread = BetSpread.FLAT;
+	// The strategy of each seat at a table with several players, or null if there is a single player
+	MultiSeatSimulation.Strategy[] seats;
+
+	/* Reads the options from the given arguments, throwing an IllegalArgumentException if any of them are
+	 * not recognized */
+	public static SimulationOptions parse(String[] args) {
+
+		SimulationOptions options = new SimulationOptions();
+
+		// Counts how many of the arguments without a name have been read so far
+		int positional = 0;
+
+		for (int i = 0; i < args.length; i++) {
+			String arg = args[i];
+
+			if (arg.equals("--resume")) {
+				// The only option without a value
+				options.resume = true;
+			} else if (arg.startsWith("--")) {
+				// Every named option takes the argument after it as its value
+				if (i + 1 >= args.length) {
+					throw new IllegalArgumentException("Missing value for " + arg);
+				}
+				String value = args[++i];
+
+				switch (arg) {
+				case "--threads":
+					options.threads = Integer.parseInt(value);
+					if (options.threads == 0) {
+						options.threads = Runtime.getRuntime().availableProcessors();
+					}
+					break;
+				case "--seed":
+					options.seed = Long.parseLong(value);
+					options.seeded = true;
+					break;
+				case "--rng":
+					options.rng = value;
+					break;
+				case "--table":
+					options.table = value;
+					break;
+				case "--counts":
+					options.counts = Integer.parseInt(value);
+					break;
+				case "--events":
+					options.events = value;
+					break;
+				case "--chunk":
+					options.chunk = Long.parseLong(value);
+					break;
+				case "--checkpoint":
+					options.checkpoint = value;
+					break;
+				case "--dealer":
+					if (!value.equals("exact") && !value.equals("infinite")) {
+						throw new IllegalArgumentException("Unknown dealer model " + value);
+					}
+					options.dealer = value;
+					break;
+				case "--engine":
+					options.engine = BlackjackOptimization.Engine.valueOf(value.toUpperCase());
+					break;
+				case "--progress":
+					options.progress = Long.parseLong(value);
+					break;
+				case "--rules":
+					options.rules = Rules.parse(value);
+					break;
+				case "--stop-ci":
+					options.stopHalfWidth = Double.parseDouble(value) / 100;
+					break;
+				case "--count":
+					options.counting = CountingSystem.parse(value);
+					break;
+				case "--spread":
+					options.spread = BetSpread.parse(value);
+					break;
+				case "--seats":
+					String[] names = value.split(",");
+					options.seats = new MultiSeatSimulation.Strategy[names.length];
+					for (int s = 0; s < names.length; s++) {
+						options.seats[s] = MultiSeatSimulation.Strategy.parse(names[s]);
+					}
+					break;
+				case "--bankroll":
+					options.bankroll = Double.parseDouble(value);
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown option " + arg);
+				}
+
+			} else {
+				switch (positional++) {
+				case 0:
+					options.games = Long.parseLong(arg);
+					break;
+				case 1:
+					options.decks = Integer.parseInt(arg);
+					break;
+				case 2:
+					options.reshuffleRatio = Double.parseDouble(arg);
+					break;
+				default:
+					throw new IllegalArgumentException("Unexpected argument " + arg);
+				}
+			}
+		}
+
+		if (positional < 2) {
+			throw new IllegalArgumentException("The number of games and the number of decks are required");
+		}
+		if (options.resume && options.checkpoint == null) {
+			throw new IllegalArgumentException("--resume needs a --checkpoint file to resume from");
+		}
+		if (options.chunk < 0) {
+			throw new IllegalArgumentException("The chunk size cannot be negative");
+		}
+		if (options.spread != BetSpread.FLAT && options.counting == null) {
+			throw new IllegalArgumentException("--spread needs a --count system to bet by");
+		}
+		if (options.seats != null) {
+			if (options.seats.length > MultiSeatSimulation.MAX_SEATS) {
+				throw new IllegalArgumentException("A table has at most " + MultiSeatSimulation.MAX_SEATS + " seats");
+			}
+			if (options.events != null || options.checkpoint != null || options.counting != null
+					|| options.stopHalfWidth > 0 || options.chunk != 0) {
+				throw new IllegalArgumentException("--seats cannot be combined with --events, --checkpoint, "
+						+ "--count, --stop-ci, or --chunk");
+			}
+			for (MultiSeatSimulation.Strategy seat : options.seats) {
+				if (seat == MultiSeatSimulation.Strategy.TABLE && options.table == null) {
+					throw new IllegalArgumentException("A table seat needs a --table file");
+				}
+			}
+		}
+		if (options.stopHalfWidth < 0) {
+			throw new IllegalArgumentException("The confidence interval to stop at cannot be negative");
+		}
+		if (options.threads < 1) {
+			throw new IllegalArgumentException("The number of threads must be positive");
+		}
+
+		if (!options.seeded) {
+			options.seed = new SplittableRandom().nextLong();
+		}
+
+		return options;
+
+	}
+
+}
@@ -4,8 +4,14 @@ package blackjackOS;
  * using the optimization methods. */
 public class SimulationResult {
 	
-	int games;
+	// The bankroll, in wagers, that the risk of ruin is printed for if no other is given
+	static final double DEFAULT_BANKROLL = 100;
+	
+	long games;
 	int decks;
+	// The result that each slot of the outcome histogram counts, and the proportion of games that ended in it
+	double[] outcomeValues;
+	String[] outcomeLabels;
 	double[] outcomeProportions;
 	double secondsElapsed;
 	double gamesPerSecond;
@@ -13,34 +19,90 @@ public class SimulationResult {
 	double houseEdge;
 	double playerEdge;
 	double reshuffleRatio;
+	// The spread of the payouts of the games, which shows how far the edge found could be from the true one
+	PayoutStats stats;
+	double standardError;
+	double ciHalfWidth;
+	// The units that the player won per 100 games and their average bet, which are the player's edge and
+	// 1 unless they were counting cards and spreading their bets
+	double unitsPer100;
+	double averageBet = 1;
+	// For a counting player, the number of games started at each true count, the expected value of a game at
+	// each count relative to the wager, and the bet made at each count, from -CardCounter.MAX_COUNT up
+	long[] gamesByCount;
+	double[] evByCount;
+	double[] betByCount;
+	// At a table with more than one seat, the number of rounds dealt, and the result of each seat, whose
+	// games are all counted in this result as well. A seat's result has the name of its strategy.
+	long rounds;
+	SimulationResult[] seatResults;
+	String strategy;
+	// How many times the dealer's probabilities were and were not found in the cache during the simulation
+	long dealerCacheHits;
+	long dealerCacheMisses;
 	 
-	/* Constructor */
-	public SimulationResult(int games, int decks, int[] outcomeTotals, double secondsElapsed, 
-			double winRate, double reshuffleRatio) {
+	/* Constructor. The difference is how many more games the player won than the dealer, which is always
+	 * a whole number of half games, so it is stored exactly by a double for any realistic number of games,
+	 * and the rates are found from it directly. */
+	public SimulationResult(long games, int decks, OutcomeHistogram outcomes, double secondsElapsed, 
+			double difference, double reshuffleRatio) {
 		this.games = games;
 		this.decks = decks;
 		// Gets the proportions of each outcome amount from the totals
-		this.outcomeProportions = outcomePropsFromTots(outcomeTotals, games);
+		this.outcomeValues = new double[outcomes.slots()];
+		this.outcomeLabels = new String[outcomes.slots()];
+		this.outcomeProportions = outcomePropsFromTots(outcomes, games);
+		for (int i = 0; i < outcomes.slots(); i++) {
+			outcomeValues[i] = outcomes.value(i);
+			outcomeLabels[i] = outcomes.label(i);
+		}
 		this.secondsElapsed = secondsElapsed;
-		this.winRate = winRate;
+		// The player's win rate over the course of the simulations 
+		this.winRate = ((games + difference) / 2) / games;
 		this.gamesPerSecond = games / secondsElapsed;
-		this.houseEdge = (winRate - 0.5) * -2; // how "house edge" is defined in Blackjack
-		this.playerEdge = -this.houseEdge; // opposite of house edge
+		this.playerEdge = difference / games;
+		this.houseEdge = -this.playerEdge; // how "house edge" is defined in Blackjack
 		this.reshuffleRatio = reshuffleRatio;
+		this.stats = PayoutStats.of(outcomes);
+		this.standardError = stats.standardError();
+		this.ciHalfWidth = stats.halfWidth95();
+		this.unitsPer100 = playerEdge * 100;
+	}
+	
+	/* Fills in the results by true count from the tallies of the given counter, which is null if the player
+	 * was not counting, with the bets made by the given spread. Every game at a count was played for the
+	 * same bet, so the units won are the bet at each count times the payouts at that count. */
+	void setCounts(CardCounter counter, BetSpread spread) {
+		if (counter == null) {
+			return;
+		}
+		int counts = counter.gamesByCount.length;
+		gamesByCount = counter.gamesByCount.clone();
+		evByCount = new double[counts];
+		betByCount = new double[counts];
+		double unitsWon = 0;
+		double unitsBet = 0;
+		for (int i = 0; i < counts; i++) {
+			betByCount[i] = spread.bet(i - CardCounter.MAX_COUNT);
+			evByCount[i] = gamesByCount[i] == 0 ? 0.0 : counter.payoutsByCount[i] / gamesByCount[i];
+			unitsWon += betByCount[i] * counter.payoutsByCount[i];
+			unitsBet += betByCount[i] * gamesByCount[i];
+		}
+		unitsPer100 = 100 * unitsWon / games;
+		averageBet = unitsBet / games;
 	}
 	
 	/* This finds the proportions of the games simulated that ended up in the player winning each of the 
-	 * possible outcome amounts, relative to their wager. 
-	 * These are -4, -3, -2, -1, -0.5, 0, 1, 1.5, 2, 3, and 4. The outcomeTotals and outcomeProportions 
-	 * are arrays of size 11 and they store the total number of games and proportions (respectively) of 
-	 * each amount in the aforementioned order. */
-	private static double[] outcomePropsFromTots(int[] outcomeTotals, int games) {
+	 * possible outcome amounts, relative to their wager. The amounts depend on the rules: with the
+	 * standard rules they are every half wager from -4 to 4, and rules such as 6:5 Blackjack or
+	 * resplitting add their own. The proportions are in the same order as the slots of the histogram. */
+	private static double[] outcomePropsFromTots(OutcomeHistogram outcomes, long games) {
 		
-		double[] outcomeProportions = new double[11];
-		for (int i = 0; i < 11; i++) {
+		double[] outcomeProportions = new double[outcomes.slots()];
+		for (int i = 0; i < outcomeProportions.length; i++) {
 			// For each possible amount, we divide the number of games that ended in each outcome by the
 			// total number of games simulated
-			outcomeProportions[i] = (double)outcomeTotals[i] / games;
+			outcomeProportions[i] = (double)outcomes.count(i) / games;
 		}
 		return outcomeProportions; 
 		  
@@ -55,23 +117,65 @@ public class SimulationResult {
 		System.out.println("Win rate: " + winRate);
 		System.out.printf("House edge: %.5f percent\n", houseEdge * 100);
 		System.out.printf("Player edge: %.5f percent\n", playerEdge * 100);
+		printSpread(DEFAULT_BANKROLL);
 		  
 		 
+		// Only the amounts that some game ended in are printed, as most of the half wagers never happen
 		System.out.println("\nOutcome | Proportion");
-		System.out.printf("-4      | %.10f\n", outcomeProportions[0]);
-		System.out.printf("-3      | %.10f\n", outcomeProportions[1]);
-		System.out.printf("-2      | %.10f\n", outcomeProportions[2]);
-		System.out.printf("-1      | %.10f\n", outcomeProportions[3]);
-		System.out.printf("-0.5    | %.10f\n", outcomeProportions[4]);
-		System.out.printf("0       | %.10f\n", outcomeProportions[5]);
-		System.out.printf("1       | %.10f\n", outcomeProportions[6]);
-		System.out.printf("1.5     | %.10f\n", outcomeProportions[7]);
-		System.out.printf("2       | %.10f\n", outcomeProportions[8]);
-		System.out.printf("3       | %.10f\n", outcomeProportions[9]);
-		System.out.printf("4       | %.10f\n", outcomeProportions[10]);
+		for (int i = 0; i < outcomeProportions.length; i++) {
+			if (outcomeProportions[i] > 0) {
+				System.out.printf("%-7s | %.10f\n", outcomeLabels[i], outcomeProportions[i]);
+			}
+		}
 		
 	}
 	
+	/* Prints out how precisely the player's edge is known, and the risk of ruin for a bankroll of the given
+	 * number of wagers */
+	public void printSpread(double bankroll) {
+		System.out.printf("Variance per game: %.5f\n", stats.variance());
+		System.out.printf("Standard error: %.5f percent\n", standardError * 100);
+		System.out.printf("95 percent confidence interval: %.5f to %.5f percent\n",
+				(playerEdge - ciHalfWidth) * 100, (playerEdge + ciHalfWidth) * 100);
+		System.out.printf("Risk of ruin with %.0f wagers: %.5f percent\n", bankroll, riskOfRuin(bankroll) * 100);
+	}
+	
+	/* Returns the chance of losing a bankroll of the given number of wagers, playing one wager a game */
+	public double riskOfRuin(double bankroll) {
+		return stats.riskOfRuin(bankroll);
+	}
+	
+	/* Prints out the expected value of a game and the bet at each true count that any games were started
+	 * at, and the units won per 100 games with those bets */
+	public void printCounts() {
+		if (gamesByCount == null) {
+			return;
+		}
+		System.out.println("\nTrue count | Games      | EV per unit | Bet");
+		for (int i = 0; i < gamesByCount.length; i++) {
+			if (gamesByCount[i] > 0) {
+				System.out.printf("%-10d | %-10d | %11.5f | %s\n", i - CardCounter.MAX_COUNT, gamesByCount[i],
+						evByCount[i], betByCount[i]);
+			}
+		}
+		System.out.printf("Average bet: %.5f units\n", averageBet);
+		System.out.printf("Units won per 100 games: %.5f\n", unitsPer100);
+	}
+	
+	/* Prints out the win rate and player's edge of each seat at the table, if there was more than one */
+	public void printSeats() {
+		if (seatResults == null) {
+			return;
+		}
+		System.out.println("Rounds dealt: " + rounds);
+		System.out.println("\nSeat | Strategy  | Win rate     | Player edge (percent)");
+		for (int seat = 0; seat < seatResults.length; seat++) {
+			SimulationResult result = seatResults[seat];
+			System.out.printf("%-4d | %-9s | %.10f | %.5f +/- %.5f\n", seat + 1, result.strategy, result.winRate,
+					result.playerEdge * 100, result.ciHalfWidth * 100);
+		}
+	}
+	
 	public void printTime() {
 		System.out.println("Seconds elapsed: " + secondsElapsed);
 		System.out.println("Games played: " + games);
@@ -80,6 +184,33 @@ public class SimulationResult {
 		
 	}
 	
+	/* Returns the names of the columns written by toCsvRow for results played under the given rules, which
+	 * decide the outcome columns */
+	public static String csvHeader(Rules rules) {
+		StringBuilder header = new StringBuilder(
+				"games,decks,reshuffle_ratio,win_rate,house_edge,player_edge,seconds_elapsed,games_per_second,"
+						+ "variance,standard_error,ci95_half_width,units_per_100,average_bet");
+		OutcomeHistogram outcomes = new OutcomeHistogram(rules);
+		for (int i = 0; i < outcomes.slots(); i++) {
+			header.append(",p_").append(outcomes.label(i).replace("-", "minus"));
+		}
+		return header.toString();
+	}
+	
+	/* Returns the results of the simulation as a row of comma-separated values */
+	public String toCsvRow() {
+		StringBuilder row = new StringBuilder();
+		row.append(games).append(',').append(decks).append(',').append(reshuffleRatio).append(',')
+				.append(winRate).append(',').append(houseEdge).append(',').append(playerEdge).append(',')
+				.append(secondsElapsed).append(',').append(gamesPerSecond).append(',').append(stats.variance())
+				.append(',').append(standardError).append(',').append(ciHalfWidth).append(',').append(unitsPer100)
+				.append(',').append(averageBet);
+		for (double proportion : outcomeProportions) {
+			row.append(',').append(proportion);
+		}
+		return row.toString();
+	}
+	
 	public void printWinRate() {
 		System.out.println("Games played: " + games);
 		System.out.println("Win rate: " + winRate);
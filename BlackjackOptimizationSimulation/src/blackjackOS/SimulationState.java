@@ -0,0 +1,95 @@
+package blackjackOS;
+
+/* This class stores everything that one thread needs in order to play through its share of the games in a
+ * simulation: its own shoe, its own random number generator, and the running totals of the games it has
+ * played. When a simulation is split across multiple threads, each thread gets its own one of these, and
+ * they are merged together once every thread has finished. */
+public class SimulationState {
+
+	// The amount of cards of each type in a full shoe, and the amount currently left in this state's shoe.
+	// The zero index corresponds to 10 and the one index corresponds to aces. Two corresponds to two,
+	// three to three, and so on.
+	Shoe cardsAtStart;
+	Shoe trueCardsLeft;
+
+	// If at the start of any game, the number of cards in the shoe dips below this, the shoe will be reset
+	double cardThreshold;
+
+	// The generator used to draw every card from this state's shoe
+	CardRandom random;
+
+	// The rules that the games are played by, which are the ones set in BlackjackOptimization when the
+	// state was made
+	Rules rules = BlackjackOptimization.getRules();
+
+	// The player's count of the cards dealt from this state's shoe, or null if they are not counting, and
+	// the bets that they make by its true count
+	CardCounter counter;
+	BetSpread spread = BlackjackSimulation.getBetSpread();
+
+	// The table that decisions are looked up in, or null if every decision is found by the optimization
+	// methods, and which of its sets of decisions is used for the current game
+	DecisionTable table;
+	int bucket;
+
+	// The player's decision, which is filled in again for every decision rather than being created each
+	// time
+	Decision decision = new Decision();
+
+	// The writer that the record of every game is streamed to, or null if the games are not recorded, and
+	// the record of the current game, which is filled in again for every game
+	GameEventSink.Writer events;
+	GameEvent event = new GameEvent();
+
+	// Whether the calls made in the current game are timed for the metrics, which is true for one game in
+	// every SimulationMetrics.SAMPLE_INTERVAL
+	boolean timed;
+
+	// The number of games that have been played
+	long games;
+
+	// Stores the difference between how many games the player wins and how many games the dealer wins
+	double difference;
+
+	// Stores how many games ended in the player gaining each amount of value, relative to the size of their
+	// initial wager, with a slot for every amount that can happen under the rules
+	OutcomeHistogram outcomes = new OutcomeHistogram(rules);
+
+	// Stores results of games by average values of remaining cards
+	double[] totalsByAvg = new double[101];
+	long[] gamesByAvg = new long[101];
+
+	// How many times the dealer's probabilities were and were not found in the cache while these games
+	// were played
+	long dealerCacheHits;
+	long dealerCacheMisses;
+
+	/* Constructor. Starts off with a full shoe of the given number of decks. The table can be null. */
+	public SimulationState(int decks, double reshuffleRatio, CardRandom random, DecisionTable table) {
+		this.cardsAtStart = Shoe.full(decks);
+		this.trueCardsLeft = cardsAtStart.copy();
+		this.cardThreshold = decks * 52 * reshuffleRatio;
+		this.random = random;
+		this.table = table;
+		CountingSystem system = BlackjackSimulation.getCountingSystem();
+		this.counter = system == null ? null : new CardCounter(system, decks);
+	}
+
+	/* Adds the totals of another state into this one. The shoe and the random number generator of this
+	 * state are left as they are. */
+	public void merge(SimulationState other) {
+		games += other.games;
+		difference += other.difference;
+		outcomes.merge(other.outcomes);
+		for (int i = 0; i < totalsByAvg.length; i++) {
+			totalsByAvg[i] += other.totalsByAvg[i];
+			gamesByAvg[i] += other.gamesByAvg[i];
+		}
+		if (counter != null) {
+			counter.merge(other.counter);
+		}
+		dealerCacheHits += other.dealerCacheHits;
+		dealerCacheMisses += other.dealerCacheMisses;
+	}
+
+}
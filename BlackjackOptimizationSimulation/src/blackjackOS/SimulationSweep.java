@@ -0,0 +1,229 @@
+package blackjackOS;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/* This class runs a simulation for every combination of a list of deck counts and a list of reshuffle
+ * ratios in a single JVM, rather than one JVM being launched for each. The configurations are scheduled
+ * across a pool of threads, each of which plays a whole configuration at a time, so the code compiled by
+ * the JIT compiler, the caches of each thread, and the decision tables for each deck count are all shared
+ * between configurations. One row is written to a CSV file for each configuration, in the order that the
+ * configurations were listed.
+ * Arguments:
+ *   --games N      the number of games to simulate for each configuration (required)
+ *   --decks LIST   the deck counts to simulate, which are whole numbers from 1 up (required)
+ *   --ratios LIST  the reshuffle ratios to simulate (default 1)
+ *   --threads N    the number of configurations to run at once; 0 uses every available core (default 0)
+ *   --seed N       the seed that the seed of every configuration is found from
+ *   --table DIR    plays in table mode, loading or building a decision table for each deck count in DIR
+ *   --counts N     builds the decision tables with separate decisions for each true count from -N to N
+ *   --rules LIST   the rules of the table for every configuration, in the form read by Rules.parse
+ *   --count SYSTEM the player counts cards with "hilo", "ko", or "omega2" in every configuration
+ *   --spread LIST  the bets that a counting player makes by true count, in the form read by BetSpread.parse
+ *   --stop-ci P    stops each configuration early once the 95 percent confidence interval of its player's
+ *                  edge reaches less than P percent on each side, checking after every hundred thousand games
+ *   --out FILE     the CSV file to write (default sweep.csv)
+ * Each list is separated by commas, and each of its items can either be a single number or a range in the
+ * form start:end:step, so "0.25:1:0.25" is the same as "0.25,0.5,0.75,1". */
+public class SimulationSweep {
+
+	public static void main(String[] args) throws IOException {
+
+		long games = 0;
+		int[] decks = null;
+		double[] ratios = { 1.0 };
+		int threads = 0;
+		long seed = new SplittableRandom().nextLong();
+		String tableDir = null;
+		int counts = 0;
+		String out = "sweep.csv";
+		double stopHalfWidth = 0;
+		CountingSystem counting = null;
+		BetSpread spread = BetSpread.FLAT;
+
+		for (int i = 0; i < args.length; i += 2) {
+			if (i + 1 >= args.length) {
+				throw new IllegalArgumentException("Missing value for " + args[i]);
+			}
+			String value = args[i + 1];
+			switch (args[i]) {
+			case "--games":
+				games = Long.parseLong(value);
+				break;
+			case "--decks":
+				decks = parseDecks(value);
+				break;
+			case "--ratios":
+				ratios = parseList(value);
+				break;
+			case "--threads":
+				threads = Integer.parseInt(value);
+				break;
+			case "--seed":
+				seed = Long.parseLong(value);
+				break;
+			case "--table":
+				tableDir = value;
+				break;
+			case "--counts":
+				counts = Integer.parseInt(value);
+				break;
+			case "--rules":
+				BlackjackOptimization.setRules(Rules.parse(value));
+				break;
+			case "--count":
+				counting = CountingSystem.parse(value);
+				break;
+			case "--spread":
+				spread = BetSpread.parse(value);
+				break;
+			case "--stop-ci":
+				stopHalfWidth = Double.parseDouble(value) / 100;
+				break;
+			case "--out":
+				out = value;
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option " + args[i]);
+			}
+		}
+
+		if (games <= 0 || decks == null) {
+			throw new IllegalArgumentException("--games and --decks are required");
+		}
+		BlackjackSimulation.setCounting(counting, spread);
+		if (threads == 0) {
+			threads = Runtime.getRuntime().availableProcessors();
+		}
+
+		System.out.println("Seed: " + seed);
+		List<SimulationResult> results = sweep(games, decks, ratios, threads, new SplittableCardRandom(seed),
+				tableDir == null ? null : Path.of(tableDir), counts, Path.of(out), stopHalfWidth);
+		System.out.println("Wrote " + results.size() + " configurations to " + out);
+
+	}
+
+	/* Runs every combination of the given deck counts and reshuffle ratios, each on a single thread, with
+	 * the given number of configurations running at once. Every configuration gets its own generator split
+	 * off of the given one, in the order that they are listed, so a seeded sweep can be repeated exactly.
+	 * If a table directory is given, the configurations are played in table mode, with every configuration
+	 * that has the same number of decks sharing the same table. Each result is written to the CSV file as
+	 * soon as it and every configuration listed before it have finished, and all of them are returned.
+	 * If stopHalfWidth is positive, each configuration stops early once its confidence interval is that
+	 * narrow, which leaves more of the pool for the configurations that have not converged yet. */
+	public static List<SimulationResult> sweep(long games, int[] decks, double[] ratios, int threads,
+			CardRandom random, Path tableDir, int counts, Path out, double stopHalfWidth) throws IOException {
+
+		long chunk = stopHalfWidth > 0 ? SimulationOptions.DEFAULT_STOP_CHUNK : games;
+
+		// The decision table of each deck count, which is only loaded or built once, by whichever
+		// configuration needs it first
+		Map<Integer, DecisionTable> tables = new ConcurrentHashMap<>();
+
+		List<Future<SimulationResult>> futures = new ArrayList<>();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+
+		try {
+			for (int d : decks) {
+				for (double ratio : ratios) {
+					CardRandom configRandom = random.split();
+					futures.add(pool.submit(() -> {
+						DecisionTable table = tableDir == null ? null : tables.computeIfAbsent(d,
+								key -> loadOrBuild(tableDir, key, counts));
+						return BlackjackSimulation.simulateGames(games, d, ratio, 1, configRandom, table, null,
+								chunk, null, null, stopHalfWidth);
+					}));
+				}
+			}
+
+			List<SimulationResult> results = new ArrayList<>();
+			try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(out))) {
+				writer.println(SimulationResult.csvHeader(BlackjackOptimization.getRules()));
+				for (Future<SimulationResult> future : futures) {
+					SimulationResult result = future.get();
+					results.add(result);
+					writer.println(result.toCsvRow());
+					writer.flush();
+					System.out.printf("decks=%d ratio=%s games=%d win rate=%.6f edge=%.4f +/- %.4f percent "
+							+ "(%.0f games/s)\n", result.decks, result.reshuffleRatio, result.games, result.winRate,
+							result.playerEdge * 100, result.ciHalfWidth * 100, result.gamesPerSecond);
+				}
+			}
+			return results;
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Sweep was interrupted", e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Sweep failed", e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+
+	}
+
+	/* Loads or builds the decision table for a number of decks, which is stored in the given directory */
+	private static DecisionTable loadOrBuild(Path tableDir, int decks, int counts) {
+		try {
+			Files.createDirectories(tableDir);
+			return DecisionTable.loadOrBuild(tableDir.resolve("decisions-" + decks + ".bjdt"), decks, -counts,
+					counts);
+		} catch (IOException e) {
+			throw new RuntimeException("Could not load the decision table for " + decks + " decks", e);
+		}
+	}
+
+	/* Reads a list of deck counts in the same form as parseList, every one of which must be a whole number
+	 * of at least 1 */
+	static int[] parseDecks(String list) {
+		double[] values = parseList(list);
+		int[] decks = new int[values.length];
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] < 1 || values[i] != Math.rint(values[i])) {
+				throw new IllegalArgumentException("Could not read " + values[i] + " in " + list
+						+ " as a number of decks, which must be a whole number of at least 1");
+			}
+			decks[i] = (int) values[i];
+		}
+		return decks;
+	}
+
+	/* Reads a list of numbers separated by commas, where each item can also be a range of the form
+	 * start:end:step which includes both its start and its end */
+	static double[] parseList(String list) {
+		List<Double> values = new ArrayList<>();
+		for (String item : list.split(",")) {
+			String[] parts = item.split(":");
+			if (parts.length == 1) {
+				values.add(Double.parseDouble(parts[0]));
+			} else if (parts.length == 3) {
+				double start = Double.parseDouble(parts[0]);
+				double end = Double.parseDouble(parts[1]);
+				double step = Double.parseDouble(parts[2]);
+				if (step <= 0) {
+					throw new IllegalArgumentException("The step of " + item + " must be positive");
+				}
+				// Each value is found from the start rather than by adding up steps, so that the values do
+				// not drift, and a small tolerance makes sure that the end is included
+				for (int i = 0; start + i * step <= end + step * 1e-9; i++) {
+					values.add(start + i * step);
+				}
+			} else {
+				throw new IllegalArgumentException("Could not read " + item);
+			}
+		}
+		return values.stream().mapToDouble(Double::doubleValue).toArray();
+	}
+
+}
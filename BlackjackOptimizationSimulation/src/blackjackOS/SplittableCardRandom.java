@@ -0,0 +1,82 @@
+package blackjackOS;
+
+/* A generator for dealing cards which produces exactly the same numbers as a java.util.SplittableRandom
+ * given the same seed. Given the same seed, it will deal the same cards in the same order every time, as
+ * will every generator that is split off of it, so a simulation that is given a seed can be replayed
+ * exactly. The algorithm, SplitMix64, is written out here rather than wrapping a SplittableRandom because
+ * the state of a SplittableRandom cannot be read, and a checkpoint needs to save the state of every
+ * generator so that a run can be resumed exactly where it stopped. That state is just two longs: the
+ * current seed and the odd gamma that is added to it for each number. */
+public class SplittableCardRandom implements CardRandom {
+
+	// The gamma of a generator created from a seed alone, as in SplittableRandom
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private long seed;
+	private final long gamma;
+
+	/* Constructor */
+	public SplittableCardRandom(long seed) {
+		this(seed, GOLDEN_GAMMA);
+	}
+
+	/* Constructor which continues from a state saved with getSeed and getGamma */
+	public SplittableCardRandom(long seed, long gamma) {
+		this.seed = seed;
+		this.gamma = gamma;
+	}
+
+	/* Returns a random number from 0 to the bound in the same way as SplittableRandom, which rejects the
+	 * few numbers that would make some results more likely than others */
+	@Override
+	public int nextInt(int bound) {
+		int r = mix32(nextSeed());
+		int m = bound - 1;
+		if ((bound & m) == 0) {
+			return r & m;
+		}
+		for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = mix32(nextSeed()) >>> 1) {
+		}
+		return r;
+	}
+
+	@Override
+	public CardRandom split() {
+		long splitSeed = mix64(nextSeed());
+		return new SplittableCardRandom(splitSeed, mixGamma(nextSeed()));
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public long getGamma() {
+		return gamma;
+	}
+
+	private long nextSeed() {
+		return seed += gamma;
+	}
+
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	private static int mix32(long z) {
+		z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+		return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+	}
+
+	/* Finds the gamma of a split generator, which must be odd and have enough changes between neighboring
+	 * bits to mix well */
+	private static long mixGamma(long z) {
+		z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+		z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		z = (z ^ (z >>> 33)) | 1L;
+		int n = Long.bitCount(z ^ (z >>> 1));
+		return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+	}
+
+}
@@ -0,0 +1,21 @@
+package blackjackOS;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/* A generator for dealing cards which uses the ThreadLocalRandom of whichever thread is drawing the card.
+ * It needs no setup and is never shared between threads, but it cannot be seeded, so runs that use it
+ * cannot be repeated. */
+public class ThreadLocalCardRandom implements CardRandom {
+
+	@Override
+	public int nextInt(int bound) {
+		return ThreadLocalRandom.current().nextInt(bound);
+	}
+
+	/* Every thread already has its own generator, so the same object can be used by all of them */
+	@Override
+	public CardRandom split() {
+		return this;
+	}
+
+}
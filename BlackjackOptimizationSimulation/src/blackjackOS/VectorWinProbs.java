@@ -0,0 +1,51 @@
+package blackjackOS;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/* This class scores the distributions of a WinProbBatch with the incubating Vector API, as many
+ * distributions at a time as the processor's widest vectors hold, and the ones left over one at a time.
+ * Each lane makes the same multiplications and additions in the same order as the plain loop in
+ * WinProbBatch, without fusing any of them, so the two give exactly the same probabilities.
+ * The jdk.incubator.vector module is only there when it is added to the JVM with
+ * --add-modules jdk.incubator.vector, so WinProbBatch only uses this class when it is, which keeps this
+ * class from being loaded at all otherwise. */
+final class VectorWinProbs {
+
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+	private VectorWinProbs() {
+	}
+
+	/* Stores in out the probability of winning with each of the first n distributions, which are packed
+	 * in p with the given capacity as in WinProbBatch, given the dealer's chance of busting and the weight
+	 * of each of the player's final totals from 17 up */
+	static void winProbs(double[] p, int capacity, int n, double bust, double w17, double w18, double w19,
+			double w20, double w21, double[] out) {
+
+		int r17 = 5 * capacity;
+		int r18 = r17 + capacity;
+		int r19 = r18 + capacity;
+		int r20 = r19 + capacity;
+		int r21 = r20 + capacity;
+		int rBust = r21 + capacity;
+
+		DoubleVector one = DoubleVector.broadcast(SPECIES, 1.0);
+		int i = 0;
+		for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+			DoubleVector sum = one.sub(DoubleVector.fromArray(SPECIES, p, rBust + i)).mul(bust);
+			sum = sum.add(DoubleVector.fromArray(SPECIES, p, r17 + i).mul(w17));
+			sum = sum.add(DoubleVector.fromArray(SPECIES, p, r18 + i).mul(w18));
+			sum = sum.add(DoubleVector.fromArray(SPECIES, p, r19 + i).mul(w19));
+			sum = sum.add(DoubleVector.fromArray(SPECIES, p, r20 + i).mul(w20));
+			sum = sum.add(DoubleVector.fromArray(SPECIES, p, r21 + i).mul(w21));
+			sum.intoArray(out, i);
+		}
+		for (; i < n; i++) {
+			out[i] = bust * (1 - p[rBust + i]) + w17 * p[r17 + i] + w18 * p[r18 + i] + w19 * p[r19 + i]
+					+ w20 * p[r20 + i] + w21 * p[r21 + i];
+		}
+
+	}
+
+}
@@ -0,0 +1,119 @@
+package blackjackOS;
+
+/* This class scores many of the player's distributions of final totals against one set of the dealer's
+ * probabilities at once, giving the same probabilities of winning as playerWinProb in BlackjackOptimization
+ * up to rounding. playerWinProb is a fixed sum of products, so against a given dealer it is the dealer's
+ * chance of busting plus one weight times each of the player's chances of finishing on 17 through 21 or
+ * busting, and the weights only have to be found once for the whole batch.
+ * The distributions are packed as a structure of arrays: one array holds every distribution, with the
+ * chances of each final total for every distribution next to each other, so entry i of total k is at
+ * k * capacity + i. Scoring the batch is then a single loop over the distributions that reads six of those
+ * rows in order. When the JVM was started with --add-modules jdk.incubator.vector, the loop is run by
+ * VectorWinProbs with the incubating Vector API, a vector of distributions at a time, and otherwise the
+ * plain loop is used, which gives exactly the same probabilities. The module is also needed to compile
+ * VectorWinProbs, which the Maven build adds.
+ * A batch is filled, scored, and then cleared to be filled again, so it never creates any new arrays once
+ * it has been made.
+ * SplitEvaluator is the only user, scoring a hand's hit and double distributions for every second card in
+ * one batch. The decision table and the exact analyzer score one distribution at a time: each deal in the
+ * analyzer has its own cards left and dealer's probabilities, so there is nothing to batch, and each row
+ * of the table is decided by shouldHit, whose time goes into the player's draw tree, not the scoring. */
+public class WinProbBatch {
+
+	// The number of final totals in each distribution: 12 or less, 13 through 21, and busting
+	static final int TOTALS = 11;
+
+	// Whether the Vector API's module was added to the JVM, so that VectorWinProbs can be used
+	static final boolean VECTOR = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+	private final int capacity;
+
+	// The chances of every final total of every distribution, at k * capacity + i
+	private final double[] probs;
+
+	private int size;
+
+	// The chance of winning by standing on each total up to 21, found for each batch of totals
+	private final double[] byTotal = new double[22];
+
+	/* Constructor. The batch holds up to the given number of distributions. */
+	public WinProbBatch(int capacity) {
+		this.capacity = capacity;
+		this.probs = new double[TOTALS * capacity];
+	}
+
+	/* Empties the batch so that it can be filled again */
+	public void clear() {
+		size = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/* Adds a distribution of the player's final totals, in the same form as the ones getPlayerProbs finds,
+	 * and returns its index in the batch */
+	public int add(double[] playerProbs) {
+		if (size == capacity) {
+			throw new IllegalStateException("The batch is full at " + capacity + " distributions");
+		}
+		for (int k = 0, offset = size; k < TOTALS; k++, offset += capacity) {
+			probs[offset] = playerProbs[k];
+		}
+		return size++;
+	}
+
+	/* Stores in the given array the player's probability of winning with each distribution in the batch,
+	 * in the order they were added, against the given dealer's probabilities of finishing with 17, 18, 19,
+	 * 20, 21, and over 21. A push counts as half of a win, as in playerWinProb. */
+	public void winProbs(double[] dealerProbs, double[] out) {
+		winProbs(dealerProbs, out, VECTOR);
+	}
+
+	/* Finds the same probabilities with the Vector API if vector is true, which needs its module, and with
+	 * the plain loop otherwise */
+	void winProbs(double[] dealerProbs, double[] out, boolean vector) {
+
+		// The weight of each of the player's final totals from 17 up is the dealer's chance of finishing
+		// lower, plus half of their chance of finishing on the same total. The player's 16 or less only wins
+		// when the dealer busts, which every distribution starts with, and busting takes that back.
+		double bust = dealerProbs[5];
+		double w17 = dealerProbs[0] / 2;
+		double w18 = dealerProbs[0] + dealerProbs[1] / 2;
+		double w19 = dealerProbs[0] + dealerProbs[1] + dealerProbs[2] / 2;
+		double w20 = dealerProbs[0] + dealerProbs[1] + dealerProbs[2] + dealerProbs[3] / 2;
+		double w21 = dealerProbs[0] + dealerProbs[1] + dealerProbs[2] + dealerProbs[3] + dealerProbs[4] / 2;
+
+		int n = size;
+		if (vector) {
+			VectorWinProbs.winProbs(probs, capacity, n, bust, w17, w18, w19, w20, w21, out);
+			return;
+		}
+
+		int r17 = 5 * capacity;
+		int r18 = r17 + capacity;
+		int r19 = r18 + capacity;
+		int r20 = r19 + capacity;
+		int r21 = r20 + capacity;
+		int rBust = r21 + capacity;
+		double[] p = probs;
+		for (int i = 0; i < n; i++) {
+			out[i] = bust * (1 - p[rBust + i]) + w17 * p[r17 + i] + w18 * p[r18 + i] + w19 * p[r19 + i]
+					+ w20 * p[r20 + i] + w21 * p[r21 + i];
+		}
+
+	}
+
+	/* Stores in the given array the player's probability of winning by standing on each of the first count
+	 * totals, against the given dealer's probabilities. The chance for each total is found once, in the same
+	 * way as for a single hand, and then looked up; a total over 21 never wins. */
+	public void winIfStand(int[] totals, int count, double[] dealerProbs, double[] out) {
+		for (int total = 0; total <= 21; total++) {
+			byTotal[total] = BlackjackOptimization.winIfStand(total, dealerProbs);
+		}
+		for (int i = 0; i < count; i++) {
+			out[i] = totals[i] > 21 ? 0.0 : byTotal[totals[i]];
+		}
+	}
+
+}
@@ -0,0 +1,156 @@
+package blackjackOS;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/* Checks the tags, starting counts, and running and true counts of every counting system against counts
+ * worked out by hand, that a count found from the cards left matches one kept card by card, and that the
+ * spread's bets and the units won per hundred games come out of the tallies as expected */
+public class CardCounterTest {
+
+	// The cards dealt in the known sequence, with 1 for an ace
+	private static final int[] SEQUENCE = { 2, 3, 4, 5, 6, 7, 8, 9, 10, 1, 10, 5 };
+
+	/* Returns a counter for the given system and decks that has counted the known sequence */
+	private static CardCounter counted(CountingSystem system, int decks) {
+		CardCounter counter = new CardCounter(system, decks);
+		for (int card : SEQUENCE) {
+			counter.count(Shoe.indexOf(card));
+		}
+		return counter;
+	}
+
+	@Test
+	public void tagsOfEachCard() {
+		int[] values = { 2, 3, 4, 5, 6, 7, 8, 9, 10, 1 };
+		int[] hiLo = { 1, 1, 1, 1, 1, 0, 0, 0, -1, -1 };
+		int[] ko = { 1, 1, 1, 1, 1, 1, 0, 0, -1, -1 };
+		int[] omega = { 1, 1, 2, 2, 2, 1, 0, -1, -2, 0 };
+		for (int i = 0; i < values.length; i++) {
+			int idx = Shoe.indexOf(values[i]);
+			assertEquals(hiLo[i], CountingSystem.HI_LO.tag(idx), "Hi-Lo " + values[i]);
+			assertEquals(ko[i], CountingSystem.KO.tag(idx), "KO " + values[i]);
+			assertEquals(omega[i], CountingSystem.OMEGA_II.tag(idx), "Omega II " + values[i]);
+		}
+		assertEquals(CountingSystem.OMEGA_II, CountingSystem.parse("Omega2"));
+		assertThrows(IllegalArgumentException.class, () -> CountingSystem.parse("zen"));
+	}
+
+	/* The balanced systems start at 0, and KO at 4 below 0 for every deck after the first, as each deck
+	 * dealt adds 4 to it on average, so that it reaches 0 with one deck left */
+	@Test
+	public void initialCounts() {
+		for (int decks : new int[] { 1, 2, 6, 8 }) {
+			assertEquals(0, CountingSystem.HI_LO.initialCount(decks));
+			assertEquals(0, CountingSystem.OMEGA_II.initialCount(decks));
+			assertEquals(-4 * (decks - 1), CountingSystem.KO.initialCount(decks));
+		}
+	}
+
+	@Test
+	public void countsOfTheKnownSequence() {
+		// 2 through 6 and the last 5 are +1 each, and the 10s and the ace are -1 each
+		CardCounter hiLo = counted(CountingSystem.HI_LO, 1);
+		assertEquals(3, hiLo.runningCount());
+		// 3 per deck with 40 of 52 cards left is 3.9
+		assertEquals(4, hiLo.trueCount());
+		// 3 per deck with 300 of 312 cards left is 0.52
+		assertEquals(1, counted(CountingSystem.HI_LO, 6).trueCount());
+
+		// KO also counts the 7, and its running count is its true count, starting from -20 with 6 decks
+		assertEquals(4, counted(CountingSystem.KO, 1).trueCount());
+		assertEquals(-16, counted(CountingSystem.KO, 6).runningCount());
+		assertEquals(-16, counted(CountingSystem.KO, 6).trueCount());
+
+		// 1 + 1 + 2 + 2 + 2 + 1 + 0 - 1 - 2 + 0 - 2 + 2
+		CardCounter omega = counted(CountingSystem.OMEGA_II, 1);
+		assertEquals(6, omega.runningCount());
+		// 6 per deck with 40 of 52 cards left is 7.8
+		assertEquals(8, omega.trueCount());
+	}
+
+	/* Dealing every 10 and ace of a deck leaves Hi-Lo at -20 with 32 cards left, a true count of -32.5,
+	 * which rounds up to -32 and is tallied with the lowest count */
+	@Test
+	public void trueCountsRoundAndAreClamped() {
+		CardCounter counter = new CardCounter(CountingSystem.HI_LO, 1);
+		for (int i = 0; i < 16; i++) {
+			counter.count(0);
+		}
+		for (int i = 0; i < 4; i++) {
+			counter.count(1);
+		}
+		assertEquals(-20, counter.runningCount());
+		assertEquals(-32, counter.trueCount());
+		counter.startGame();
+		counter.endGame(-1);
+		assertEquals(1, counter.gamesByCount[0]);
+		assertEquals(-1, counter.payoutsByCount[0], 0.0);
+
+		// A fresh shoe counts from the start again
+		counter.reset();
+		assertEquals(0, counter.runningCount());
+		counter.startGame();
+		counter.endGame(1.5);
+		assertEquals(1, counter.gamesByCount[CardCounter.MAX_COUNT]);
+	}
+
+	/* The count found from the cards left, as when a run is resumed, is the one kept as each card was dealt */
+	@Test
+	public void recountMatchesCountingCardByCard() {
+		CardRandom random = new SplittableCardRandom(21);
+		for (CountingSystem system : CountingSystem.values()) {
+			for (int decks : new int[] { 1, 6 }) {
+				Shoe shoe = Shoe.full(decks);
+				CardCounter dealt = new CardCounter(system, decks);
+				CardCounter recounted = new CardCounter(system, decks);
+				int cards = decks * 52 - 10;
+				for (int i = 0; i < cards; i++) {
+					BlackjackSimulation.hit(shoe, random, dealt);
+					if (i % 7 == 0 || i == cards - 1) {
+						recounted.recount(shoe);
+						assertEquals(dealt.runningCount(), recounted.runningCount(), system + " " + decks);
+						assertEquals(dealt.trueCount(), recounted.trueCount(), system + " " + decks);
+					}
+				}
+			}
+		}
+	}
+
+	/* The first bet is made at a true count of 1 and below, and the last at its count and above */
+	@Test
+	public void spreadBetsByTrueCount() {
+		BetSpread spread = BetSpread.parse("1, 2,4,8");
+		assertEquals(1, spread.bet(-20), 0.0);
+		assertEquals(1, spread.bet(1), 0.0);
+		assertEquals(2, spread.bet(2), 0.0);
+		assertEquals(4, spread.bet(3), 0.0);
+		assertEquals(8, spread.bet(4), 0.0);
+		assertEquals(8, spread.bet(20), 0.0);
+		assertEquals("1.0,2.0,4.0,8.0", spread.toString());
+		assertThrows(IllegalArgumentException.class, () -> BetSpread.parse("1,0"));
+	}
+
+	/* 100 games at a count of 0 lose 5 units at 1 unit each, 50 games at 3 win 4 wagers at 4 units each, and
+	 * 10 games at 10 win 2 wagers at 8 units each: 27 units over 160 games, with 380 units bet */
+	@Test
+	public void unitsPer100FromTheTallies() {
+		CardCounter counter = new CardCounter(CountingSystem.HI_LO, 1);
+		counter.gamesByCount[CardCounter.MAX_COUNT] = 100;
+		counter.payoutsByCount[CardCounter.MAX_COUNT] = -5;
+		counter.gamesByCount[CardCounter.MAX_COUNT + 3] = 50;
+		counter.payoutsByCount[CardCounter.MAX_COUNT + 3] = 4;
+		counter.gamesByCount[CardCounter.MAX_COUNT + 10] = 10;
+		counter.payoutsByCount[CardCounter.MAX_COUNT + 10] = 2;
+
+		SimulationResult result = new SimulationResult(160, 1, new OutcomeHistogram(Rules.STANDARD), 1.0, 1.0,
+				1.0);
+		result.setCounts(counter, BetSpread.parse("1,2,4,8"));
+		assertEquals(100 * 27.0 / 160, result.unitsPer100, 1e-12);
+		assertEquals(380.0 / 160, result.averageBet, 1e-12);
+		assertEquals(-0.05, result.evByCount[CardCounter.MAX_COUNT], 1e-12);
+		assertEquals(4, result.betByCount[CardCounter.MAX_COUNT + 3], 0.0);
+	}
+}
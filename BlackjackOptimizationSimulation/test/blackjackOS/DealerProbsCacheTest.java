@@ -0,0 +1,80 @@
+package blackjackOS;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/* Checks that the dealer's probabilities found through the cache are exactly the ones the recursion finds
+ * for the same cards left, whether they were just computed, found again, or computed again after being
+ * removed */
+public class DealerProbsCacheTest {
+
+	/* Returns a shoe of the given number of decks with the given number of random cards drawn out of it */
+	static Shoe partialShoe(int decks, int drawn, CardRandom random) {
+		Shoe shoe = Shoe.full(decks);
+		for (int i = 0; i < drawn; i++) {
+			shoe.draw(random);
+		}
+		return shoe;
+	}
+
+	private static double[] recursive(int up, Shoe cardsLeft) {
+		return BlackjackOptimization.getDealerProbs(up, cardsLeft, 1, up == 11, new double[6]);
+	}
+
+	@Test
+	public void cachedResultsEqualRecursiveOnes() {
+		CardRandom random = new SplittableCardRandom(1);
+		for (int decks : new int[] { 1, 2, 6, 8 }) {
+			DealerProbsCache cache = new DealerProbsCache();
+			for (int shoe = 0; shoe < 50; shoe++) {
+				Shoe cardsLeft = partialShoe(decks, random.nextInt(decks * 52 * 3 / 4), random);
+				for (int up = 2; up <= 11; up++) {
+					double[] expected = recursive(up, cardsLeft);
+					double[] computed = cache.get(up, cardsLeft, up == 11);
+					assertArrayEquals(expected, computed, 0.0);
+					long hits = cache.getHits();
+					assertSame(computed, cache.get(up, cardsLeft, up == 11));
+					assertEquals(hits + 1, cache.getHits());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void removedEntriesAreComputedAgain() {
+		CardRandom random = new SplittableCardRandom(2);
+		DealerProbsCache cache = new DealerProbsCache(4);
+		Shoe[] shoes = new Shoe[10];
+		for (int i = 0; i < shoes.length; i++) {
+			shoes[i] = partialShoe(2, 10 + i, random);
+		}
+		for (int pass = 0; pass < 2; pass++) {
+			for (Shoe shoe : shoes) {
+				assertArrayEquals(recursive(6, shoe), cache.get(6, shoe, false), 0.0);
+				assertTrue(cache.size() <= 4);
+			}
+		}
+		assertEquals(0, cache.getHits());
+	}
+
+	@Test
+	public void lookupsEqualRecursiveOnes() {
+		CardRandom random = new SplittableCardRandom(3);
+		for (int decks = 1; decks <= 8; decks++) {
+			for (int up = 2; up <= 11; up++) {
+				Shoe full = Shoe.full(decks);
+				full.remove(Shoe.indexOf(up));
+				assertArrayEquals(recursive(up, full), BlackjackOptimization.getDealerProbs(up, full, up == 11),
+						0.0);
+				Shoe partial = partialShoe(decks, 5, random);
+				assertArrayEquals(recursive(up, partial),
+						BlackjackOptimization.getDealerProbs(up, partial, up == 11), 0.0);
+			}
+		}
+	}
+
+}
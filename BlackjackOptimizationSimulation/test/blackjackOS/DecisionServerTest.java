@@ -0,0 +1,167 @@
+package blackjackOS;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/* Checks that the decision server answers with the optimizer's own decisions, both the first time and from
+ * its cache, how it answers requests that can't be played and failures while finding an answer, and that
+ * its shared cache keeps the answers used most recently */
+public class DecisionServerTest {
+
+	private final HttpClient client = HttpClient.newHttpClient();
+	private DecisionServer server;
+
+	@AfterEach
+	public void stop() {
+		if (server != null) {
+			server.stop(0);
+		}
+	}
+
+	private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path))
+				.build();
+		return client.send(request, HttpResponse.BodyHandlers.ofString());
+	}
+
+	private static DecisionServer start(DecisionServer server) {
+		server.start();
+		return server;
+	}
+
+	/* Returns the value of the given field in a line of JSON written by the server */
+	private static String field(String body, String name) {
+		Matcher matcher = Pattern.compile("\"" + name + "\":\"?([^,\"}]*)").matcher(body);
+		assertTrue(matcher.find(), name + " is missing from " + body);
+		return matcher.group(1);
+	}
+
+	/* Checks that the server's answer has the same action, decisions, and probabilities as the given
+	 * decision, to the last bit */
+	private static void assertAnswer(String body, Decision decision, boolean split) {
+		String action = split ? "split" : decision.surrender ? "surrender" : decision.doubleDown ? "double"
+				: decision.hit ? "hit" : "stand";
+		assertEquals(action, field(body, "action"), body);
+		assertEquals(decision.hit, Boolean.parseBoolean(field(body, "hit")), body);
+		assertEquals(decision.doubleDown, Boolean.parseBoolean(field(body, "double")), body);
+		assertEquals(decision.surrender, Boolean.parseBoolean(field(body, "surrender")), body);
+		assertEquals(split, Boolean.parseBoolean(field(body, "split")), body);
+		assertEquals(decision.winIfHit, Double.parseDouble(field(body, "winIfHit")), 0.0, body);
+		assertEquals(decision.winIfStand, Double.parseDouble(field(body, "winIfStand")), 0.0, body);
+		assertEquals(decision.winIfHitOnce, Double.parseDouble(field(body, "winIfHitOnce")), 0.0, body);
+	}
+
+	/* Returns the body of a request that the server answered, checking that a second request for the same
+	 * hand is answered from the cache with the same body */
+	private String decideTwice(String path) throws Exception {
+		HttpResponse<String> response = get(path);
+		assertEquals(200, response.statusCode(), response.body());
+		long hits = Long.parseLong(field(get("/stats").body(), "cacheHits"));
+		assertEquals(response.body(), get(path).body());
+		assertEquals(hits + 1, Long.parseLong(field(get("/stats").body(), "cacheHits")));
+		return response.body();
+	}
+
+	/* Pairs of 8s against a 10, a soft 18 with other cards known to be gone, and a hand of three cards, which
+	 * is past its first decision, each give what the optimizer gives for the same hand and cards left */
+	@Test
+	public void answersMatchTheOptimizer() throws Exception {
+		server = start(new DecisionServer(new InetSocketAddress("localhost", 0), 1, 16, false));
+		Decision decision = new Decision();
+
+		String body = decideTwice("/decide?decks=6&player=8,8&dealer=10");
+		Shoe cardsLeft = Shoe.full(6);
+		for (int card : new int[] { 10, 8, 8 }) {
+			BlackjackSimulation.removeElements(card, cardsLeft);
+		}
+		double[] dealerProbs = BlackjackOptimization.getDealerProbs(10, cardsLeft, false).clone();
+		BlackjackOptimization.shouldHit(16, 10, dealerProbs, false, cardsLeft, decision);
+		boolean split = BlackjackOptimization.shouldSplit(8, 10, dealerProbs, cardsLeft, decision);
+		assertTrue(split);
+		assertAnswer(body, decision, split);
+
+		body = decideTwice("/decide?decks=2&player=A,7&dealer=9&removed=2,5,K");
+		cardsLeft = Shoe.full(2);
+		for (int card : new int[] { 9, 2, 5, 10, 1, 7 }) {
+			BlackjackSimulation.removeElements(card, cardsLeft);
+		}
+		dealerProbs = BlackjackOptimization.getDealerProbs(9, cardsLeft, false).clone();
+		BlackjackOptimization.shouldHit(18, 9, dealerProbs, true, cardsLeft, decision);
+		assertAnswer(body, decision, false);
+
+		body = decideTwice("/decide?decks=1&player=5,3,4&dealer=10");
+		cardsLeft = Shoe.full(1);
+		for (int card : new int[] { 10, 5, 3, 4 }) {
+			BlackjackSimulation.removeElements(card, cardsLeft);
+		}
+		dealerProbs = BlackjackOptimization.getDealerProbs(10, cardsLeft, false).clone();
+		decision = new Decision();
+		BlackjackOptimization.shouldHitAux(12, dealerProbs, false, cardsLeft, decision);
+		assertAnswer(body, decision, false);
+
+		BlackjackOptimization.clearThreadCaches();
+	}
+
+	@Test
+	public void decksOutOfRangeAreRejected() throws Exception {
+		server = start(new DecisionServer(new InetSocketAddress("localhost", 0), 1, 16, false));
+		assertEquals(400, get("/decide?decks=0&player=10,6&dealer=10").statusCode());
+		assertEquals(400, get("/decide?decks=9&player=10,6&dealer=10").statusCode());
+		assertEquals(400, get("/decide?decks=1000000&player=10,6&dealer=10").statusCode());
+		assertEquals(400, get("/decide?decks=six&player=10,6&dealer=10").statusCode());
+		HttpResponse<String> response = get("/decide?decks=8&player=10,6&dealer=10");
+		assertEquals(200, response.statusCode());
+		assertTrue(response.body().contains("\"action\""));
+	}
+
+	/* A failure inside the evaluation is answered with a 500, and the thread goes on to answer the next
+	 * request */
+	@Test
+	public void failuresAreAnsweredWithServerErrors() throws Exception {
+		server = start(new DecisionServer(new InetSocketAddress("localhost", 0), 1, 16, false) {
+			@Override
+			String decide(Map<String, String> params) {
+				if (params.containsKey("fail")) {
+					throw new IllegalStateException("failed");
+				}
+				return super.decide(params);
+			}
+		});
+		for (int i = 0; i < 3; i++) {
+			HttpResponse<String> response = get("/decide?fail=1&player=10,6&dealer=10");
+			assertEquals(500, response.statusCode());
+			assertTrue(response.body().contains("failed"));
+		}
+		assertEquals(200, get("/decide?player=10,6&dealer=10").statusCode());
+	}
+
+	@Test
+	public void leastRecentlyUsedAnswersAreDropped() throws Exception {
+		server = start(new DecisionServer(new InetSocketAddress("localhost", 0), 1, 2, false));
+		get("/decide?decks=1&player=10,6&dealer=10");
+		get("/decide?decks=1&player=10,5&dealer=10");
+		get("/decide?decks=1&player=10,6&dealer=10");
+		get("/decide?decks=1&player=10,4&dealer=10");
+		assertTrue(get("/stats").body().contains("\"cacheHits\":1,\"cached\":2"));
+
+		// 10,5 was used least recently and has been dropped, while 10,6 is still kept
+		get("/decide?decks=1&player=10,6&dealer=10");
+		assertTrue(get("/stats").body().contains("\"cacheHits\":2,"));
+		get("/decide?decks=1&player=10,5&dealer=10");
+		assertTrue(get("/stats").body().contains("\"cacheHits\":2,"));
+	}
+
+}
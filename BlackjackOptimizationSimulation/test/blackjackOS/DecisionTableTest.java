@@ -0,0 +1,118 @@
+package blackjackOS;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/* Checks that decision tables are saved and loaded without losing their decks or true counts, that
+ * ranges the shoe can't be built for are rejected, that only a table of another version is built again
+ * over its file, and that the true count needs only the shoe */
+public class DecisionTableTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	public void saveAndLoadKeepEveryDecision() throws IOException {
+		DecisionTable table = DecisionTable.build(1, -1, 1);
+		Path path = dir.resolve("table.bjdt");
+		table.save(path);
+		DecisionTable loaded = DecisionTable.load(path);
+		assertEquals(1, loaded.getDecks());
+		assertEquals(table.getRules(), loaded.getRules());
+		for (int bucket = 0; bucket < 3; bucket++) {
+			for (int up = 2; up <= 11; up++) {
+				for (int total = 0; total <= 21; total++) {
+					assertEquals(table.lookup(bucket, total, false, up), loaded.lookup(bucket, total, false, up));
+					assertEquals(table.lookup(bucket, total, true, up), loaded.lookup(bucket, total, true, up));
+				}
+				for (int card = 2; card <= 11; card++) {
+					assertEquals(table.shouldSplit(bucket, card, up), loaded.shouldSplit(bucket, card, up));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void rangesOutsideTheShoeAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> DecisionTable.build(0, 0, 0));
+		assertThrows(IllegalArgumentException.class, () -> DecisionTable.build(1, 1, 0));
+		assertThrows(IllegalArgumentException.class,
+				() -> DecisionTable.build(1, 0, CardCounter.MAX_COUNT + 1));
+		assertThrows(IllegalArgumentException.class,
+				() -> DecisionTable.build(1, -CardCounter.MAX_COUNT - 1, 0));
+	}
+
+	/* A file claiming 200 decks and true counts from -300 to 300 would have been read back as other numbers
+	 * when they were stored as bytes, and is rejected now that they are not */
+	@Test
+	public void filesOutOfRangeAreRejected() throws IOException {
+		Path path = dir.resolve("bad.bjdt");
+		try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(path))) {
+			out.writeInt(0x424A4454);
+			out.writeByte(3);
+			out.writeInt(200);
+			out.writeInt(-300);
+			out.writeInt(300);
+			out.writeUTF(Rules.STANDARD.toString());
+		}
+		assertThrows(IOException.class, () -> DecisionTable.load(path));
+	}
+
+	/* A table saved in version 2 is built again and saved over, and the new one is loaded the next time */
+	@Test
+	public void olderVersionIsBuiltAgain() throws IOException {
+		Path path = dir.resolve("old.bjdt");
+		try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(path))) {
+			out.writeInt(0x424A4454);
+			out.writeByte(2);
+			out.writeByte(1);
+		}
+		assertThrows(DecisionTable.VersionException.class, () -> DecisionTable.load(path));
+		DecisionTable table = DecisionTable.loadOrBuild(path, 1, 0, 0);
+		assertEquals(1, table.getDecks());
+		assertEquals(1, DecisionTable.load(path).getDecks());
+	}
+
+	/* A table that is cut short, or a file that isn't a table at all, is not written over */
+	@Test
+	public void damagedFilesAreNotWrittenOver() throws IOException {
+		Path truncated = dir.resolve("truncated.bjdt");
+		DecisionTable.build(1, 0, 0).save(truncated);
+		byte[] whole = Files.readAllBytes(truncated);
+		byte[] cut = Arrays.copyOf(whole, whole.length / 2);
+		Files.write(truncated, cut);
+		assertThrows(EOFException.class, () -> DecisionTable.loadOrBuild(truncated, 1, 0, 0));
+		assertArrayEquals(cut, Files.readAllBytes(truncated));
+
+		Path other = dir.resolve("notes.txt");
+		byte[] notes = "not a table".getBytes(StandardCharsets.UTF_8);
+		Files.write(other, notes);
+		IOException e = assertThrows(IOException.class, () -> DecisionTable.loadOrBuild(other, 1, 0, 0));
+		assertFalse(e instanceof DecisionTable.VersionException);
+		assertArrayEquals(notes, Files.readAllBytes(other));
+	}
+
+	/* The shoes are only built to about their true count, as taking cards out also leaves fewer decks */
+	@Test
+	public void trueCountOfBuiltShoes() {
+		for (int decks : new int[] { 1, 2, 6, 8 }) {
+			for (int count = -5; count <= 5; count++) {
+				assertEquals(count, DecisionTable.trueCount(DecisionTable.shoeWithCount(decks, count)), 1);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,99 @@
+package blackjackOS;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/* Checks that the iterative engine finds exactly the same dealer's and player's probabilities, and so the
+ * same decisions, as the recursive one, as both add the probabilities up in the same order */
+public class EngineTest {
+
+	@AfterEach
+	public void restoreEngine() {
+		BlackjackOptimization.setEngine(BlackjackOptimization.Engine.RECURSIVE);
+		BlackjackOptimization.clearThreadCaches();
+	}
+
+	private static double[] dealerProbs(BlackjackOptimization.Engine engine, int dealer, Shoe shoe, double prob,
+			boolean ace) {
+		BlackjackOptimization.setEngine(engine);
+		return BlackjackOptimization.getDealerProbs(dealer, shoe, prob, ace, new double[6]);
+	}
+
+	/* Finds the player's probabilities with nothing carried over in this thread's caches from the other
+	 * engine */
+	private static double[] playerProbs(BlackjackOptimization.Engine engine, int total, boolean soft, Shoe shoe,
+			double[] dealerProbs) {
+		BlackjackOptimization.setEngine(engine);
+		BlackjackOptimization.clearThreadCaches();
+		return BlackjackOptimization.getPlayerProbs(total, shoe, 1.0, soft, new double[11], dealerProbs);
+	}
+
+	@Test
+	public void dealerProbsAreEqual() {
+		CardRandom random = new SplittableCardRandom(6);
+		for (int decks : new int[] { 1, 2, 6, 8 }) {
+			for (int shoe = 0; shoe < 10; shoe++) {
+				Shoe cardsLeft = DealerProbsCacheTest.partialShoe(decks, random.nextInt(decks * 30), random);
+				for (int up = 2; up <= 11; up++) {
+					assertArrayEquals(
+							dealerProbs(BlackjackOptimization.Engine.RECURSIVE, up, cardsLeft, 1, up == 11),
+							dealerProbs(BlackjackOptimization.Engine.ITERATIVE, up, cardsLeft, 1, up == 11), 0.0);
+				}
+				// A dealer part of the way through drawing, with a soft 13, which is only reached with a
+				// probability of less than 1
+				assertArrayEquals(dealerProbs(BlackjackOptimization.Engine.RECURSIVE, 13, cardsLeft, 0.25, true),
+						dealerProbs(BlackjackOptimization.Engine.ITERATIVE, 13, cardsLeft, 0.25, true), 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void playerProbsAndDecisionsAreEqual() {
+		CardRandom random = new SplittableCardRandom(7);
+		Decision recursive = new Decision();
+		Decision iterative = new Decision();
+		for (int decks : new int[] { 1, 2, 6 }) {
+			for (int shoe = 0; shoe < 3; shoe++) {
+				Shoe cardsLeft = DealerProbsCacheTest.partialShoe(decks, random.nextInt(decks * 30), random);
+				for (int up : new int[] { 2, 6, 10, 11 }) {
+					double[] dealerProbs = BlackjackOptimization.getDealerProbs(up, cardsLeft, 1, up == 11,
+							new double[6]);
+					for (int total = 5; total <= 20; total++) {
+						assertArrayEquals(
+								playerProbs(BlackjackOptimization.Engine.RECURSIVE, total, false, cardsLeft, dealerProbs),
+								playerProbs(BlackjackOptimization.Engine.ITERATIVE, total, false, cardsLeft, dealerProbs),
+								0.0);
+					}
+					for (int total = 12; total <= 20; total++) {
+						assertArrayEquals(
+								playerProbs(BlackjackOptimization.Engine.RECURSIVE, total, true, cardsLeft, dealerProbs),
+								playerProbs(BlackjackOptimization.Engine.ITERATIVE, total, true, cardsLeft, dealerProbs),
+								0.0);
+					}
+					for (int total : new int[] { 9, 11, 12, 16 }) {
+						decide(BlackjackOptimization.Engine.RECURSIVE, total, up, dealerProbs, cardsLeft, recursive);
+						decide(BlackjackOptimization.Engine.ITERATIVE, total, up, dealerProbs, cardsLeft, iterative);
+						assertEquals(recursive.hit, iterative.hit);
+						assertEquals(recursive.doubleDown, iterative.doubleDown);
+						assertEquals(recursive.surrender, iterative.surrender);
+						assertEquals(recursive.winIfHit, iterative.winIfHit, 0.0);
+						assertEquals(recursive.winIfHitOnce, iterative.winIfHitOnce, 0.0);
+					}
+				}
+			}
+		}
+	}
+
+	private static void decide(BlackjackOptimization.Engine engine, int total, int up, double[] dealerProbs,
+			Shoe cardsLeft, Decision decision) {
+		BlackjackOptimization.setEngine(engine);
+		BlackjackOptimization.clearThreadCaches();
+		BlackjackOptimization.shouldHit(total, up, Arrays.copyOf(dealerProbs, 6), false, cardsLeft, decision);
+	}
+
+}
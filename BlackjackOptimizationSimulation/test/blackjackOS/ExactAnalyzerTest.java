@@ -0,0 +1,63 @@
+package blackjackOS;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/* Pins the exact edges under the standard rules, so that a change to the optimizer that moves them is
+ * noticed, and checks that seeded simulations which reshuffle after every game agree with them to within
+ * their confidence intervals */
+public class ExactAnalyzerTest {
+
+	// The exact edges under the standard rules, as fractions of the wager
+	private static final double EDGE_1_DECK = 0.00151628;
+	private static final double EDGE_6_DECKS = -0.00387818;
+
+	private static final long SEED = 3;
+
+	@AfterEach
+	public void clearCaches() {
+		BlackjackOptimization.clearThreadCaches();
+	}
+
+	@Test
+	public void edgesOfTheStandardRules() {
+		ExactAnalyzer one = ExactAnalyzer.analyze(1);
+		assertEquals(EDGE_1_DECK, one.edge(), 5e-9);
+		assertEquals(EDGE_6_DECKS, ExactAnalyzer.analyze(6).edge(), 5e-9);
+
+		// The chances of the up cards add up to 1, and the edges by up card add back up to the whole edge
+		double total = 0;
+		double edge = 0;
+		for (int upIdx = 0; upIdx < Shoe.CARD_TYPES; upIdx++) {
+			total += one.upCardProb(upIdx);
+			edge += one.upCardProb(upIdx) * one.edgeByUpCard(upIdx);
+		}
+		assertEquals(1.0, total, 1e-12);
+		assertEquals(one.edge(), edge, 1e-12);
+	}
+
+	/* A 95 percent interval misses the exact edge for about one seed in twenty, as the first 200000 games of
+	 * seed 42 do with a single deck, so the seed is fixed to keep the test repeatable */
+	@Test
+	public void simulationsAgreeWithinTheirIntervals() {
+		assertSimulationContains(200000, 1, EDGE_1_DECK);
+		assertSimulationContains(120000, 6, EDGE_6_DECKS);
+	}
+
+	private static void assertSimulationContains(long games, int decks, double exact) {
+		SimulationResult result = BlackjackSimulation.simulateGames(games, decks, 1.0, 1,
+				new SplittableCardRandom(SEED));
+		assertTrue(Math.abs(result.playerEdge - exact) <= result.ciHalfWidth, decks + " decks: simulated "
+				+ result.playerEdge + " +/- " + result.ciHalfWidth + " against " + exact);
+	}
+
+	@Test
+	public void decksBelowOneAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> ExactAnalyzer.analyze(0));
+		assertThrows(IllegalArgumentException.class, () -> ExactAnalyzer.analyze(-2));
+	}
+}
@@ -0,0 +1,83 @@
+package blackjackOS;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/* Checks that the records of a run hold every hand of a split up to the most the rules allow and the exact
+ * amount won, adding up to the run's own result, and that files in any other format are rejected */
+public class GameEventTest {
+
+	private static final long GAMES = 20000;
+
+	@TempDir
+	Path dir;
+
+	@AfterEach
+	public void restoreRules() {
+		BlackjackOptimization.setRules(Rules.STANDARD);
+		BlackjackOptimization.clearThreadCaches();
+	}
+
+	@Test
+	public void recordsHoldEveryHandAndTheExactPayout() throws IOException {
+		BlackjackOptimization.setRules(Rules.parse("hands=4,bj=1.25"));
+		Path path = dir.resolve("games.bjev");
+		SimulationResult result;
+		try (GameEventSink sink = new GameEventSink(path)) {
+			result = BlackjackSimulation.simulateGames(GAMES, 1, 0.5, 1, new SplittableCardRandom(42), null, sink);
+		}
+
+		double total = 0;
+		long blackjacks = 0;
+		int mostHands = 0;
+		try (GameEventReader reader = new GameEventReader(path)) {
+			assertEquals(GAMES, reader.size());
+			while (reader.next()) {
+				total += reader.payout();
+				if (reader.payout() == 1.25) {
+					blackjacks++;
+				}
+				int hands = reader.hands();
+				assertTrue(hands >= 1 && hands <= 4, "game " + reader.game() + " has " + hands + " hands");
+				mostHands = Math.max(mostHands, hands);
+				for (int i = 0; i < GameEvent.MAX_HANDS; i++) {
+					int handTotal = reader.handTotal(i);
+					assertTrue(i < hands ? handTotal >= 4 && handTotal <= 30 : handTotal == 0,
+							"game " + reader.game() + " hand " + i + " has " + handTotal);
+				}
+			}
+		}
+		assertEquals(result.playerEdge * GAMES, total, 1e-6);
+		assertTrue(blackjacks > 0);
+		assertTrue(mostHands > 2, "no game was resplit");
+	}
+
+	/* A file written before the header, or with the header of another version, can be neither read nor
+	 * resumed */
+	@Test
+	public void otherFormatsAreRejected() throws IOException {
+		Path old = dir.resolve("old.bjev");
+		Files.write(old, new byte[64]);
+		assertThrows(IOException.class, () -> new GameEventReader(old));
+		assertThrows(IOException.class, () -> new GameEventSink(old, 32).close());
+
+		Path other = dir.resolve("other.bjev");
+		Files.write(other, new byte[] { 0x42, 0x4A, 0x47, 0x45, 0, 0, 0, 1 });
+		assertThrows(IOException.class, () -> new GameEventReader(other));
+
+		Path empty = dir.resolve("empty.bjev");
+		new GameEventSink(empty).close();
+		try (GameEventReader reader = new GameEventReader(empty)) {
+			assertEquals(0, reader.size());
+		}
+	}
+}
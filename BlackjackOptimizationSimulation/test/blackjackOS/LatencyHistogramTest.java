@@ -0,0 +1,82 @@
+package blackjackOS;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/* Checks that every time goes in a bucket whose top is no more than 12.5 percent above it, that the buckets
+ * line up with the powers of two, and that the percentiles of a known set of times are the tops of the
+ * buckets that the exact percentiles fall in */
+public class LatencyHistogramTest {
+
+	/* Times below 8 each have a bucket of their own, which is also its top */
+	@Test
+	public void smallTimesAreExact() {
+		for (int nanos = 0; nanos < 8; nanos++) {
+			assertEquals(nanos, LatencyHistogram.bucket(nanos));
+			assertEquals(nanos, LatencyHistogram.upperBound(nanos));
+		}
+	}
+
+	/* Each power of two starts the first bucket of a new range, whose buckets are twice as wide as the
+	 * ones below it */
+	@Test
+	public void rangesStartAtPowersOfTwo() {
+		assertEquals(8, LatencyHistogram.bucket(8));
+		assertEquals(15, LatencyHistogram.bucket(15));
+		assertEquals(16, LatencyHistogram.bucket(16));
+		assertEquals(16, LatencyHistogram.bucket(17));
+		assertEquals(17, LatencyHistogram.upperBound(16));
+		for (int power = 4; power < 63; power++) {
+			long start = 1L << power;
+			assertEquals(LatencyHistogram.bucket(start - 1) + 1, LatencyHistogram.bucket(start), "2^" + power);
+			assertEquals(start - 1, LatencyHistogram.upperBound(LatencyHistogram.bucket(start - 1)), "2^" + power);
+		}
+		assertTrue(LatencyHistogram.bucket(Long.MAX_VALUE) < LatencyHistogram.BUCKETS);
+		assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBound(LatencyHistogram.bucket(Long.MAX_VALUE)));
+	}
+
+	/* The top of a time's bucket is never below it, and never more than an eighth of it above */
+	@Test
+	public void bucketsAreWithinAnEighth() {
+		CardRandom random = new SplittableCardRandom(13);
+		for (long nanos = 0; nanos < 5000; nanos++) {
+			assertWithinAnEighth(nanos);
+		}
+		for (int power = 13; power < 63; power++) {
+			for (int i = 0; i < 100; i++) {
+				long nanos = (1L << power) + ((long) random.nextInt(1 << 30) << Math.max(0, power - 30));
+				assertWithinAnEighth(nanos);
+			}
+		}
+	}
+
+	private static void assertWithinAnEighth(long nanos) {
+		long top = LatencyHistogram.upperBound(LatencyHistogram.bucket(nanos));
+		assertTrue(top >= nanos && top - nanos <= nanos / 8, nanos + " goes in a bucket up to " + top);
+	}
+
+	/* With the times 1 through 1000, the percentile of each fraction is the top of the bucket that holds
+	 * the time of that rank */
+	@Test
+	public void percentilesOfKnownTimes() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.percentile(0.5));
+		for (long nanos = 1000; nanos >= 1; nanos--) {
+			histogram.record(nanos);
+		}
+		histogram.record(-5);
+		assertEquals(1001, histogram.count());
+
+		assertEquals(0, histogram.percentile(0.0));
+		assertEquals(LatencyHistogram.upperBound(LatencyHistogram.bucket(500)), histogram.percentile(0.5));
+		assertEquals(LatencyHistogram.upperBound(LatencyHistogram.bucket(990)), histogram.percentile(0.99));
+		assertEquals(1023, histogram.percentile(1.0));
+		assertEquals(511, histogram.percentile(0.5));
+
+		histogram.reset();
+		assertEquals(0, histogram.count());
+		assertEquals(0, histogram.percentile(0.99));
+	}
+}
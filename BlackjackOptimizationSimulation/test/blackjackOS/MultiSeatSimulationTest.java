@@ -0,0 +1,87 @@
+package blackjackOS;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+/* Checks that a table with a single optimizer seat plays exactly the same games as the single player
+ * simulation, and that a table deals every round without running out of cards */
+public class MultiSeatSimulationTest {
+
+	private static final MultiSeatSimulation.Strategy[] ONE_SEAT = { MultiSeatSimulation.Strategy.OPTIMIZER };
+
+	private static void oneSeatMatchesSinglePlayer(long games, int decks, double reshuffleRatio) {
+		SimulationResult single = BlackjackSimulation.simulateGames(games, decks, reshuffleRatio, 1,
+				new SplittableCardRandom(42));
+		SimulationResult table = MultiSeatSimulation.simulateRounds(games, decks, reshuffleRatio, 1,
+				new SplittableCardRandom(42), ONE_SEAT, null);
+		assertEquals(single.games, table.games);
+		assertEquals(single.winRate, table.winRate, 0.0, decks + " decks at " + reshuffleRatio);
+		assertEquals(single.playerEdge, table.playerEdge, 0.0, decks + " decks at " + reshuffleRatio);
+		assertArrayEquals(single.outcomeProportions, table.outcomeProportions, 0.0);
+	}
+
+	/* With 6 decks and a new shoe every game, the two used to part at game 344, where both hands of a split
+	 * bust: the single player's dealer still drew to their hand, and the table's didn't */
+	@Test
+	void oneSeatMatchesSinglePlayerPastBustedSplit() {
+		oneSeatMatchesSinglePlayer(600, 6, 1.0);
+	}
+
+	@Test
+	void oneSeatMatchesSinglePlayerAcrossShoes() {
+		oneSeatMatchesSinglePlayer(600, 1, 0.5);
+		oneSeatMatchesSinglePlayer(600, 2, 0.5);
+		oneSeatMatchesSinglePlayer(600, 8, 0.25);
+	}
+
+	/* The most seats that a single deck holds are dealt from it every round, as low as the ratio goes */
+	@Test
+	void fullSingleDeckTablePlaysEveryRound() {
+		MultiSeatSimulation.Strategy[] seats = new MultiSeatSimulation.Strategy[4];
+		Arrays.fill(seats, MultiSeatSimulation.Strategy.BASIC);
+		SimulationResult result = MultiSeatSimulation.simulateRounds(3000, 1, 0.0, 1, new SplittableCardRandom(7),
+				seats, null);
+		assertEquals(3000 * 4, result.games);
+	}
+
+	@Test
+	void rejectsMoreSeatsThanTheShoeHolds() {
+		MultiSeatSimulation.Strategy[] seats = new MultiSeatSimulation.Strategy[5];
+		Arrays.fill(seats, MultiSeatSimulation.Strategy.BASIC);
+		assertThrows(IllegalArgumentException.class, () -> MultiSeatSimulation.simulateRounds(10, 1, 0.5, 1,
+				new SplittableCardRandom(7), seats, null));
+	}
+
+	/* When the shoe runs out partway through a round, every card but the ones dealt this round goes back
+	 * in, and the players' cards left are the new shoe with the unseen hole card */
+	@Test
+	void emptyShoeShufflesBackEverythingButTheRound() {
+		MultiSeatSimulation.TableState state = new MultiSeatSimulation.TableState(1, 0.5,
+				new SplittableCardRandom(3), ONE_SEAT, null, null);
+		int[] dealt = new int[Shoe.CARD_TYPES];
+		for (int i = 0; i < 4; i++) {
+			dealt[Shoe.indexOf(state.deal())]++;
+		}
+		int hole = state.deal();
+		dealt[Shoe.indexOf(hole)]++;
+		state.holeIdx = Shoe.indexOf(hole);
+		state.trueCardsLeft.set(new int[Shoe.CARD_TYPES]);
+
+		int next = state.deal();
+		dealt[Shoe.indexOf(next)]++;
+
+		int[] expected = Shoe.full(1).toArray();
+		for (int idx = 0; idx < Shoe.CARD_TYPES; idx++) {
+			expected[idx] -= dealt[idx];
+		}
+		assertArrayEquals(expected, state.trueCardsLeft.toArray());
+		expected[Shoe.indexOf(hole)]++;
+		expected[Shoe.indexOf(next)]++;
+		assertArrayEquals(expected, state.cardsLeft.toArray());
+	}
+}
@@ -0,0 +1,66 @@
+package blackjackOS;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+/* Checks that the dealer's probabilities precomputed for a full shoe missing the up card and the player's
+ * two starting cards are the ones the recursion finds, and that no other shoe is answered from them */
+public class OpeningDealerProbsTest {
+
+	private static int value(int idx) {
+		return idx == 1 ? 11 : BlackjackOptimization.idxToVal[idx];
+	}
+
+	@Test
+	public void everyOpeningDealEqualsRecursion() {
+		for (int decks = 1; decks <= 8; decks++) {
+			for (int upIdx = 0; upIdx < Shoe.CARD_TYPES; upIdx++) {
+				int up = value(upIdx);
+				for (int first = 0; first < Shoe.CARD_TYPES; first++) {
+					for (int second = 0; second < Shoe.CARD_TYPES; second++) {
+						Shoe shoe = Shoe.full(decks);
+						shoe.remove(first);
+						shoe.remove(upIdx);
+						shoe.remove(second);
+						double[] found = BlackjackOptimization.findOpeningDealerProbs(up, shoe);
+						assertNotNull(found);
+						assertArrayEquals(BlackjackOptimization.getDealerProbs(up, shoe, 1, up == 11,
+								new double[6]), found, 0.0);
+						assertSame(found, BlackjackOptimization.getDealerProbs(up, shoe, up == 11));
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void otherShoesAreNotFound() {
+		// Three cards missing, but none of them the up card
+		Shoe shoe = Shoe.full(6);
+		shoe.remove(2);
+		shoe.remove(3);
+		shoe.remove(4);
+		assertNull(BlackjackOptimization.findOpeningDealerProbs(10, shoe));
+
+		// The up card and only one other card missing, or three other cards
+		shoe = Shoe.full(2);
+		shoe.remove(0);
+		shoe.remove(5);
+		assertNull(BlackjackOptimization.findOpeningDealerProbs(10, shoe));
+		shoe.remove(5);
+		shoe.remove(5);
+		assertNull(BlackjackOptimization.findOpeningDealerProbs(10, shoe));
+
+		// More decks than are precomputed
+		shoe = Shoe.full(9);
+		shoe.remove(0);
+		shoe.remove(5);
+		shoe.remove(6);
+		assertNull(BlackjackOptimization.findOpeningDealerProbs(10, shoe));
+	}
+
+}
@@ -0,0 +1,91 @@
+package blackjackOS;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/* Checks that every result that can happen under the rules is counted in the slot for that result, with
+ * the slots in increasing order, including Blackjack payouts that are and are not whole numbers of half
+ * wagers, and the losses from doubling and from splitting */
+public class OutcomeHistogramTest {
+
+	/* Adds each result once, and checks that it landed in a slot of its own with that result */
+	private static void assertSlots(OutcomeHistogram histogram, double... results) {
+		for (double result : results) {
+			long before = histogram.total();
+			histogram.add(result);
+			assertEquals(before + 1, histogram.total());
+			int slot = slotOf(histogram, result);
+			assertEquals(1, histogram.count(slot), "result " + result);
+		}
+		for (int slot = 1; slot < histogram.slots(); slot++) {
+			assertTrue(histogram.value(slot - 1) < histogram.value(slot));
+		}
+	}
+
+	private static int slotOf(OutcomeHistogram histogram, double result) {
+		for (int slot = 0; slot < histogram.slots(); slot++) {
+			if (histogram.value(slot) == result) {
+				return slot;
+			}
+		}
+		throw new AssertionError("No slot for " + result);
+	}
+
+	@Test
+	public void threeToTwoPayout() {
+		OutcomeHistogram histogram = new OutcomeHistogram(Rules.parse("bj=1.5,hands=2"));
+		// A split with both hands doubled and lost, a double lost, a loss, a surrender, a push, a win, the
+		// Blackjack payout, a double won, and a split with both hands doubled and won
+		assertSlots(histogram, -4, -2, -1, -0.5, 0, 1, 1.5, 2, 4);
+		// Every slot is a whole number of half wagers, so the payout needs no slot of its own
+		assertEquals(17, histogram.slots());
+		assertEquals(-4, histogram.value(0), 0.0);
+		assertEquals(4, histogram.value(histogram.slots() - 1), 0.0);
+	}
+
+	@Test
+	public void sixToFivePayout() {
+		OutcomeHistogram histogram = new OutcomeHistogram(Rules.parse("bj=1.2,hands=2"));
+		assertSlots(histogram, -4, -3, -2, -1, -0.5, 0, 1, 1.2, 1.5, 2, 3, 4);
+		assertEquals(18, histogram.slots());
+		int payout = slotOf(histogram, 1.2);
+		assertEquals(1, histogram.value(payout - 1), 0.0);
+		assertEquals(1.5, histogram.value(payout + 1), 0.0);
+	}
+
+	@Test
+	public void resplitLosses() {
+		OutcomeHistogram histogram = new OutcomeHistogram(Rules.parse("hands=4"));
+		assertSlots(histogram, -8, -7, -6, -5, -4, -3, 6, 8);
+		assertEquals(-8, histogram.value(0), 0.0);
+	}
+
+	@Test
+	public void impossibleResultsAreRejected() {
+		OutcomeHistogram histogram = new OutcomeHistogram(Rules.parse("bj=1.2,hands=2"));
+		assertThrows(IllegalArgumentException.class, () -> histogram.add(-4.5));
+		assertThrows(IllegalArgumentException.class, () -> histogram.add(5));
+		assertThrows(IllegalArgumentException.class, () -> histogram.add(0.3));
+		assertThrows(IllegalArgumentException.class, () -> histogram.add(-1.2));
+		assertEquals(0, histogram.total());
+	}
+
+	@Test
+	public void mergeAddsSlotBySlot() {
+		OutcomeHistogram a = new OutcomeHistogram(Rules.parse("bj=1.2"));
+		OutcomeHistogram b = new OutcomeHistogram(Rules.parse("bj=1.2"));
+		a.add(1.2);
+		a.add(-2);
+		b.add(1.2);
+		b.add(0);
+		a.merge(b);
+		assertEquals(2, a.count(slotOf(a, 1.2)));
+		assertEquals(1, a.count(slotOf(a, -2)));
+		assertEquals(1, a.count(slotOf(a, 0)));
+		assertThrows(IllegalArgumentException.class, () -> a.merge(new OutcomeHistogram(Rules.STANDARD)));
+	}
+
+}
@@ -0,0 +1,88 @@
+package blackjackOS;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/* Checks that the evaluations split across the fork-join pool stay within TOLERANCE of the ones made on a
+ * single thread, which only differ in the order that the branches are added up, and that they give the
+ * same answer every time they are run */
+public class ParallelEvaluationTest {
+
+	private static final double TOLERANCE = 1e-14;
+
+	@AfterEach
+	public void clearCaches() {
+		BlackjackOptimization.clearThreadCaches();
+	}
+
+	@Test
+	public void playerProbsMatchSerial() {
+		CardRandom random = new SplittableCardRandom(8);
+		for (int decks : new int[] { 1, 2, 6 }) {
+			Shoe cardsLeft = DealerProbsCacheTest.partialShoe(decks, random.nextInt(decks * 20), random);
+			for (int up : new int[] { 2, 7, 10, 11 }) {
+				double[] dealerProbs = BlackjackOptimization.getDealerProbs(up, cardsLeft, 1, up == 11, new double[6]);
+				for (int total = 4; total <= 20; total++) {
+					for (boolean soft : new boolean[] { false, true }) {
+						if (soft && total < 12) {
+							continue;
+						}
+						double[] serial = BlackjackOptimization.getPlayerProbs(total, cardsLeft, 1.0, soft,
+								new double[11], dealerProbs);
+						double[] parallel = BlackjackOptimization.getPlayerProbsParallel(total, cardsLeft, soft,
+								new double[11], dealerProbs);
+						assertArrayEquals(serial, parallel, TOLERANCE);
+						assertArrayEquals(parallel, BlackjackOptimization.getPlayerProbsParallel(total, cardsLeft,
+								soft, new double[11], dealerProbs), 0.0);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void decisionsMatchSerial() {
+		Decision serial = new Decision();
+		Decision parallel = new Decision();
+		for (int decks : new int[] { 1, 6 }) {
+			for (int up = 2; up <= 11; up++) {
+				Shoe cardsLeft = Shoe.full(decks);
+				cardsLeft.remove(Shoe.indexOf(up));
+				double[] dealerProbs = BlackjackOptimization.getDealerProbs(up, cardsLeft, up == 11);
+				for (int total = 5; total <= 19; total++) {
+					BlackjackOptimization.shouldHit(total, up, dealerProbs, false, cardsLeft, serial);
+					BlackjackOptimization.shouldHitParallel(total, up, dealerProbs, false, cardsLeft, parallel);
+					assertEquals(serial.winIfHit, parallel.winIfHit, TOLERANCE);
+					assertEquals(serial.winIfStand, parallel.winIfStand, TOLERANCE);
+					assertEquals(serial.winIfHitOnce, parallel.winIfHitOnce, TOLERANCE);
+					assertEquals(serial.hit, parallel.hit);
+					assertEquals(serial.doubleDown, parallel.doubleDown);
+					assertEquals(serial.surrender, parallel.surrender);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void splitValuesMatchSerial() {
+		SplitEvaluator serial = new SplitEvaluator();
+		SplitEvaluator parallel = new SplitEvaluator();
+		for (int decks : new int[] { 1, 6 }) {
+			for (int card = 2; card <= 11; card++) {
+				for (int up : new int[] { 5, 10 }) {
+					Shoe cardsLeft = Shoe.full(decks);
+					cardsLeft.remove(Shoe.indexOf(card));
+					cardsLeft.remove(Shoe.indexOf(card));
+					cardsLeft.remove(Shoe.indexOf(up));
+					double[] dealerProbs = BlackjackOptimization.getDealerProbs(up, cardsLeft, up == 11);
+					assertEquals(serial.splitValue(card, 1, dealerProbs, cardsLeft, false),
+							parallel.splitValue(card, 1, dealerProbs, cardsLeft, true), TOLERANCE);
+				}
+			}
+		}
+	}
+
+}
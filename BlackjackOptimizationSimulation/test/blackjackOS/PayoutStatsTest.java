@@ -0,0 +1,110 @@
+package blackjackOS;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/* Checks the running mean and variance against a plain two-pass calculation, and that merging sets of
+ * statistics, or adding games in groups, gives the same answer as adding every game to one of them */
+public class PayoutStatsTest {
+
+	private static final double[] PAYOUTS = { -4, -2, -1, -0.5, 0, 1, 1.5, 2, 4 };
+
+	private static double[] payouts(int games, long seed) {
+		Random random = new Random(seed);
+		double[] payouts = new double[games];
+		for (int i = 0; i < games; i++) {
+			payouts[i] = PAYOUTS[random.nextInt(PAYOUTS.length)];
+		}
+		return payouts;
+	}
+
+	private static double mean(double[] values) {
+		double sum = 0;
+		for (double value : values) {
+			sum += value;
+		}
+		return sum / values.length;
+	}
+
+	private static double variance(double[] values) {
+		double mean = mean(values);
+		double sum = 0;
+		for (double value : values) {
+			sum += (value - mean) * (value - mean);
+		}
+		return sum / (values.length - 1);
+	}
+
+	private static PayoutStats of(double[] values, int from, int to) {
+		PayoutStats stats = new PayoutStats();
+		for (int i = from; i < to; i++) {
+			stats.add(values[i]);
+		}
+		return stats;
+	}
+
+	@Test
+	public void welfordMatchesTwoPass() {
+		double[] values = payouts(100_000, 1);
+		PayoutStats stats = of(values, 0, values.length);
+		assertEquals(values.length, stats.count());
+		assertEquals(mean(values), stats.mean(), 1e-12);
+		assertEquals(variance(values), stats.variance(), 1e-10);
+		assertEquals(Math.sqrt(variance(values) / values.length), stats.standardError(), 1e-12);
+	}
+
+	/* Payouts far from zero, where the sum of squares minus the square of the sum would lose every digit */
+	@Test
+	public void welfordIsStableFarFromZero() {
+		double[] values = { 1e9 + 4, 1e9 + 7, 1e9 + 13, 1e9 + 16 };
+		PayoutStats stats = of(values, 0, values.length);
+		assertEquals(1e9 + 10, stats.mean(), 0.0);
+		assertEquals(30.0, stats.variance(), 1e-9);
+	}
+
+	/* The games are split among several sets of statistics at uneven points, as they are among threads,
+	 * including one set with no games, and merged back together */
+	@Test
+	public void chanMergeMatchesOneSet() {
+		double[] values = payouts(50_000, 2);
+		PayoutStats whole = of(values, 0, values.length);
+		int[] cuts = { 0, 1, 1, 777, 20_000, 49_999, values.length };
+		PayoutStats merged = new PayoutStats();
+		for (int i = 0; i + 1 < cuts.length; i++) {
+			merged.merge(of(values, cuts[i], cuts[i + 1]));
+		}
+		assertEquals(whole.count(), merged.count());
+		assertEquals(whole.mean(), merged.mean(), 1e-14);
+		assertEquals(whole.variance(), merged.variance(), 1e-11);
+	}
+
+	@Test
+	public void groupsMatchSingleGames() {
+		OutcomeHistogram histogram = new OutcomeHistogram(Rules.STANDARD);
+		double[] values = payouts(10_000, 3);
+		for (double value : values) {
+			histogram.add(value);
+		}
+		PayoutStats grouped = PayoutStats.of(histogram);
+		PayoutStats single = of(values, 0, values.length);
+		assertEquals(single.count(), grouped.count());
+		assertEquals(single.mean(), grouped.mean(), 1e-14);
+		assertEquals(single.variance(), grouped.variance(), 1e-12);
+	}
+
+	@Test
+	public void fewerThanTwoGamesHaveNoSpread() {
+		PayoutStats stats = new PayoutStats();
+		assertEquals(0.0, stats.variance(), 0.0);
+		assertEquals(Double.POSITIVE_INFINITY, stats.standardError(), 0.0);
+		stats.add(1.5);
+		assertEquals(1.5, stats.mean(), 0.0);
+		assertEquals(0.0, stats.variance(), 0.0);
+		stats.merge(new PayoutStats());
+		assertEquals(1, stats.count());
+	}
+
+}
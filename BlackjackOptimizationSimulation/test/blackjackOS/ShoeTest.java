@@ -0,0 +1,85 @@
+package blackjackOS;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/* Checks that drawing from the Fenwick tree is uniform over the cards left: every one of the random numbers
+ * that draw can be given picks a different card, so each index is drawn exactly as often as it has cards */
+public class ShoeTest {
+
+	/* Always gives the same number, which must be less than the bound */
+	private static final class FixedRandom implements CardRandom {
+
+		private final int number;
+
+		FixedRandom(int number) {
+			this.number = number;
+		}
+
+		@Override
+		public int nextInt(int bound) {
+			assertTrue(number < bound);
+			return number;
+		}
+
+		@Override
+		public CardRandom split() {
+			return this;
+		}
+
+	}
+
+	/* Returns the number of times each index is drawn when draw is given every random number it can be given
+	 * once, each on a copy of the shoe */
+	private static int[] drawEveryNumber(Shoe shoe) {
+		int[] drawn = new int[Shoe.CARD_TYPES];
+		for (int r = 0; r < shoe.total(); r++) {
+			drawn[shoe.copy().draw(new FixedRandom(r))]++;
+		}
+		return drawn;
+	}
+
+	@Test
+	public void fullShoeDrawsAreUniform() {
+		for (int decks = 1; decks <= 8; decks++) {
+			Shoe shoe = Shoe.full(decks);
+			assertArrayEquals(shoe.toArray(), drawEveryNumber(shoe));
+		}
+	}
+
+	/* Cards are taken out and put back in every way the tree is updated, including emptying some indices
+	 * entirely, and the draws must still follow the counts */
+	@Test
+	public void partialShoeDrawsAreUniform() {
+		CardRandom random = new SplittableCardRandom(4);
+		Shoe shoe = Shoe.full(2);
+		for (int i = 0; i < 8; i++) {
+			shoe.remove(1);
+			shoe.remove(5);
+		}
+		for (int i = 0; i < 40; i++) {
+			shoe.draw(random);
+		}
+		shoe.restore(5);
+		shoe.take(3);
+		shoe.putBack(3);
+		assertEquals(1, shoe.count(5));
+		assertEquals(0, shoe.count(1));
+		assertArrayEquals(shoe.toArray(), drawEveryNumber(shoe));
+	}
+
+	@Test
+	public void drawRemovesTheCard() {
+		CardRandom random = new SplittableCardRandom(5);
+		Shoe shoe = Shoe.full(1);
+		int[] drawn = new int[Shoe.CARD_TYPES];
+		while (shoe.total() > 0) {
+			drawn[shoe.draw(random)]++;
+		}
+		assertArrayEquals(Shoe.full(1).toArray(), drawn);
+	}
+
+}
@@ -0,0 +1,81 @@
+package blackjackOS;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/* Checks that a run stopped after a checkpoint and then resumed from it finishes with exactly the same
+ * results as the same run played without stopping */
+public class SimulationCheckpointTest {
+
+	private static final long GAMES = 2000;
+	private static final long CHUNK = 500;
+
+	@TempDir
+	Path dir;
+
+	/* Thrown by the listener to stop a run partway through, as if it had been killed */
+	private static final class Stop extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+	}
+
+	private static SimulationResult run(int threads, SimulationCheckpoint checkpoint, boolean stop) {
+		return BlackjackSimulation.simulateGames(GAMES, 2, 0.5, threads, new SplittableCardRandom(42), null, null,
+				CHUNK, stop ? result -> {
+					throw new Stop();
+				} : null, checkpoint, 0);
+	}
+
+	private void resumedRunEqualsUninterruptedRun(int threads) throws IOException {
+		SimulationResult expected = run(threads, null, false);
+
+		Path path = dir.resolve("run-" + threads + ".ckpt");
+		try (SimulationCheckpoint checkpoint = SimulationCheckpoint.create(path)) {
+			assertThrows(Stop.class, () -> run(threads, checkpoint, true));
+		}
+
+		SimulationResult resumed;
+		try (SimulationCheckpoint checkpoint = SimulationCheckpoint.resume(path)) {
+			assertTrue(checkpoint.isResumed());
+			assertEquals(CHUNK, checkpoint.getPlayed());
+			resumed = run(threads, checkpoint, false);
+		}
+
+		assertEquals(expected.games, resumed.games);
+		assertEquals(expected.winRate, resumed.winRate, 0.0);
+		assertEquals(expected.playerEdge, resumed.playerEdge, 0.0);
+		assertEquals(expected.standardError, resumed.standardError, 0.0);
+		assertEquals(expected.rounds, resumed.rounds);
+		assertArrayEquals(expected.outcomeProportions, resumed.outcomeProportions, 0.0);
+	}
+
+	@Test
+	public void resumedRunEqualsUninterruptedRunOnOneThread() throws IOException {
+		resumedRunEqualsUninterruptedRun(1);
+	}
+
+	@Test
+	public void resumedRunEqualsUninterruptedRunOnThreeThreads() throws IOException {
+		resumedRunEqualsUninterruptedRun(3);
+	}
+
+	@Test
+	public void differentSettingsAreRejected() throws IOException {
+		Path path = dir.resolve("settings.ckpt");
+		try (SimulationCheckpoint checkpoint = SimulationCheckpoint.create(path)) {
+			assertThrows(Stop.class, () -> run(1, checkpoint, true));
+		}
+		try (SimulationCheckpoint checkpoint = SimulationCheckpoint.resume(path)) {
+			assertThrows(IllegalArgumentException.class, () -> BlackjackSimulation.simulateGames(GAMES, 6, 0.5, 1,
+					new SplittableCardRandom(42), null, null, CHUNK, null, checkpoint, 0));
+		}
+	}
+
+}
@@ -0,0 +1,26 @@
+package blackjackOS;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/* Checks that the sweep's lists and ranges are read as written, and that deck counts which aren't whole
+ * numbers of at least 1 are rejected rather than cut down */
+public class SimulationSweepTest {
+
+	@Test
+	public void rangesIncludeTheirEnds() {
+		assertArrayEquals(new double[] { 0.25, 0.5, 0.75, 1.0 }, SimulationSweep.parseList("0.25:1:0.25"), 0.0);
+		assertArrayEquals(new double[] { 0.5, 2.0, 3.0 }, SimulationSweep.parseList("0.5,2:3:1"), 0.0);
+	}
+
+	@Test
+	public void deckCountsAreWholeNumbers() {
+		assertArrayEquals(new int[] { 1, 2, 6, 8 }, SimulationSweep.parseDecks("1:2:1,6,8"));
+		assertThrows(IllegalArgumentException.class, () -> SimulationSweep.parseDecks("1:4:0.5"));
+		assertThrows(IllegalArgumentException.class, () -> SimulationSweep.parseDecks("0"));
+		assertThrows(IllegalArgumentException.class, () -> SimulationSweep.parseDecks("2,-1"));
+		assertThrows(IllegalArgumentException.class, () -> SimulationSweep.parseDecks("1.5"));
+	}
+}
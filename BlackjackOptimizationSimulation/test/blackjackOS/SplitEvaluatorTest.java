@@ -0,0 +1,221 @@
+package blackjackOS;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/* Checks the split evaluator against a brute force of the same split on a single deck, in which every card
+ * that a hand draws is taken out of the cards left for the hands after it. The evaluator only takes out the
+ * second cards of the hands, so it is not exact, and this measures how far off that leaves it. Every hand
+ * uses the same dealer's probabilities and makes the same decisions from the cards left that it sees, and a
+ * hand dealt another card of the pair is split again whenever that has the greater value, so the only
+ * difference is the cards taken out.
+ * Over every pair against every up card, the largest difference is 0.0024 units with two hands, for 2s
+ * against a 4 and 3s against a 2, where the first hand draws the most cards. With three or four hands it is
+ * 0.0037, for the same pairs, but those brute forces take minutes against the high up cards, so only the
+ * pairs usually split against the low ones are checked, along with those two. Aces, which are not hit, come
+ * out exact, whether or not they can be split again. */
+public class SplitEvaluatorTest {
+
+	// The most that the evaluator's value of a split may be off by on a single deck, in units of the bet,
+	// with two hands and with up to four
+	private static final double ERROR_BOUND = 0.003;
+	private static final double RESPLIT_ERROR_BOUND = 0.004;
+
+	private static final int[] EVERY_CARD = { 2, 3, 4, 5, 6, 7, 8, 9, 10, 11 };
+	private static final int[] SMALL_UP_CARDS = { 2, 3, 4, 5, 6 };
+
+	private Rules saved;
+	private final Decision decision = new Decision();
+
+	// The value of the hands still to be dealt their second cards, by how many there are, how many hands
+	// there are in all, and the cards left, for the split being brute forced
+	private final Map<List<Long>, Double> laterHands = new HashMap<>();
+
+	@BeforeEach
+	public void saveRules() {
+		saved = BlackjackOptimization.getRules();
+	}
+
+	@AfterEach
+	public void restore() {
+		BlackjackOptimization.setRules(saved);
+		BlackjackOptimization.clearThreadCaches();
+	}
+
+	/* Returns the value of the given number of hands, each started with one card of the pair and dealt its
+	 * second card from whatever the hands before it left, out of the given number of hands in all */
+	private double bruteForce(int card, int pending, int hands, double[] dealerProbs, Shoe shoe) {
+		if (pending == 0) {
+			return 0;
+		}
+		List<Long> key = List.of((long) pending, (long) hands, shoe.key());
+		Double known = laterHands.get(key);
+		if (known != null) {
+			return known;
+		}
+		Rules rules = BlackjackOptimization.getRules();
+		boolean canHit = card != 11 || rules.hitSplitAces();
+		boolean canDouble = canHit && rules.doubleAfterSplit();
+		boolean canResplit = hands < rules.maxSplitHands() && (card != 11 || rules.resplitAces());
+		double value = 0;
+		int total = shoe.total();
+		for (int idx = 0; idx < Shoe.CARD_TYPES; idx++) {
+			int count = shoe.count(idx);
+			if (count == 0) {
+				continue;
+			}
+			shoe.remove(idx);
+			// The last hand leaves no cards for any other, so its value is the evaluation's own
+			int start = startTotal(card, idx);
+			boolean soft = card == 11 || idx == 1;
+			double hand = pending == 1
+					? BlackjackOptimization.getHandExpectedValue(start, soft, dealerProbs, shoe, canHit,
+							canDouble, decision)
+					: playHand(card, start, soft, dealerProbs, shoe, canHit, canDouble, 1, pending - 1, hands);
+			if (canResplit && idx == Shoe.indexOf(card)) {
+				hand = Math.max(hand, bruteForce(card, pending + 1, hands + 1, dealerProbs, shoe));
+			}
+			value += (double) count / total * hand;
+			shoe.restore(idx);
+		}
+		laterHands.put(key, value);
+		return value;
+	}
+
+	private static int startTotal(int card, int idx) {
+		int total = card + (idx == 1 ? 11 : BlackjackOptimization.idxToVal[idx]);
+		return total == 22 ? 12 : total;
+	}
+
+	/* Returns the value of a hand from the given total on, played as the evaluations would play it from the
+	 * cards left, plus the value of the hands after it once it is finished */
+	private double playHand(int card, int total, boolean soft, double[] dealerProbs, Shoe shoe, boolean canHit,
+			boolean canDouble, int stake, int pending, int hands) {
+		if (total > 21) {
+			return -stake + bruteForce(card, pending, hands, dealerProbs, shoe);
+		}
+		boolean hit = false;
+		boolean doubled = false;
+		if (canHit && stake == 1) {
+			double value = BlackjackOptimization.getHandExpectedValue(total, soft, dealerProbs, shoe, true, false,
+					decision);
+			hit = decision.winIfHit > decision.winIfStand;
+			if (canDouble && BlackjackOptimization.getHandExpectedValue(total, soft, dealerProbs, shoe, true, true,
+					decision) > value) {
+				doubled = true;
+			}
+		}
+		if (!hit && !doubled) {
+			return stake * BlackjackOptimization.getExpectedValue(BlackjackOptimization.winIfStand(total,
+					dealerProbs)) + bruteForce(card, pending, hands, dealerProbs, shoe);
+		}
+		double value = 0;
+		int cards = shoe.total();
+		for (int idx = 0; idx < Shoe.CARD_TYPES; idx++) {
+			int count = shoe.count(idx);
+			if (count == 0) {
+				continue;
+			}
+			int next = total;
+			boolean nextSoft = soft;
+			if (idx == 1 && !soft) {
+				next += 11;
+				nextSoft = true;
+			} else {
+				next += idx == 1 ? 1 : BlackjackOptimization.idxToVal[idx];
+			}
+			if (next > 21 && nextSoft) {
+				next -= 10;
+				nextSoft = false;
+			}
+			shoe.remove(idx);
+			value += (double) count / cards * (doubled
+					? playHand(card, next, nextSoft, dealerProbs, shoe, false, false, 2, pending, hands)
+					: playHand(card, next, nextSoft, dealerProbs, shoe, true, false, 1, pending, hands));
+			shoe.restore(idx);
+		}
+		return value;
+	}
+
+	/* Checks each of the given pairs against each of the given up cards on a single deck under the given
+	 * rules. Aces, which are not hit, must come out exact. */
+	private void checkSplits(Rules rules, int[] cards, int[] ups, double bound) {
+		BlackjackOptimization.setRules(rules);
+		BlackjackOptimization.clearThreadCaches();
+		SplitEvaluator evaluator = new SplitEvaluator();
+		for (int card : cards) {
+			for (int up : ups) {
+				Shoe shoe = Shoe.full(1);
+				shoe.remove(Shoe.indexOf(card));
+				shoe.remove(Shoe.indexOf(card));
+				shoe.remove(Shoe.indexOf(up));
+				double[] dealerProbs = BlackjackOptimization.getDealerProbs(up, shoe, up == 11);
+				laterHands.clear();
+				double exact = bruteForce(card, 2, 2, dealerProbs, shoe);
+				double value = evaluator.splitValue(card, 1, dealerProbs, shoe, false);
+				assertEquals(exact, value, card == 11 ? 1e-12 : bound,
+						card + "s against " + up + " under " + rules);
+			}
+		}
+	}
+
+	@Test
+	public void twoHandSplitsStayWithinBoundOfBruteForce() {
+		checkSplits(Rules.STANDARD.withMaxSplitHands(2), EVERY_CARD, EVERY_CARD, ERROR_BOUND);
+	}
+
+	@Test
+	public void resplitsStayWithinBoundOfBruteForce() {
+		for (int hands = 3; hands <= Rules.MAX_SPLIT_HANDS; hands++) {
+			Rules rules = Rules.STANDARD.withMaxSplitHands(hands);
+			checkSplits(rules, new int[] { 6, 7, 8, 9, 10 }, SMALL_UP_CARDS, RESPLIT_ERROR_BOUND);
+			checkSplits(rules, new int[] { 2 }, new int[] { 4 }, RESPLIT_ERROR_BOUND);
+		}
+		checkSplits(Rules.STANDARD.withMaxSplitHands(3), new int[] { 3 }, new int[] { 2 }, RESPLIT_ERROR_BOUND);
+	}
+
+	@Test
+	public void resplitAcesAreExact() {
+		checkSplits(Rules.STANDARD.withMaxSplitHands(Rules.MAX_SPLIT_HANDS).withResplitAces(true),
+				new int[] { 11 }, EVERY_CARD, RESPLIT_ERROR_BOUND);
+	}
+
+	/* A hand that was already split and is dealt another card of the pair is split again, in the simulation,
+	 * only when that beats the value of playing the pair as it is, and never beyond the most hands allowed */
+	@Test
+	public void resplitsCompareSplittingToThePair() {
+		BlackjackOptimization.setRules(Rules.STANDARD.withMaxSplitHands(Rules.MAX_SPLIT_HANDS));
+		BlackjackOptimization.clearThreadCaches();
+		SplitEvaluator evaluator = new SplitEvaluator();
+		int resplits = 0;
+		for (int card = 2; card <= 11; card++) {
+			for (int up = 2; up <= 11; up++) {
+				Shoe shoe = Shoe.full(6);
+				for (int i = 0; i < 3; i++) {
+					shoe.remove(Shoe.indexOf(card));
+				}
+				shoe.remove(Shoe.indexOf(up));
+				double[] dealerProbs = BlackjackOptimization.getDealerProbs(up, shoe, up == 11);
+				for (int hands = 2; hands < Rules.MAX_SPLIT_HANDS; hands++) {
+					boolean resplit = evaluator.splitValue(card, hands, dealerProbs, shoe, false)
+							> evaluator.pairValue(card, dealerProbs, shoe);
+					assertEquals(resplit, BlackjackOptimization.shouldSplit(card, up, dealerProbs, shoe,
+							decision, hands), card + "s against " + up + " with " + hands + " hands");
+					resplits += resplit ? 1 : 0;
+				}
+				assertFalse(BlackjackOptimization.shouldSplit(card, up, dealerProbs, shoe, decision,
+						Rules.MAX_SPLIT_HANDS), card + "s against " + up + " with every hand used");
+			}
+		}
+		assertTrue(resplits > 0, "no pair was split again");
+	}
+}
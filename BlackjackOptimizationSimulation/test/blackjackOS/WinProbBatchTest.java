@@ -0,0 +1,73 @@
+package blackjackOS;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/* Checks that the batch agrees with playerWinProb, and that the Vector API and the plain loop score a batch
+ * exactly the same, for batch sizes on both sides of the vectors' width. The comparison needs the Vector
+ * API's module, which the Maven build adds, and is skipped when the JVM was started without it. */
+public class WinProbBatchTest {
+
+	private static final int CAPACITY = 37;
+
+	private static final int[] UP_CARDS = { 2, 6, 10, 11 };
+
+	private Shoe cardsLeft;
+	private final double[][] players = new double[CAPACITY][];
+
+	@BeforeEach
+	public void fillDistributions() {
+		CardRandom random = new SplittableCardRandom(19);
+		cardsLeft = DealerProbsCacheTest.partialShoe(2, 30, random);
+		for (int i = 0; i < CAPACITY; i++) {
+			int up = 2 + random.nextInt(10);
+			double[] dealerProbs = BlackjackOptimization.getDealerProbs(up, cardsLeft, up == 11);
+			players[i] = BlackjackOptimization.getPlayerProbs(4 + random.nextInt(17), cardsLeft, 1.0, false,
+					new double[WinProbBatch.TOTALS], dealerProbs);
+		}
+	}
+
+	@AfterEach
+	public void clearCaches() {
+		BlackjackOptimization.clearThreadCaches();
+	}
+
+	@Test
+	public void scalarMatchesPlayerWinProb() {
+		WinProbBatch batch = new WinProbBatch(CAPACITY);
+		double[] scalar = new double[CAPACITY];
+		for (double[] player : players) {
+			batch.add(player);
+		}
+		for (int up : UP_CARDS) {
+			double[] dealerProbs = BlackjackOptimization.getDealerProbs(up, cardsLeft, up == 11);
+			batch.winProbs(dealerProbs, scalar, false);
+			for (int i = 0; i < CAPACITY; i++) {
+				assertEquals(BlackjackOptimization.playerWinProb(players[i], dealerProbs), scalar[i], 1e-15);
+			}
+		}
+	}
+
+	@Test
+	public void vectorMatchesScalar() {
+		assumeTrue(WinProbBatch.VECTOR, "The JVM was started without jdk.incubator.vector");
+		WinProbBatch batch = new WinProbBatch(CAPACITY);
+		double[] vector = new double[CAPACITY];
+		double[] scalar = new double[CAPACITY];
+		for (int up : UP_CARDS) {
+			double[] dealerProbs = BlackjackOptimization.getDealerProbs(up, cardsLeft, up == 11);
+			batch.clear();
+			for (int size = 1; size <= CAPACITY; size++) {
+				batch.add(players[size - 1]);
+				batch.winProbs(dealerProbs, vector, true);
+				batch.winProbs(dealerProbs, scalar, false);
+				assertArrayEquals(scalar, vector, 0.0, size + " distributions against " + up);
+			}
+		}
+	}
+}